@@ -0,0 +1,117 @@
+package com.klef.cicd.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.klef.cicd.service.AdaptiveConcurrencyLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admits API requests against a separate adaptive limit per endpoint class,
+ * so a burst of one kind of work cannot take the threads and connections
+ * the others need. Requests over their class's limit get 429 with
+ * Retry-After straight away.
+ *
+ * Classes: auth (/api/auth/**), bulk (app.concurrency.bulk-paths), reads
+ * (other GETs) and writes (everything else). Each class takes its limits
+ * from app.concurrency.{class}.initial-limit, min-limit and max-limit.
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String LIMITER_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".limiter";
+    private static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    // initial, min, max
+    private static final Map<String, int[]> DEFAULT_LIMITS = Map.of(
+            "auth", new int[] {20, 4, 100},
+            "reads", new int[] {50, 10, 400},
+            "writes", new int[] {20, 5, 200},
+            "bulk", new int[] {2, 1, 8});
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final boolean enabled;
+    private final List<String> bulkPaths;
+    private final long retryAfterSeconds;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new LinkedHashMap<>();
+    private final Map<String, Counter> rejected = new LinkedHashMap<>();
+
+    public ConcurrencyLimitInterceptor(Environment environment, MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty("app.concurrency.enabled", Boolean.class, true);
+        this.bulkPaths = List.of(environment.getProperty("app.concurrency.bulk-paths", String[].class, new String[0]));
+        this.retryAfterSeconds = environment.getProperty("app.concurrency.retry-after-seconds", Long.class, 1L);
+        double tolerance = environment.getProperty("app.concurrency.tolerance", Double.class, 1.5);
+
+        for (String endpointClass : List.of("auth", "reads", "writes", "bulk")) {
+            int[] defaults = DEFAULT_LIMITS.get(endpointClass);
+            String prefix = "app.concurrency." + endpointClass + ".";
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, defaults[0]),
+                    environment.getProperty(prefix + "min-limit", Integer.class, defaults[1]),
+                    environment.getProperty(prefix + "max-limit", Integer.class, defaults[2]),
+                    tolerance);
+            limiters.put(endpointClass, limiter);
+            Gauge.builder("app.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("class", endpointClass).description("Current adaptive concurrency limit").register(meterRegistry);
+            Gauge.builder("app.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("class", endpointClass).description("Requests currently admitted").register(meterRegistry);
+            rejected.put(endpointClass, Counter.builder("app.concurrency.rejected")
+                    .tag("class", endpointClass).description("Requests turned away with 429").register(meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // CORS preflights carry no work
+        if (!enabled || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String endpointClass = classify(request);
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpointClass);
+        if (!limiter.tryAcquire()) {
+            rejected.get(endpointClass).increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Server is busy, please retry shortly\"}");
+            return false;
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(LIMITER_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter limiter) {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            limiter.release(System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE));
+        }
+    }
+
+    private String classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (pathMatcher.match("/api/auth/**", path)) {
+            return "auth";
+        }
+        for (String pattern : bulkPaths) {
+            if (pathMatcher.match(pattern, path)) {
+                return "bulk";
+            }
+        }
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()) ? "reads" : "writes";
+    }
+}
@@ -0,0 +1,26 @@
+package com.klef.cicd.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class MigrationConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationConfig.class);
+
+    // Read when the migration runs rather than as a bean condition, so it still applies to the AOT-processed image
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (environment.getProperty("app.schema.migrate-on-start", Boolean.class, true)) {
+                flyway.migrate();
+            } else {
+                log.info("Skipping schema migrations (app.schema.migrate-on-start=false)");
+            }
+        };
+    }
+}
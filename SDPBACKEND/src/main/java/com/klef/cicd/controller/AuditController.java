@@ -0,0 +1,61 @@
+package com.klef.cicd.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.klef.cicd.dto.AuditEntryView;
+import com.klef.cicd.model.AuditAction;
+import com.klef.cicd.service.AuditService;
+
+@RestController
+@RequestMapping("/api/audit")
+@CrossOrigin(origins = "*")
+public class AuditController {
+    
+    @Autowired
+    private AuditService auditService;
+    
+    // Newest first; pass the last id of a page as beforeId for the next one
+    @GetMapping
+    public ResponseEntity<?> getAuditEntries(@RequestParam(required = false) String entityType,
+                                             @RequestParam(required = false) Long entityId,
+                                             @RequestParam(required = false) String username,
+                                             @RequestParam(required = false) AuditAction action,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                             @RequestParam(required = false) Long beforeId,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<AuditEntryView> entries = auditService.search(entityType, entityId, username, action, from, to, beforeId, limit);
+            return ResponseEntity.ok(entries);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    
+    public static class ErrorResponse {
+        private String message;
+        
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.klef.cicd.controller;
 
+import com.klef.cicd.dto.AnalyticsResult;
+import com.klef.cicd.dto.DashboardBootstrap;
 import com.klef.cicd.dto.DashboardStats;
+import com.klef.cicd.dto.DistributionView;
 import com.klef.cicd.service.DashboardService;
+import com.klef.cicd.service.StaleWhileRevalidate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @CrossOrigin(origins = "*")
@@ -19,4 +25,66 @@ public class DashboardController {
         DashboardStats stats = dashboardService.getDashboardStats();
         return ResponseEntity.ok(stats);
     }
+    
+    // Stats, low-stock list, the user's task counts and profile in one response
+    @GetMapping("/bootstrap")
+    public ResponseEntity<DashboardBootstrap> getBootstrap(@RequestParam String username) {
+        DashboardBootstrap bootstrap = dashboardService.getBootstrap(username);
+        if (bootstrap.stale().isEmpty()) {
+            return ResponseEntity.ok(bootstrap);
+        }
+        // The parts were read off the request thread, so the stale headers are set here for the whole page
+        return ResponseEntity.ok()
+                .header(StaleWhileRevalidate.STALE_HEADER, "true")
+                .header("Age", String.valueOf(bootstrap.stale().values().stream().mapToLong(Long::longValue).max().getAsLong()))
+                .body(bootstrap);
+    }
+    
+    // e.g. ?groupBy=category&lowStock=true&percentiles=50,90
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getProductAnalytics(@RequestParam(required = false) String category,
+                                                 @RequestParam(required = false) Boolean lowStock,
+                                                 @RequestParam(required = false) Integer minStock,
+                                                 @RequestParam(required = false) Integer maxStock,
+                                                 @RequestParam(required = false) String groupBy,
+                                                 @RequestParam(defaultValue = "50,90,99") List<Integer> percentiles) {
+        try {
+            AnalyticsResult result = dashboardService.getProductAnalytics(category, lowStock, minStock, maxStock,
+                    groupBy, percentiles);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    // e.g. ?metric=daysOfCover&category=Electronics&percentiles=10,50,90&bins=20
+    @GetMapping("/distribution")
+    public ResponseEntity<?> getDistribution(@RequestParam(defaultValue = "stock") String metric,
+                                             @RequestParam(required = false) String category,
+                                             @RequestParam(defaultValue = "50,90,99") List<Integer> percentiles,
+                                             @RequestParam(defaultValue = "20") int bins) {
+        try {
+            DistributionView distribution = dashboardService.getDistribution(metric, category, percentiles, bins);
+            return ResponseEntity.ok(distribution);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    
+    public static class ErrorResponse {
+        private String message;
+        
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
 }
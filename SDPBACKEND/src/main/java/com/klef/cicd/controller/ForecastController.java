@@ -0,0 +1,59 @@
+package com.klef.cicd.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.klef.cicd.dto.ForecastRun;
+import com.klef.cicd.dto.ProductForecastView;
+import com.klef.cicd.service.ForecastService;
+
+@RestController
+@RequestMapping("/api/forecasts")
+@CrossOrigin(origins = "*")
+public class ForecastController {
+    
+    @Autowired
+    private ForecastService forecastService;
+    
+    // Products whose suggested reorder point is above their current threshold
+    @GetMapping
+    public ResponseEntity<List<ProductForecastView>> getUnderThreshold(@RequestParam(defaultValue = "100") int limit) {
+        List<ProductForecastView> forecasts = forecastService.getUnderThreshold(limit);
+        return ResponseEntity.ok(forecasts);
+    }
+    
+    @PostMapping("/run")
+    public ResponseEntity<?> runForecast() {
+        try {
+            ForecastRun run = forecastService.runForecast();
+            return ResponseEntity.ok(run);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    
+    public static class ErrorResponse {
+        private String message;
+        
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
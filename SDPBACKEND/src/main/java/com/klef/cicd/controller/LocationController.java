@@ -0,0 +1,116 @@
+package com.klef.cicd.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.klef.cicd.dto.LocationStockView;
+import com.klef.cicd.dto.StockAdjustmentRequest;
+import com.klef.cicd.dto.StockTransferRequest;
+import com.klef.cicd.model.Location;
+import com.klef.cicd.service.LocationStockService;
+
+@RestController
+@RequestMapping("/api/locations")
+@CrossOrigin(origins = "*")
+public class LocationController {
+    
+    @Autowired
+    private LocationStockService locationStockService;
+    
+    @GetMapping
+    public ResponseEntity<List<Location>> getAllLocations() {
+        List<Location> locations = locationStockService.getAllLocations();
+        return ResponseEntity.ok(locations);
+    }
+    
+    @PostMapping
+    public ResponseEntity<?> createLocation(@RequestBody Location location) {
+        try {
+            Location createdLocation = locationStockService.createLocation(location);
+            return ResponseEntity.ok(createdLocation);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{locationId}/stock")
+    public ResponseEntity<List<LocationStockView>> getStock(@PathVariable Long locationId) {
+        List<LocationStockView> stock = locationStockService.getStockAtLocation(locationId);
+        return ResponseEntity.ok(stock);
+    }
+    
+    @GetMapping("/{locationId}/stock/low-stock")
+    public ResponseEntity<List<LocationStockView>> getLowStockProducts(@PathVariable Long locationId) {
+        List<LocationStockView> stock = locationStockService.getLowStockProducts(locationId);
+        return ResponseEntity.ok(stock);
+    }
+    
+    @PostMapping("/{locationId}/stock/{productId}/adjustments")
+    public ResponseEntity<?> adjustStock(@PathVariable Long locationId, @PathVariable Long productId,
+                                         @RequestBody StockAdjustmentRequest request,
+                                         @RequestParam(required = false) String username) {
+        try {
+            if (request.getDelta() == null || request.getDelta() == 0) {
+                throw new RuntimeException("Delta must be a non-zero number");
+            }
+            LocationStockView stock = locationStockService.adjustStock(locationId, productId, request.getDelta(), username);
+            return ResponseEntity.ok(stock);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{locationId}/stock/{productId}/threshold")
+    public ResponseEntity<?> setLowStockThreshold(@PathVariable Long locationId, @PathVariable Long productId,
+                                                  @RequestParam(required = false) Integer lowStockThreshold) {
+        try {
+            LocationStockView stock = locationStockService.setLowStockThreshold(locationId, productId, lowStockThreshold);
+            return ResponseEntity.ok(stock);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/transfers")
+    public ResponseEntity<?> transfer(@RequestBody StockTransferRequest request) {
+        try {
+            if (request.getProductId() == null || request.getFromLocationId() == null
+                    || request.getToLocationId() == null || request.getQuantity() == null) {
+                throw new RuntimeException("productId, fromLocationId, toLocationId and quantity are required");
+            }
+            List<LocationStockView> stock = locationStockService.transfer(request.getProductId(),
+                    request.getFromLocationId(), request.getToLocationId(), request.getQuantity());
+            return ResponseEntity.ok(stock);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    
+    public static class ErrorResponse {
+        private String message;
+        
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
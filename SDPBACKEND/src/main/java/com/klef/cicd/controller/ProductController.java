@@ -1,9 +1,11 @@
 package com.klef.cicd.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -16,8 +18,22 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.klef.cicd.dto.LocationStockView;
+import com.klef.cicd.dto.ProductForecastView;
+import com.klef.cicd.dto.ProductSupplierRequest;
+import com.klef.cicd.dto.ProductSupplierView;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.StockAdjustmentRequest;
+import com.klef.cicd.dto.StockAvailability;
+import com.klef.cicd.dto.StockLevelAt;
+import com.klef.cicd.dto.StockMovementView;
 import com.klef.cicd.model.Product;
+import com.klef.cicd.service.ForecastService;
+import com.klef.cicd.service.LocationStockService;
 import com.klef.cicd.service.ProductService;
+import com.klef.cicd.service.ProductSupplierService;
+import com.klef.cicd.service.ReservationService;
+import com.klef.cicd.service.StockLedgerService;
 
 @RestController
 @RequestMapping("/api/products")
@@ -27,15 +43,46 @@ public class ProductController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    
+    @Autowired
+    private ReservationService reservationService;
+    
+    @Autowired
+    private LocationStockService locationStockService;
+    
+    @Autowired
+    private ProductSupplierService productSupplierService;
+    
+    @Autowired
+    private ForecastService forecastService;
+    
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String fields) {
+        try {
+            if (fields != null) {
+                return ResponseEntity.ok(productService.getAllProducts(fields));
+            }
+            List<ProductView> products = productService.getAllProducts();
+            return ResponseEntity.ok(products);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getProductsByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(productService.getProductsBatch(ids));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
+        Optional<ProductView> product = productService.getProductById(id);
         if (product.isPresent()) {
             return ResponseEntity.ok(product.get());
         } else {
@@ -46,7 +93,7 @@ public class ProductController {
     @PostMapping
     public ResponseEntity<?> createProduct(@RequestBody Product product, @RequestParam String username) {
         try {
-            Product createdProduct = productService.createProduct(product, username);
+            ProductView createdProduct = productService.createProduct(product, username);
             return ResponseEntity.ok(createdProduct);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -56,17 +103,31 @@ public class ProductController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Product product, @RequestParam String username) {
         try {
-            Product updatedProduct = productService.updateProduct(id, product, username);
+            ProductView updatedProduct = productService.updateProduct(id, product, username);
             return ResponseEntity.ok(updatedProduct);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
     }
     
+    @PostMapping("/{id}/stock-adjustments")
+    public ResponseEntity<?> adjustStock(@PathVariable Long id, @RequestBody StockAdjustmentRequest request,
+                                         @RequestParam(required = false) String username) {
+        try {
+            if (request.getDelta() == null || request.getDelta() == 0) {
+                throw new RuntimeException("Delta must be a non-zero number");
+            }
+            ProductView adjustedProduct = productService.adjustStock(id, request.getDelta(), username);
+            return ResponseEntity.ok(adjustedProduct);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteProduct(@PathVariable Long id) {
+    public ResponseEntity<?> deleteProduct(@PathVariable Long id, @RequestParam(required = false) String username) {
         try {
-            productService.deleteProduct(id);
+            productService.deleteProduct(id, username);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -74,23 +135,109 @@ public class ProductController {
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
-        List<Product> products = productService.getProductsByCategory(category);
+    public ResponseEntity<List<ProductView>> getProductsByCategory(@PathVariable String category) {
+        List<ProductView> products = productService.getProductsByCategory(category);
         return ResponseEntity.ok(products);
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
-        List<Product> products = productService.searchProducts(name);
+    public ResponseEntity<List<ProductView>> searchProducts(@RequestParam String name) {
+        List<ProductView> products = productService.searchProducts(name);
         return ResponseEntity.ok(products);
     }
     
     @GetMapping("/low-stock")
-    public ResponseEntity<List<Product>> getLowStockProducts() {
-        List<Product> products = productService.getLowStockProducts();
+    public ResponseEntity<?> getLowStockProducts(@RequestParam(required = false) Long locationId) {
+        // Without a location this compares the total across all locations
+        if (locationId != null) {
+            List<LocationStockView> stock = locationStockService.getLowStockProducts(locationId);
+            return ResponseEntity.ok(stock);
+        }
+        List<ProductView> products = productService.getLowStockProducts();
         return ResponseEntity.ok(products);
     }
     
+    // e.g. ?within=5: in stock and no more than 5 units above the low-stock threshold
+    @GetMapping("/nearly-low-stock")
+    public ResponseEntity<?> getNearlyLowStockProducts(@RequestParam(defaultValue = "5") int within) {
+        try {
+            List<ProductView> products = productService.getNearlyLowStockProducts(within);
+            return ResponseEntity.ok(products);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{id}/locations")
+    public ResponseEntity<List<LocationStockView>> getProductLocations(@PathVariable Long id) {
+        List<LocationStockView> stock = locationStockService.getProductLocations(id);
+        return ResponseEntity.ok(stock);
+    }
+    
+    @GetMapping("/{id}/movements")
+    public ResponseEntity<List<StockMovementView>> getStockMovements(@PathVariable Long id,
+                                                                     @RequestParam(defaultValue = "50") int limit) {
+        List<StockMovementView> movements = stockLedgerService.getRecentMovements(id, limit);
+        return ResponseEntity.ok(movements);
+    }
+    
+    @GetMapping("/{id}/stock-at")
+    public ResponseEntity<?> getStockAt(@PathVariable Long id,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        Optional<StockLevelAt> level = stockLedgerService.getStockAt(id, at);
+        if (level.isPresent()) {
+            return ResponseEntity.ok(level.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getAvailability(@PathVariable Long id) {
+        Optional<StockAvailability> availability = reservationService.getAvailability(id);
+        if (availability.isPresent()) {
+            return ResponseEntity.ok(availability.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/forecast")
+    public ResponseEntity<?> getForecast(@PathVariable Long id) {
+        Optional<ProductForecastView> forecast = forecastService.getForecast(id);
+        if (forecast.isPresent()) {
+            return ResponseEntity.ok(forecast.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/suppliers")
+    public ResponseEntity<List<ProductSupplierView>> getProductSuppliers(@PathVariable Long id) {
+        List<ProductSupplierView> suppliers = productSupplierService.getSuppliersForProduct(id);
+        return ResponseEntity.ok(suppliers);
+    }
+    
+    @PutMapping("/{id}/suppliers")
+    public ResponseEntity<?> linkSupplier(@PathVariable Long id, @RequestBody ProductSupplierRequest request) {
+        try {
+            List<ProductSupplierView> suppliers = productSupplierService.linkSupplier(id, request);
+            return ResponseEntity.ok(suppliers);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/{id}/suppliers/{supplierId}")
+    public ResponseEntity<?> unlinkSupplier(@PathVariable Long id, @PathVariable Long supplierId) {
+        try {
+            productSupplierService.unlinkSupplier(id, supplierId);
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
     
     public static class ErrorResponse {
         private String message;
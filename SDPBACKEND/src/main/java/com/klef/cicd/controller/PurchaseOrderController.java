@@ -0,0 +1,95 @@
+package com.klef.cicd.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.klef.cicd.dto.PurchaseOrderView;
+import com.klef.cicd.dto.ReplenishmentRun;
+import com.klef.cicd.model.PurchaseOrderStatus;
+import com.klef.cicd.service.PurchaseOrderService;
+
+@RestController
+@RequestMapping("/api/purchase-orders")
+@CrossOrigin(origins = "*")
+public class PurchaseOrderController {
+    
+    @Autowired
+    private PurchaseOrderService purchaseOrderService;
+    
+    @GetMapping
+    public ResponseEntity<List<PurchaseOrderView>> getPurchaseOrders(@RequestParam(required = false) PurchaseOrderStatus status) {
+        List<PurchaseOrderView> orders = purchaseOrderService.getPurchaseOrders(status);
+        return ResponseEntity.ok(orders);
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getPurchaseOrder(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(purchaseOrderService.getPurchaseOrder(id));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @PostMapping("/{id}/submit")
+    public ResponseEntity<?> submit(@PathVariable Long id) {
+        try {
+            PurchaseOrderView order = purchaseOrderService.submit(id);
+            return ResponseEntity.ok(order);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable Long id) {
+        try {
+            PurchaseOrderView order = purchaseOrderService.cancel(id);
+            return ResponseEntity.ok(order);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/{id}/receive")
+    public ResponseEntity<?> receive(@PathVariable Long id, @RequestParam(required = false) String username) {
+        try {
+            PurchaseOrderView order = purchaseOrderService.receive(id, username);
+            return ResponseEntity.ok(order);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/replenish")
+    public ResponseEntity<ReplenishmentRun> replenishNow() {
+        ReplenishmentRun run = purchaseOrderService.replenishNow();
+        return ResponseEntity.ok(run);
+    }
+    
+    
+    public static class ErrorResponse {
+        private String message;
+        
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
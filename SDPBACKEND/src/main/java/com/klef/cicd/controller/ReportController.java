@@ -0,0 +1,71 @@
+package com.klef.cicd.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.klef.cicd.dto.InventoryRollupView;
+import com.klef.cicd.dto.RollupRun;
+import com.klef.cicd.service.InventoryRollupService;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin(origins = "*")
+public class ReportController {
+    
+    @Autowired
+    private InventoryRollupService inventoryRollupService;
+    
+    // Daily totals for charts; defaults to the last 30 days
+    @GetMapping("/inventory-rollups")
+    public ResponseEntity<?> getInventoryRollups(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                 @RequestParam(required = false) String category,
+                                                 @RequestParam(defaultValue = "false") boolean byCategory) {
+        try {
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(30);
+            List<InventoryRollupView> rollups = inventoryRollupService.getRollups(start, end, category, byCategory);
+            return ResponseEntity.ok(rollups);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    // Rolls up the given day (default today) now instead of waiting for the nightly run
+    @PostMapping("/inventory-rollups/run")
+    public ResponseEntity<?> runRollup(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            RollupRun run = inventoryRollupService.rollup(date != null ? date : LocalDate.now());
+            return ResponseEntity.ok(run);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    
+    public static class ErrorResponse {
+        private String message;
+        
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.klef.cicd.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.klef.cicd.dto.ReservationRequest;
+import com.klef.cicd.dto.ReservationView;
+import com.klef.cicd.service.ReservationService;
+
+@RestController
+@RequestMapping("/api/reservations")
+@CrossOrigin(origins = "*")
+public class ReservationController {
+    
+    @Autowired
+    private ReservationService reservationService;
+    
+    @PostMapping
+    public ResponseEntity<?> reserve(@RequestBody ReservationRequest request, @RequestParam(required = false) String username) {
+        try {
+            if (request.getProductId() == null || request.getQuantity() == null) {
+                throw new RuntimeException("productId and quantity are required");
+            }
+            ReservationView reservation = reservationService.reserve(request.getProductId(), request.getQuantity(),
+                    request.getTtlSeconds(), request.getReference(), username);
+            return ResponseEntity.ok(reservation);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getReservation(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(reservationService.getReservation(id));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping
+    public ResponseEntity<List<ReservationView>> getActiveReservations(@RequestParam Long productId) {
+        List<ReservationView> reservations = reservationService.getActiveReservations(productId);
+        return ResponseEntity.ok(reservations);
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> release(@PathVariable String id) {
+        try {
+            ReservationView reservation = reservationService.release(id);
+            return ResponseEntity.ok(reservation);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/{id}/consume")
+    public ResponseEntity<?> consume(@PathVariable String id, @RequestParam(required = false) String username) {
+        try {
+            ReservationView reservation = reservationService.consume(id, username);
+            return ResponseEntity.ok(reservation);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    
+    public static class ErrorResponse {
+        private String message;
+        
+        public ErrorResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -16,7 +16,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.klef.cicd.dto.ProductSupplierView;
+import com.klef.cicd.dto.SupplierSearchResult;
+import com.klef.cicd.dto.SupplierView;
 import com.klef.cicd.model.Supplier;
+import com.klef.cicd.service.ProductSupplierService;
 import com.klef.cicd.service.SupplierService;
 
 @RestController
@@ -27,15 +31,34 @@ public class SupplierController {
     @Autowired
     private SupplierService supplierService;
     
+    @Autowired
+    private ProductSupplierService productSupplierService;
+    
     @GetMapping
-    public ResponseEntity<List<Supplier>> getAllSuppliers() {
-        List<Supplier> suppliers = supplierService.getAllSuppliers();
-        return ResponseEntity.ok(suppliers);
+    public ResponseEntity<?> getAllSuppliers(@RequestParam(required = false) String fields) {
+        try {
+            if (fields != null) {
+                return ResponseEntity.ok(supplierService.getAllSuppliers(fields));
+            }
+            List<SupplierView> suppliers = supplierService.getAllSuppliers();
+            return ResponseEntity.ok(suppliers);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getSuppliersByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(supplierService.getSuppliersByIds(ids));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<?> getSupplierById(@PathVariable Long id) {
-        Optional<Supplier> supplier = supplierService.getSupplierById(id);
+        Optional<SupplierView> supplier = supplierService.getSupplierById(id);
         if (supplier.isPresent()) {
             return ResponseEntity.ok(supplier.get());
         } else {
@@ -44,9 +67,10 @@ public class SupplierController {
     }
     
     @PostMapping
-    public ResponseEntity<?> createSupplier(@RequestBody Supplier supplier) {
+    public ResponseEntity<?> createSupplier(@RequestBody Supplier supplier,
+                                            @RequestParam(required = false) String username) {
         try {
-            Supplier createdSupplier = supplierService.createSupplier(supplier);
+            SupplierView createdSupplier = supplierService.createSupplier(supplier, username);
             return ResponseEntity.ok(createdSupplier);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -54,9 +78,10 @@ public class SupplierController {
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateSupplier(@PathVariable Long id, @RequestBody Supplier supplier) {
+    public ResponseEntity<?> updateSupplier(@PathVariable Long id, @RequestBody Supplier supplier,
+                                            @RequestParam(required = false) String username) {
         try {
-            Supplier updatedSupplier = supplierService.updateSupplier(id, supplier);
+            SupplierView updatedSupplier = supplierService.updateSupplier(id, supplier, username);
             return ResponseEntity.ok(updatedSupplier);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -64,9 +89,9 @@ public class SupplierController {
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteSupplier(@PathVariable Long id) {
+    public ResponseEntity<?> deleteSupplier(@PathVariable Long id, @RequestParam(required = false) String username) {
         try {
-            supplierService.deleteSupplier(id);
+            supplierService.deleteSupplier(id, username);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -74,11 +99,25 @@ public class SupplierController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<Supplier>> searchSuppliers(@RequestParam String name) {
-        List<Supplier> suppliers = supplierService.searchSuppliers(name);
+    public ResponseEntity<List<SupplierView>> searchSuppliers(@RequestParam String name) {
+        List<SupplierView> suppliers = supplierService.searchSuppliers(name);
         return ResponseEntity.ok(suppliers);
     }
     
+    @GetMapping(value = "/search", params = "q")
+    public ResponseEntity<SupplierSearchResult> searchAllFields(@RequestParam String q,
+                                                                @RequestParam(defaultValue = "0") int page,
+                                                                @RequestParam(defaultValue = "20") int size) {
+        SupplierSearchResult result = supplierService.searchAllFields(q, page, size);
+        return ResponseEntity.ok(result);
+    }
+    
+    @GetMapping("/{id}/products")
+    public ResponseEntity<List<ProductSupplierView>> getSupplierProducts(@PathVariable Long id) {
+        List<ProductSupplierView> products = productSupplierService.getProductsForSupplier(id);
+        return ResponseEntity.ok(products);
+    }
+    
     
     public static class ErrorResponse {
         private String message;
@@ -16,8 +16,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.klef.cicd.dto.TaskView;
+import com.klef.cicd.dto.UserSummary;
 import com.klef.cicd.model.Task;
-import com.klef.cicd.model.User;
 import com.klef.cicd.service.TaskService;
 
 @RestController
@@ -33,7 +34,7 @@ public class TaskController {
                                        @RequestParam String createdBy, 
                                        @RequestParam String assignedTo) {
         try {
-            Task createdTask = taskService.createTask(task, createdBy, assignedTo);
+            TaskView createdTask = taskService.createTask(task, createdBy, assignedTo);
             return ResponseEntity.ok(createdTask);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -42,9 +43,12 @@ public class TaskController {
 
    
     @GetMapping
-    public ResponseEntity<?> getAllTasks() {
+    public ResponseEntity<?> getAllTasks(@RequestParam(required = false) String fields) {
         try {
-            List<Task> tasks = taskService.getAllTasks();
+            if (fields != null) {
+                return ResponseEntity.ok(taskService.getAllTasks(fields));
+            }
+            List<TaskView> tasks = taskService.getAllTasks();
             return ResponseEntity.ok(tasks);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -55,7 +59,7 @@ public class TaskController {
     @GetMapping("/assigned/{username}")
     public ResponseEntity<?> getTasksByAssignedUser(@PathVariable String username) {
         try {
-            List<Task> tasks = taskService.getTasksByAssignedUser(username);
+            List<TaskView> tasks = taskService.getTasksByAssignedUser(username);
             return ResponseEntity.ok(tasks);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -66,7 +70,7 @@ public class TaskController {
     @GetMapping("/created/{username}")
     public ResponseEntity<?> getTasksByCreatedUser(@PathVariable String username) {
         try {
-            List<Task> tasks = taskService.getTasksByCreatedUser(username);
+            List<TaskView> tasks = taskService.getTasksByCreatedUser(username);
             return ResponseEntity.ok(tasks);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -74,10 +78,20 @@ public class TaskController {
     }
 
     
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getTasksByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(taskService.getTasksByIds(ids));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    
     @GetMapping("/{id}")
     public ResponseEntity<?> getTaskById(@PathVariable Long id) {
         try {
-            Optional<Task> task = taskService.getTaskById(id);
+            Optional<TaskView> task = taskService.getTaskById(id);
             if (task.isPresent()) {
                 return ResponseEntity.ok(task.get());
             } else {
@@ -94,7 +108,7 @@ public class TaskController {
                                        @RequestBody Task taskDetails,
                                        @RequestParam String username) {
         try {
-            Task updatedTask = taskService.updateTask(id, taskDetails, username);
+            TaskView updatedTask = taskService.updateTask(id, taskDetails, username);
             return ResponseEntity.ok(updatedTask);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -116,7 +130,7 @@ public class TaskController {
     @GetMapping("/overdue/{username}")
     public ResponseEntity<?> getOverdueTasks(@PathVariable String username) {
         try {
-            List<Task> tasks = taskService.getOverdueTasks(username);
+            List<TaskView> tasks = taskService.getOverdueTasks(username);
             return ResponseEntity.ok(tasks);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -138,7 +152,7 @@ public class TaskController {
     @GetMapping("/staff")
     public ResponseEntity<?> getStaffMembers() {
         try {
-            List<User> staff = taskService.getStaffMembers();
+            List<UserSummary> staff = taskService.getStaffMembers();
             return ResponseEntity.ok(staff);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -12,9 +12,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.klef.cicd.dto.RegisterRequest;
+import com.klef.cicd.dto.UserDeletionView;
 import com.klef.cicd.dto.UserResponse;
 import com.klef.cicd.service.UserService;
 
@@ -27,15 +29,23 @@ public class UserController {
     private UserService userService;
     
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String fields) {
+        try {
+            if (fields != null) {
+                return ResponseEntity.ok(userService.getAllUsers(fields));
+            }
+            List<UserResponse> users = userService.getAllUsers();
+            return ResponseEntity.ok(users);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
     }
     
     @PostMapping
-    public ResponseEntity<?> createUser(@RequestBody RegisterRequest registerRequest) {
+    public ResponseEntity<?> createUser(@RequestBody RegisterRequest registerRequest,
+                                        @RequestParam(required = false) String username) {
         try {
-            UserResponse user = userService.createUser(registerRequest);
+            UserResponse user = userService.createUser(registerRequest, username);
             return ResponseEntity.ok(user);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -43,9 +53,10 @@ public class UserController {
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody RegisterRequest registerRequest) {
+    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody RegisterRequest registerRequest,
+                                        @RequestParam(required = false) String username) {
         try {
-            UserResponse user = userService.updateUser(id, registerRequest);
+            UserResponse user = userService.updateUser(id, registerRequest, username);
             return ResponseEntity.ok(user);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
@@ -53,10 +64,26 @@ public class UserController {
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<?> deleteUser(@PathVariable Long id,
+                                        @RequestParam(required = false) String reassignTo,
+                                        @RequestParam(required = false) String username) {
+        try {
+            UserDeletionView deletion = userService.deleteUser(id, reassignTo, username);
+            // Still running: poll GET /api/users/deletions/{id} for progress
+            if (deletion.status() == UserDeletionView.Status.RUNNING) {
+                return ResponseEntity.accepted().body(deletion);
+            }
+            return ResponseEntity.ok(deletion);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/deletions/{jobId}")
+    public ResponseEntity<?> getDeletion(@PathVariable String jobId) {
         try {
-            userService.deleteUser(id);
-            return ResponseEntity.ok().build();
+            UserDeletionView deletion = userService.getDeletion(jobId);
+            return ResponseEntity.ok(deletion);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
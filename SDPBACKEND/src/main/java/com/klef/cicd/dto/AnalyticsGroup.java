@@ -0,0 +1,16 @@
+package com.klef.cicd.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Aggregates for one group of products; value is stock x price
+public record AnalyticsGroup(
+        String key,
+        long products,
+        long units,
+        BigDecimal value,
+        double averageStock,
+        BigDecimal averagePrice,
+        long lowStock,
+        double lowStockRatio,
+        Map<String, Integer> stockPercentiles) {}
@@ -0,0 +1,9 @@
+package com.klef.cicd.dto;
+
+import java.util.List;
+
+// Groups ordered by value, largest first
+public record AnalyticsResult(
+        int snapshotProducts,
+        int matched,
+        List<AnalyticsGroup> groups) {}
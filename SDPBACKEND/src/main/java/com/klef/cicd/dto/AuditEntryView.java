@@ -0,0 +1,14 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+import com.klef.cicd.model.AuditAction;
+
+public record AuditEntryView(
+        Long id,
+        AuditAction action,
+        String entityType,
+        Long entityId,
+        String username,
+        String detail,
+        LocalDateTime createdAt) {}
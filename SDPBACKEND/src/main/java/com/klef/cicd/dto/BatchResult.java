@@ -0,0 +1,6 @@
+package com.klef.cicd.dto;
+
+import java.util.List;
+
+// Items in the order their ids were requested; ids with no record are listed in missing
+public record BatchResult<T>(List<T> items, List<Long> missing) {}
@@ -0,0 +1,17 @@
+package com.klef.cicd.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.klef.cicd.service.TaskService;
+
+// Everything the dashboard page needs; a part that failed or missed the deadline is null and listed in unavailable.
+// A part answered from an earlier result while the database was slow or down is listed in stale, with its age in seconds
+public record DashboardBootstrap(
+        DashboardStats stats,
+        List<ProductView> lowStockProducts,
+        TaskService.TaskStats taskStats,
+        UserResponse user,
+        Map<String, String> unavailable,
+        Map<String, Long> stale,
+        long elapsedMs) {}
@@ -0,0 +1,14 @@
+package com.klef.cicd.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Approximate distribution of one metric; each percentile is within relativeAccuracy of the exact value
+public record DistributionView(
+        String metric,
+        String category,
+        long products,
+        long withoutValue,
+        double relativeAccuracy,
+        Map<String, Double> percentiles,
+        List<HistogramBin> histogram) {}
@@ -0,0 +1,8 @@
+package com.klef.cicd.dto;
+
+// Outcome of one forecasting pass over all products
+public record ForecastRun(
+        int products,
+        int withDemand,
+        int lookbackDays,
+        long elapsedMs) {}
@@ -0,0 +1,7 @@
+package com.klef.cicd.dto;
+
+// Values in (lower, upper]; the zero bin has lower = upper = 0
+public record HistogramBin(
+        double lower,
+        double upper,
+        long count) {}
@@ -0,0 +1,18 @@
+package com.klef.cicd.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One day of inventory totals; category is null when the row sums all categories
+public record InventoryRollupView(
+        LocalDate date,
+        String category,
+        BigDecimal totalValue,
+        Long units,
+        Long skuCount,
+        Long lowStockCount) {
+
+    public InventoryRollupView(LocalDate date, BigDecimal totalValue, Long units, Long skuCount, Long lowStockCount) {
+        this(date, null, totalValue, units, skuCount, lowStockCount);
+    }
+}
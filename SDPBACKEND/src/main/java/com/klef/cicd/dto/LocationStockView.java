@@ -0,0 +1,13 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+public record LocationStockView(
+        Long productId,
+        String productName,
+        String category,
+        Long locationId,
+        String locationCode,
+        Integer stock,
+        Integer lowStockThreshold,
+        LocalDateTime updatedAt) {}
@@ -0,0 +1,16 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+// Suggested reorder point next to the threshold currently configured on the product
+public record ProductForecastView(
+        Long productId,
+        String productName,
+        Integer stock,
+        Integer lowStockThreshold,
+        Float dailyVelocity,
+        Float demandStdDev,
+        Integer leadTimeDays,
+        Integer suggestedReorderPoint,
+        Integer suggestedReorderQuantity,
+        LocalDateTime computedAt) {}
@@ -0,0 +1,56 @@
+package com.klef.cicd.dto;
+
+import java.math.BigDecimal;
+
+public class ProductSupplierRequest {
+    
+    private Long supplierId;
+    private Boolean preferred;
+    private BigDecimal unitCost;
+    private Integer leadTimeDays;
+    private Integer minOrderQuantity;
+    
+    // Constructors
+    public ProductSupplierRequest() {}
+    
+    // Getters and Setters
+    public Long getSupplierId() {
+        return supplierId;
+    }
+    
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+    
+    public Boolean getPreferred() {
+        return preferred;
+    }
+    
+    public void setPreferred(Boolean preferred) {
+        this.preferred = preferred;
+    }
+    
+    public BigDecimal getUnitCost() {
+        return unitCost;
+    }
+    
+    public void setUnitCost(BigDecimal unitCost) {
+        this.unitCost = unitCost;
+    }
+    
+    public Integer getLeadTimeDays() {
+        return leadTimeDays;
+    }
+    
+    public void setLeadTimeDays(Integer leadTimeDays) {
+        this.leadTimeDays = leadTimeDays;
+    }
+    
+    public Integer getMinOrderQuantity() {
+        return minOrderQuantity;
+    }
+    
+    public void setMinOrderQuantity(Integer minOrderQuantity) {
+        this.minOrderQuantity = minOrderQuantity;
+    }
+}
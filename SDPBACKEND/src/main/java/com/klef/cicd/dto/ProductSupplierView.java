@@ -0,0 +1,13 @@
+package com.klef.cicd.dto;
+
+import java.math.BigDecimal;
+
+public record ProductSupplierView(
+        Long productId,
+        String productName,
+        Long supplierId,
+        String supplierName,
+        boolean preferred,
+        BigDecimal unitCost,
+        Integer leadTimeDays,
+        Integer minOrderQuantity) {}
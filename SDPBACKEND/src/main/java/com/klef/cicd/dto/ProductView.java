@@ -0,0 +1,33 @@
+package com.klef.cicd.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.klef.cicd.model.Product;
+
+public record ProductView(
+        Long id,
+        String name,
+        String category,
+        Integer stock,
+        BigDecimal price,
+        Integer lowStockThreshold,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public static ProductView from(Product product) {
+        return new ProductView(
+                product.getId(),
+                product.getName(),
+                product.getCategory(),
+                product.getStock(),
+                product.getPrice(),
+                product.getLowStockThreshold(),
+                product.getCreatedAt(),
+                product.getUpdatedAt());
+    }
+
+    public ProductView withStock(Integer newStock) {
+        return new ProductView(id, name, category, newStock, price, lowStockThreshold, createdAt, updatedAt);
+    }
+}
@@ -0,0 +1,10 @@
+package com.klef.cicd.dto;
+
+import java.math.BigDecimal;
+
+public record PurchaseOrderLineView(
+        Long purchaseOrderId,
+        Long productId,
+        String productName,
+        Integer quantity,
+        BigDecimal unitCost) {}
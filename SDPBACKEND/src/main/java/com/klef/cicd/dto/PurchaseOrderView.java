@@ -0,0 +1,26 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.klef.cicd.model.PurchaseOrderStatus;
+
+public record PurchaseOrderView(
+        Long id,
+        Long supplierId,
+        String supplierName,
+        PurchaseOrderStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        List<PurchaseOrderLineView> lines) {
+
+    // Header-only form used by JPQL constructor expressions; lines are loaded in one extra query
+    public PurchaseOrderView(Long id, Long supplierId, String supplierName, PurchaseOrderStatus status,
+                             LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, supplierId, supplierName, status, createdAt, updatedAt, List.of());
+    }
+
+    public PurchaseOrderView withLines(List<PurchaseOrderLineView> orderLines) {
+        return new PurchaseOrderView(id, supplierId, supplierName, status, createdAt, updatedAt, orderLines);
+    }
+}
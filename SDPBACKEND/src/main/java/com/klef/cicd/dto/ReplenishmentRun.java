@@ -0,0 +1,12 @@
+package com.klef.cicd.dto;
+
+import java.util.List;
+
+// Outcome of one replenishment pass over the products whose stock changed
+public record ReplenishmentRun(
+        int evaluated,
+        int belowThreshold,
+        int alreadyOnOrder,
+        int withoutSupplier,
+        int linesAdded,
+        List<Long> purchaseOrderIds) {}
@@ -0,0 +1,52 @@
+package com.klef.cicd.dto;
+
+public class ReservationRequest {
+    
+    private Long productId;
+    private Integer quantity;
+    private Long ttlSeconds;
+    private String reference;
+    
+    // Constructors
+    public ReservationRequest() {}
+    
+    public ReservationRequest(Long productId, Integer quantity, Long ttlSeconds, String reference) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.ttlSeconds = ttlSeconds;
+        this.reference = reference;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+    
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+    
+    public String getReference() {
+        return reference;
+    }
+    
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+}
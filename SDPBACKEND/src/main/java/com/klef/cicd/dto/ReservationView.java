@@ -0,0 +1,16 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+import com.klef.cicd.model.ReservationStatus;
+
+public record ReservationView(
+        String id,
+        Long productId,
+        Integer quantity,
+        String reference,
+        String username,
+        ReservationStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime expiresAt,
+        LocalDateTime closedAt) {}
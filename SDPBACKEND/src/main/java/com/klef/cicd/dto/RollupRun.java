@@ -0,0 +1,11 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDate;
+
+// Outcome of one rollup; full is true only for the first run, which has no previous day to build on
+public record RollupRun(
+        LocalDate date,
+        boolean full,
+        int productsChanged,
+        int categories,
+        long elapsedMs) {}
@@ -0,0 +1,22 @@
+package com.klef.cicd.dto;
+
+public class StockAdjustmentRequest {
+    
+    private Integer delta;
+    
+    // Constructors
+    public StockAdjustmentRequest() {}
+    
+    public StockAdjustmentRequest(Integer delta) {
+        this.delta = delta;
+    }
+    
+    // Getters and Setters
+    public Integer getDelta() {
+        return delta;
+    }
+    
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
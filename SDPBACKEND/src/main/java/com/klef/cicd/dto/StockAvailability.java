@@ -0,0 +1,4 @@
+package com.klef.cicd.dto;
+
+// Available-to-promise: stock minus active holds
+public record StockAvailability(Long productId, int stock, int reserved, int available) {}
@@ -0,0 +1,5 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+public record StockLevelAt(Long productId, LocalDateTime at, long stock) {}
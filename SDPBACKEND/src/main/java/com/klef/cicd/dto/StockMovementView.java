@@ -0,0 +1,14 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+import com.klef.cicd.model.StockMovementReason;
+
+public record StockMovementView(
+        Long id,
+        Long productId,
+        Integer delta,
+        Integer stockAfter,
+        StockMovementReason reason,
+        String username,
+        LocalDateTime createdAt) {}
@@ -0,0 +1,52 @@
+package com.klef.cicd.dto;
+
+public class StockTransferRequest {
+    
+    private Long productId;
+    private Long fromLocationId;
+    private Long toLocationId;
+    private Integer quantity;
+    
+    // Constructors
+    public StockTransferRequest() {}
+    
+    public StockTransferRequest(Long productId, Long fromLocationId, Long toLocationId, Integer quantity) {
+        this.productId = productId;
+        this.fromLocationId = fromLocationId;
+        this.toLocationId = toLocationId;
+        this.quantity = quantity;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Long getFromLocationId() {
+        return fromLocationId;
+    }
+    
+    public void setFromLocationId(Long fromLocationId) {
+        this.fromLocationId = fromLocationId;
+    }
+    
+    public Long getToLocationId() {
+        return toLocationId;
+    }
+    
+    public void setToLocationId(Long toLocationId) {
+        this.toLocationId = toLocationId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
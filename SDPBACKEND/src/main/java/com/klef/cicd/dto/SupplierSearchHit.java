@@ -0,0 +1,9 @@
+package com.klef.cicd.dto;
+
+import java.util.List;
+
+public record SupplierSearchHit(SupplierView supplier, int score, List<Highlight> highlights) {
+
+    // Character range [start, end) of a match inside one supplier field
+    public record Highlight(String field, int start, int end) {}
+}
@@ -0,0 +1,5 @@
+package com.klef.cicd.dto;
+
+import java.util.List;
+
+public record SupplierSearchResult(String query, int page, int size, int total, List<SupplierSearchHit> hits) {}
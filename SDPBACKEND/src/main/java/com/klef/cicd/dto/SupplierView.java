@@ -0,0 +1,26 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+import com.klef.cicd.model.Supplier;
+
+public record SupplierView(
+        Long id,
+        String name,
+        String contact,
+        String email,
+        String phone,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public static SupplierView from(Supplier supplier) {
+        return new SupplierView(
+                supplier.getId(),
+                supplier.getName(),
+                supplier.getContact(),
+                supplier.getEmail(),
+                supplier.getPhone(),
+                supplier.getCreatedAt(),
+                supplier.getUpdatedAt());
+    }
+}
@@ -0,0 +1,47 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+import com.klef.cicd.model.Task;
+import com.klef.cicd.model.TaskPriority;
+import com.klef.cicd.model.TaskStatus;
+import com.klef.cicd.model.User;
+
+public record TaskView(
+        Long id,
+        String title,
+        String description,
+        TaskStatus status,
+        TaskPriority priority,
+        LocalDateTime dueDate,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        LocalDateTime completedAt,
+        UserSummary assignedTo,
+        UserSummary createdBy) {
+
+    // Flat form used by JPQL constructor expressions, which cannot nest
+    public TaskView(Long id, String title, String description, TaskStatus status, TaskPriority priority,
+                    LocalDateTime dueDate, LocalDateTime createdAt, LocalDateTime updatedAt, LocalDateTime completedAt,
+                    Long assignedToId, String assignedToUsername, String assignedToEmail, User.Role assignedToRole,
+                    Long createdById, String createdByUsername, String createdByEmail, User.Role createdByRole) {
+        this(id, title, description, status, priority, dueDate, createdAt, updatedAt, completedAt,
+                new UserSummary(assignedToId, assignedToUsername, assignedToEmail, assignedToRole),
+                new UserSummary(createdById, createdByUsername, createdByEmail, createdByRole));
+    }
+
+    public static TaskView from(Task task) {
+        return new TaskView(
+                task.getId(),
+                task.getTitle(),
+                task.getDescription(),
+                task.getStatus(),
+                task.getPriority(),
+                task.getDueDate(),
+                task.getCreatedAt(),
+                task.getUpdatedAt(),
+                task.getCompletedAt(),
+                UserSummary.from(task.getAssignedTo()),
+                UserSummary.from(task.getCreatedBy()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.klef.cicd.dto;
+
+import java.time.LocalDateTime;
+
+// Progress of one user deletion; totals are counted when it starts, done counts grow one chunk at a time
+public record UserDeletionView(
+        String id,
+        Long userId,
+        String username,
+        String reassignTo,
+        Status status,
+        long productsTotal,
+        long productsDone,
+        long assignedTasksTotal,
+        long assignedTasksDone,
+        long createdTasksTotal,
+        long createdTasksDone,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String error) {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,10 @@
+package com.klef.cicd.dto;
+
+import com.klef.cicd.model.User;
+
+public record UserSummary(Long id, String username, String email, User.Role role) {
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.getRole());
+    }
+}
@@ -0,0 +1,4 @@
+package com.klef.cicd.event;
+
+// Published after a forecast run has rewritten product_forecasts
+public record ForecastsUpdatedEvent(int products) {}
@@ -0,0 +1,6 @@
+package com.klef.cicd.event;
+
+import java.util.Collection;
+
+// Published whenever products may have changed (stock, threshold, price, or deletion); listeners re-read what they cache
+public record StockChangedEvent(Collection<Long> productIds) {}
@@ -0,0 +1,7 @@
+package com.klef.cicd.model;
+
+public enum AuditAction {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,76 @@
+package com.klef.cicd.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Append-only: rows are batch-inserted by AuditService's writer thread; the entity only defines the table
+@Entity
+@Table(name = "audit_log", indexes = {
+        @Index(name = "idx_audit_log_entity", columnList = "entity_type, entity_id, id"),
+        @Index(name = "idx_audit_log_username", columnList = "username, id"),
+        @Index(name = "idx_audit_log_action", columnList = "action, id"),
+        @Index(name = "idx_audit_log_created", columnList = "created_at")
+})
+public class AuditEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AuditAction action;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "username")
+    private String username;
+
+    @Column(length = 500)
+    private String detail;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public AuditAction getAction() {
+        return action;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
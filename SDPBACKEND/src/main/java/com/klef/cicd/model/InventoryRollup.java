@@ -0,0 +1,114 @@
+package com.klef.cicd.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// Inventory totals of one category at the end of one day; written by InventoryRollupService
+@Entity
+@Table(name = "inventory_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inventory_rollups_date_category", columnNames = {"rollup_date", "category"}))
+public class InventoryRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(nullable = false)
+    private String category;
+
+    // Sum of stock x price
+    @Column(name = "total_value", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalValue;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Column(name = "sku_count", nullable = false)
+    private Long skuCount;
+
+    @Column(name = "low_stock_count", nullable = false)
+    private Long lowStockCount;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Constructors
+    public InventoryRollup() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public void setTotalValue(BigDecimal totalValue) {
+        this.totalValue = totalValue;
+    }
+
+    public Long getUnits() {
+        return units;
+    }
+
+    public void setUnits(Long units) {
+        this.units = units;
+    }
+
+    public Long getSkuCount() {
+        return skuCount;
+    }
+
+    public void setSkuCount(Long skuCount) {
+        this.skuCount = skuCount;
+    }
+
+    public Long getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public void setLowStockCount(Long lowStockCount) {
+        this.lowStockCount = lowStockCount;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
@@ -0,0 +1,76 @@
+package com.klef.cicd.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Where the latest rollup stopped reading; a single row with id 1, updated in the rollup transaction
+@Entity
+@Table(name = "inventory_rollup_checkpoint")
+public class InventoryRollupCheckpoint {
+
+    @Id
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Highest stock movement id seen by the latest run
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    // Highest id seen by the run before it; the next run reads deletions from here
+    @Column(name = "previous_movement_id", nullable = false)
+    private Long previousMovementId;
+
+    // Constructors
+    public InventoryRollupCheckpoint() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+
+    public Long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    public void setLastMovementId(Long lastMovementId) {
+        this.lastMovementId = lastMovementId;
+    }
+
+    public Long getPreviousMovementId() {
+        return previousMovementId;
+    }
+
+    public void setPreviousMovementId(Long previousMovementId) {
+        this.previousMovementId = previousMovementId;
+    }
+}
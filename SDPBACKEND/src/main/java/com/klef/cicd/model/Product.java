@@ -5,7 +5,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Lets the daily rollup find the products changed since its last run
+        @Index(name = "idx_products_updated_at", columnList = "updated_at"),
+        // Low-stock and nearly-low-stock range scans
+        @Index(name = "idx_products_stock_headroom", columnList = "stock_headroom")
+})
 public class Product {
     
     @Id
@@ -27,6 +32,10 @@ public class Product {
     @Column(nullable = false)
     private Integer lowStockThreshold;
     
+    // stock - lowStockThreshold, generated by the database (V3 migration); only for queries, stale on a loaded entity
+    @Column(name = "stock_headroom", insertable = false, updatable = false)
+    private Integer stockHeadroom;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
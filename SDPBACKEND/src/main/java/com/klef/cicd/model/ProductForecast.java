@@ -0,0 +1,97 @@
+package com.klef.cicd.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Latest demand forecast per product; rewritten in batches by ForecastService
+@Entity
+@Table(name = "product_forecasts")
+public class ProductForecast {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    // Average units consumed per day over the lookback window
+    @Column(name = "daily_velocity", nullable = false)
+    private Float dailyVelocity;
+
+    @Column(name = "demand_std_dev", nullable = false)
+    private Float demandStdDev;
+
+    @Column(name = "lead_time_days", nullable = false)
+    private Integer leadTimeDays;
+
+    @Column(name = "reorder_point", nullable = false)
+    private Integer reorderPoint;
+
+    @Column(name = "reorder_quantity", nullable = false)
+    private Integer reorderQuantity;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Constructors
+    public ProductForecast() {}
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Float getDailyVelocity() {
+        return dailyVelocity;
+    }
+
+    public void setDailyVelocity(Float dailyVelocity) {
+        this.dailyVelocity = dailyVelocity;
+    }
+
+    public Float getDemandStdDev() {
+        return demandStdDev;
+    }
+
+    public void setDemandStdDev(Float demandStdDev) {
+        this.demandStdDev = demandStdDev;
+    }
+
+    public Integer getLeadTimeDays() {
+        return leadTimeDays;
+    }
+
+    public void setLeadTimeDays(Integer leadTimeDays) {
+        this.leadTimeDays = leadTimeDays;
+    }
+
+    public Integer getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public void setReorderPoint(Integer reorderPoint) {
+        this.reorderPoint = reorderPoint;
+    }
+
+    public Integer getReorderQuantity() {
+        return reorderQuantity;
+    }
+
+    public void setReorderQuantity(Integer reorderQuantity) {
+        this.reorderQuantity = reorderQuantity;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.klef.cicd.model;
+
+public enum PurchaseOrderStatus {
+    DRAFT,
+    SUBMITTED,
+    RECEIVED,
+    CANCELLED
+}
@@ -0,0 +1,133 @@
+package com.klef.cicd.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Append-only: rows are inserted by StockLedgerService and never updated
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_product_id", columnList = "product_id, id"),
+        @Index(name = "idx_stock_movements_product_created", columnList = "product_id, created_at")
+})
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain id rather than a relation so appends never load the product
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(name = "stock_after", nullable = false)
+    private Integer stockAfter;
+    
+    // Units taken out; more than -delta when receipts were netted into the same movement
+    @Column(nullable = false)
+    private Integer outflow;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockMovementReason reason;
+
+    @Column(name = "username")
+    private String username;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public StockMovement() {}
+
+    public StockMovement(Long productId, Integer delta, Integer stockAfter, StockMovementReason reason, String username) {
+        this(productId, delta, stockAfter, reason, username, Math.max(0, -delta));
+    }
+    
+    public StockMovement(Long productId, Integer delta, Integer stockAfter, StockMovementReason reason, String username,
+                         Integer outflow) {
+        this.productId = productId;
+        this.delta = delta;
+        this.stockAfter = stockAfter;
+        this.outflow = outflow;
+        this.reason = reason;
+        this.username = username;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Integer getStockAfter() {
+        return stockAfter;
+    }
+
+    public void setStockAfter(Integer stockAfter) {
+        this.stockAfter = stockAfter;
+    }
+
+    public Integer getOutflow() {
+        return outflow;
+    }
+    
+    public void setOutflow(Integer outflow) {
+        this.outflow = outflow;
+    }
+    
+    public StockMovementReason getReason() {
+        return reason;
+    }
+
+    public void setReason(StockMovementReason reason) {
+        this.reason = reason;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,31 @@
+package com.klef.cicd.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.InventoryRollupView;
+import com.klef.cicd.model.InventoryRollup;
+
+@Repository
+public interface InventoryRollupRepository extends JpaRepository<InventoryRollup, Long> {
+    
+    String ROLLUP_VIEW = "SELECT new com.klef.cicd.dto.InventoryRollupView(r.rollupDate, r.category, r.totalValue, "
+            + "r.units, r.skuCount, r.lowStockCount) FROM InventoryRollup r";
+    
+    @Query("SELECT new com.klef.cicd.dto.InventoryRollupView(r.rollupDate, SUM(r.totalValue), SUM(r.units), "
+            + "SUM(r.skuCount), SUM(r.lowStockCount)) FROM InventoryRollup r "
+            + "WHERE r.rollupDate BETWEEN :from AND :to GROUP BY r.rollupDate ORDER BY r.rollupDate")
+    List<InventoryRollupView> findTotals(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Query(ROLLUP_VIEW + " WHERE r.rollupDate BETWEEN :from AND :to ORDER BY r.rollupDate, r.category")
+    List<InventoryRollupView> findByCategories(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Query(ROLLUP_VIEW + " WHERE r.rollupDate BETWEEN :from AND :to AND r.category = :category ORDER BY r.rollupDate")
+    List<InventoryRollupView> findByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("category") String category);
+}
@@ -0,0 +1,16 @@
+package com.klef.cicd.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.model.Location;
+
+@Repository
+public interface LocationRepository extends JpaRepository<Location, Long> {
+    
+    Optional<Location> findByCode(String code);
+    
+    boolean existsByCode(String code);
+}
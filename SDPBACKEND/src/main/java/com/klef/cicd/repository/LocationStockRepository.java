@@ -0,0 +1,34 @@
+package com.klef.cicd.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.LocationStockView;
+import com.klef.cicd.model.LocationStock;
+
+@Repository
+public interface LocationStockRepository extends JpaRepository<LocationStock, Long> {
+    
+    // Location rows joined with their product and location; the threshold falls back to the product's
+    String LOCATION_STOCK_VIEW = "SELECT new com.klef.cicd.dto.LocationStockView(p.id, p.name, p.category, l.id, l.code, "
+            + "ls.stock, COALESCE(ls.lowStockThreshold, p.lowStockThreshold), ls.updatedAt) "
+            + "FROM LocationStock ls JOIN Product p ON p.id = ls.productId JOIN Location l ON l.id = ls.locationId";
+    
+    @Query(LOCATION_STOCK_VIEW + " WHERE ls.locationId = :locationId ORDER BY p.name")
+    List<LocationStockView> findByLocationId(@Param("locationId") Long locationId);
+    
+    @Query(LOCATION_STOCK_VIEW + " WHERE ls.productId = :productId ORDER BY l.code")
+    List<LocationStockView> findByProductId(@Param("productId") Long productId);
+    
+    @Query(LOCATION_STOCK_VIEW + " WHERE ls.productId = :productId AND ls.locationId = :locationId")
+    Optional<LocationStockView> findView(@Param("productId") Long productId, @Param("locationId") Long locationId);
+    
+    @Query(LOCATION_STOCK_VIEW + " WHERE ls.locationId = :locationId "
+            + "AND ls.stock <= COALESCE(ls.lowStockThreshold, p.lowStockThreshold) ORDER BY p.name")
+    List<LocationStockView> findLowStockProducts(@Param("locationId") Long locationId);
+}
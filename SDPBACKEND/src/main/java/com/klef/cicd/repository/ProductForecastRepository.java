@@ -0,0 +1,30 @@
+package com.klef.cicd.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.ProductForecastView;
+import com.klef.cicd.model.ProductForecast;
+
+@Repository
+public interface ProductForecastRepository extends JpaRepository<ProductForecast, Long> {
+    
+    String PRODUCT_FORECAST_VIEW = "SELECT new com.klef.cicd.dto.ProductForecastView(p.id, p.name, p.stock, "
+            + "p.lowStockThreshold, f.dailyVelocity, f.demandStdDev, f.leadTimeDays, f.reorderPoint, "
+            + "f.reorderQuantity, f.computedAt) "
+            + "FROM ProductForecast f JOIN Product p ON p.id = f.productId";
+    
+    @Query(PRODUCT_FORECAST_VIEW + " WHERE f.productId = :productId")
+    Optional<ProductForecastView> findView(@Param("productId") Long productId);
+    
+    // Products whose configured threshold is furthest below what demand suggests
+    @Query(PRODUCT_FORECAST_VIEW + " WHERE f.reorderPoint > p.lowStockThreshold "
+            + "ORDER BY f.reorderPoint - p.lowStockThreshold DESC")
+    List<ProductForecastView> findUnderThreshold(Pageable pageable);
+}
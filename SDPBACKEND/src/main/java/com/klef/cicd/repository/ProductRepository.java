@@ -1,25 +1,62 @@
 package com.klef.cicd.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.klef.cicd.dto.ProductView;
 import com.klef.cicd.model.Product;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
-    List<Product> findByCategory(String category);
+    // Read-model projection: only the columns the UI shows, no User join
+    String PRODUCT_VIEW = "SELECT new com.klef.cicd.dto.ProductView(p.id, p.name, p.category, p.stock, p.price, "
+            + "p.lowStockThreshold, p.createdAt, p.updatedAt) FROM Product p";
     
-    List<Product> findByNameContainingIgnoreCase(String name);
+    @Query(PRODUCT_VIEW)
+    List<ProductView> findAllViews();
     
-    @Query("SELECT p FROM Product p WHERE p.stock <= p.lowStockThreshold")
-    List<Product> findLowStockProducts();
+    @Query(PRODUCT_VIEW + " WHERE p.id = :id")
+    Optional<ProductView> findViewById(@Param("id") Long id);
     
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock <= p.lowStockThreshold")
+    @Query(PRODUCT_VIEW + " WHERE p.id IN :ids")
+    List<ProductView> findViewsByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query(PRODUCT_VIEW + " WHERE p.category = :category")
+    List<ProductView> findByCategory(@Param("category") String category);
+    
+    @Query(PRODUCT_VIEW + " WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    List<ProductView> findByNameContainingIgnoreCase(@Param("name") String name);
+    
+    // stockHeadroom = stock - lowStockThreshold, a generated and indexed column
+    @Query(PRODUCT_VIEW + " WHERE p.stockHeadroom <= 0")
+    List<ProductView> findLowStockProducts();
+    
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stockHeadroom <= 0")
     long countLowStockProducts();
     
-    List<Product> findByUser_Id(Long userId);
+    // Above the threshold by at most :within units, closest to it first
+    @Query(PRODUCT_VIEW + " WHERE p.stockHeadroom > 0 AND p.stockHeadroom <= :within ORDER BY p.stockHeadroom, p.id")
+    List<ProductView> findNearlyLowStockProducts(@Param("within") int within);
+    
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+    
+    // Relative update in one statement; the guard keeps concurrent pickers from driving stock negative
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :delta, p.updatedAt = :now "
+            + "WHERE p.id = :id AND p.stock + :delta >= 0")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+    
+    // Compares the created_by column directly; the derived findByUser_Id joined users and scanned products
+    @Query("SELECT p FROM Product p WHERE p.user.id = :userId")
+    List<Product> findByUser_Id(@Param("userId") Long userId);
 }
@@ -0,0 +1,44 @@
+package com.klef.cicd.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.ProductSupplierView;
+import com.klef.cicd.model.ProductSupplier;
+
+@Repository
+public interface ProductSupplierRepository extends JpaRepository<ProductSupplier, Long> {
+    
+    String PRODUCT_SUPPLIER_VIEW = "SELECT new com.klef.cicd.dto.ProductSupplierView(p.id, p.name, s.id, s.name, "
+            + "ps.preferred, ps.unitCost, ps.leadTimeDays, ps.minOrderQuantity) "
+            + "FROM ProductSupplier ps JOIN Product p ON p.id = ps.productId JOIN Supplier s ON s.id = ps.supplierId";
+    
+    @Query(PRODUCT_SUPPLIER_VIEW + " WHERE ps.productId = :productId ORDER BY ps.preferred DESC, s.name")
+    List<ProductSupplierView> findByProductId(@Param("productId") Long productId);
+    
+    @Query(PRODUCT_SUPPLIER_VIEW + " WHERE ps.supplierId = :supplierId ORDER BY p.name")
+    List<ProductSupplierView> findBySupplierId(@Param("supplierId") Long supplierId);
+    
+    List<ProductSupplier> findByProductIdIn(Collection<Long> productIds);
+    
+    Optional<ProductSupplier> findByProductIdAndSupplierId(Long productId, Long supplierId);
+    
+    @Modifying
+    @Query("UPDATE ProductSupplier ps SET ps.preferred = false WHERE ps.productId = :productId AND ps.supplierId <> :supplierId")
+    int clearPreferred(@Param("productId") Long productId, @Param("supplierId") Long supplierId);
+    
+    @Modifying
+    @Query("DELETE FROM ProductSupplier ps WHERE ps.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+    
+    @Modifying
+    @Query("DELETE FROM ProductSupplier ps WHERE ps.supplierId = :supplierId")
+    int deleteBySupplierId(@Param("supplierId") Long supplierId);
+}
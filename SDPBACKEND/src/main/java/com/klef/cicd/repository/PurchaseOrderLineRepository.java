@@ -0,0 +1,30 @@
+package com.klef.cicd.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.PurchaseOrderLineView;
+import com.klef.cicd.model.PurchaseOrderLine;
+import com.klef.cicd.model.PurchaseOrderStatus;
+
+@Repository
+public interface PurchaseOrderLineRepository extends JpaRepository<PurchaseOrderLine, Long> {
+    
+    @Query("SELECT new com.klef.cicd.dto.PurchaseOrderLineView(l.purchaseOrderId, l.productId, p.name, l.quantity, l.unitCost) "
+            + "FROM PurchaseOrderLine l LEFT JOIN Product p ON p.id = l.productId "
+            + "WHERE l.purchaseOrderId IN :orderIds ORDER BY l.id")
+    List<PurchaseOrderLineView> findViewsByPurchaseOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    List<PurchaseOrderLine> findByPurchaseOrderId(Long purchaseOrderId);
+    
+    // Products that are already on order, so they are not ordered twice
+    @Query("SELECT DISTINCT l.productId FROM PurchaseOrderLine l, PurchaseOrder o "
+            + "WHERE o.id = l.purchaseOrderId AND o.status IN :statuses AND l.productId IN :productIds")
+    List<Long> findProductIdsOnOrders(@Param("productIds") Collection<Long> productIds,
+                                      @Param("statuses") Collection<PurchaseOrderStatus> statuses);
+}
@@ -0,0 +1,31 @@
+package com.klef.cicd.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.PurchaseOrderView;
+import com.klef.cicd.model.PurchaseOrder;
+import com.klef.cicd.model.PurchaseOrderStatus;
+
+@Repository
+public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
+    
+    String PURCHASE_ORDER_VIEW = "SELECT new com.klef.cicd.dto.PurchaseOrderView(o.id, o.supplierId, s.name, o.status, "
+            + "o.createdAt, o.updatedAt) FROM PurchaseOrder o LEFT JOIN Supplier s ON s.id = o.supplierId";
+    
+    @Query(PURCHASE_ORDER_VIEW + " WHERE o.status = :status ORDER BY o.id DESC")
+    List<PurchaseOrderView> findViewsByStatus(@Param("status") PurchaseOrderStatus status);
+    
+    @Query(PURCHASE_ORDER_VIEW + " ORDER BY o.id DESC")
+    List<PurchaseOrderView> findAllViews();
+    
+    @Query(PURCHASE_ORDER_VIEW + " WHERE o.id = :id")
+    Optional<PurchaseOrderView> findViewById(@Param("id") Long id);
+    
+    Optional<PurchaseOrder> findFirstBySupplierIdAndStatus(Long supplierId, PurchaseOrderStatus status);
+}
@@ -0,0 +1,30 @@
+package com.klef.cicd.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.StockMovementView;
+import com.klef.cicd.model.StockMovement;
+import com.klef.cicd.model.StockMovementReason;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    // Most recent movements for a product, newest first
+    @Query("SELECT new com.klef.cicd.dto.StockMovementView(m.id, m.productId, m.delta, m.stockAfter, m.reason, "
+            + "m.username, m.createdAt) FROM StockMovement m WHERE m.productId = :productId ORDER BY m.id DESC")
+    List<StockMovementView> findRecentByProductId(@Param("productId") Long productId, Pageable pageable);
+    
+    // Sum of the movements after a snapshot, up to the requested time
+    @Query("SELECT COALESCE(SUM(m.delta), 0) FROM StockMovement m "
+            + "WHERE m.productId = :productId AND m.id > :afterId AND m.createdAt <= :at")
+    long sumDeltasAfter(@Param("productId") Long productId, @Param("afterId") Long afterId, @Param("at") LocalDateTime at);
+    
+    boolean existsByProductIdAndReasonAndCreatedAtLessThanEqual(Long productId, StockMovementReason reason, LocalDateTime at);
+}
@@ -0,0 +1,29 @@
+package com.klef.cicd.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.klef.cicd.dto.ReservationView;
+import com.klef.cicd.model.ReservationStatus;
+import com.klef.cicd.model.StockReservation;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+    
+    String RESERVATION_VIEW = "SELECT new com.klef.cicd.dto.ReservationView(r.id, r.productId, r.quantity, "
+            + "r.reference, r.username, r.status, r.createdAt, r.expiresAt, r.closedAt) FROM StockReservation r";
+    
+    @Query(RESERVATION_VIEW + " WHERE r.id = :id")
+    Optional<ReservationView> findViewById(@Param("id") String id);
+    
+    @Query(RESERVATION_VIEW + " WHERE r.productId = :productId AND r.status = :status ORDER BY r.expiresAt")
+    List<ReservationView> findByProductIdAndStatus(@Param("productId") Long productId, @Param("status") ReservationStatus status);
+    
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM StockReservation r WHERE r.productId = :productId AND r.status = :status")
+    long sumQuantityByProductIdAndStatus(@Param("productId") Long productId, @Param("status") ReservationStatus status);
+}
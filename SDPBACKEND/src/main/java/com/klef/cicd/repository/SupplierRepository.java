@@ -1,18 +1,44 @@
 package com.klef.cicd.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.klef.cicd.dto.SupplierView;
 import com.klef.cicd.model.Supplier;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     
-    List<Supplier> findByNameContainingIgnoreCase(String name);
+    String SUPPLIER_VIEW = "SELECT new com.klef.cicd.dto.SupplierView(s.id, s.name, s.contact, s.email, s.phone, "
+            + "s.createdAt, s.updatedAt) FROM Supplier s";
+    
+    @Query(SUPPLIER_VIEW)
+    List<SupplierView> findAllViews();
+    
+    @Query(SUPPLIER_VIEW + " WHERE s.id = :id")
+    Optional<SupplierView> findViewById(@Param("id") Long id);
+    
+    @Query(SUPPLIER_VIEW + " WHERE s.id IN :ids")
+    List<SupplierView> findViewsByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query(SUPPLIER_VIEW + " WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    List<SupplierView> findByNameContainingIgnoreCase(@Param("name") String name);
     
     List<Supplier> findByContactContainingIgnoreCase(String contact);
     
     List<Supplier> findByEmailContainingIgnoreCase(String email);
+    
+    // SELECT ... FOR UPDATE: serializes changes to this supplier's purchase orders across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Supplier s WHERE s.id = :id")
+    Optional<Supplier> lockById(@Param("id") Long id);
 }
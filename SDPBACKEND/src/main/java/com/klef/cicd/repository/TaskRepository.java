@@ -1,12 +1,15 @@
 package com.klef.cicd.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.klef.cicd.dto.TaskView;
 import com.klef.cicd.model.Task;
 import com.klef.cicd.model.TaskStatus;
 import com.klef.cicd.model.User;
@@ -14,11 +17,31 @@ import com.klef.cicd.model.User;
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
     
+    // Read-model projection with just the user fields the task board shows
+    String TASK_VIEW = "SELECT new com.klef.cicd.dto.TaskView(t.id, t.title, t.description, t.status, t.priority, "
+            + "t.dueDate, t.createdAt, t.updatedAt, t.completedAt, "
+            + "a.id, a.username, a.email, a.role, c.id, c.username, c.email, c.role) "
+            + "FROM Task t JOIN t.assignedTo a JOIN t.createdBy c";
+    
+    // Find all tasks
+    @Query(TASK_VIEW)
+    List<TaskView> findAllViews();
+    
+    // Find a single task
+    @Query(TASK_VIEW + " WHERE t.id = :id")
+    Optional<TaskView> findViewById(@Param("id") Long id);
+    
+    // Find several tasks in one query
+    @Query(TASK_VIEW + " WHERE t.id IN :ids")
+    List<TaskView> findViewsByIds(@Param("ids") Collection<Long> ids);
+    
     // Find tasks assigned to a specific user
-    List<Task> findByAssignedTo(User assignedTo);
+    @Query(TASK_VIEW + " WHERE a = :assignedTo")
+    List<TaskView> findByAssignedTo(@Param("assignedTo") User assignedTo);
     
     // Find tasks created by a specific user
-    List<Task> findByCreatedBy(User createdBy);
+    @Query(TASK_VIEW + " WHERE c = :createdBy")
+    List<TaskView> findByCreatedBy(@Param("createdBy") User createdBy);
     
     // Find tasks by status
     List<Task> findByStatus(TaskStatus status);
@@ -31,8 +54,12 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findOverdueTasks();
     
     // Find tasks assigned to a user that are overdue
-    @Query("SELECT t FROM Task t WHERE t.assignedTo = :user AND t.dueDate < CURRENT_TIMESTAMP AND t.status != 'COMPLETED'")
-    List<Task> findOverdueTasksByUser(@Param("user") User user);
+    @Query(TASK_VIEW + " WHERE a = :user AND t.dueDate < CURRENT_TIMESTAMP AND t.status != 'COMPLETED'")
+    List<TaskView> findOverdueTasksByUser(@Param("user") User user);
+    
+    // Count overdue tasks for a user
+    @Query("SELECT COUNT(t) FROM Task t WHERE t.assignedTo = :user AND t.dueDate < CURRENT_TIMESTAMP AND t.status != 'COMPLETED'")
+    long countOverdueTasksByUser(@Param("user") User user);
     
     // Count tasks by status for a specific user
     @Query("SELECT COUNT(t) FROM Task t WHERE t.assignedTo = :user AND t.status = :status")
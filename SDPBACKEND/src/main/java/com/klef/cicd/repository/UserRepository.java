@@ -4,8 +4,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.klef.cicd.dto.UserSummary;
 import com.klef.cicd.model.User;
 
 @Repository
@@ -15,11 +18,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByEmail(String email);
     
-    Optional<User> findByUsernameOrEmail(String username, String email);
     
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
     
-    List<User> findByRole(User.Role role);
+    @Query("SELECT new com.klef.cicd.dto.UserSummary(u.id, u.username, u.email, u.role) FROM User u WHERE u.role = :role")
+    List<UserSummary> findByRole(@Param("role") User.Role role);
 }
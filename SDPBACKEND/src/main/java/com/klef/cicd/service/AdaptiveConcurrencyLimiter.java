@@ -0,0 +1,85 @@
+package com.klef.cicd.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows observed latency.
+ *
+ * Two moving averages of request latency are kept: a short one over roughly
+ * the last ten requests and a long-run baseline over roughly six hundred,
+ * which rises ten times slower than it falls.
+ * While the short average stays within {@code tolerance} of the long one
+ * the limit grows by a fifth of its square root per request, but only
+ * when at least half of it is actually in use. Once requests slow down
+ * relative to the long-run norm, the limit is scaled down by the ratio
+ * (never by more than half at a time). Callers beyond the limit are turned
+ * away rather than queued.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double shortLatency;
+    private double longLatency;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Called once for every successful tryAcquire, with how long the request took
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        update(latencyNanos, current);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightAtFinish) {
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+        shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+        // The baseline rises ten times slower than it falls, so a sustained overload cannot become the new normal
+        longLatency += (latencyNanos - longLatency) / (latencyNanos > longLatency ? LONG_WINDOW * 10 : LONG_WINDOW);
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / shortLatency));
+        double target = limit * gradient + Math.sqrt(limit);
+        // Growing a limit nobody is using would only let the next burst through unchecked
+        if (target > limit && inFlightAtFinish < limit / 2) {
+            return;
+        }
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
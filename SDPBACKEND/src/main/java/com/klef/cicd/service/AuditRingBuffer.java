@@ -0,0 +1,135 @@
+package com.klef.cicd.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import com.klef.cicd.model.AuditAction;
+
+/**
+ * Bounded, lock-free queue of audit records for many producers and one
+ * consumer.
+ *
+ * All slots are allocated up front and reused, so publishing a record
+ * allocates nothing. Every slot carries a sequence number: a producer claims
+ * the next position with one CAS, fills the slot and then publishes it by
+ * advancing the slot's sequence; the consumer reads published slots in
+ * order and hands each back by advancing the sequence a full lap. When the
+ * consumer is a whole lap behind, {@link #offer} returns false instead of
+ * waiting; what happens then is up to the caller.
+ */
+public class AuditRingBuffer {
+
+    public static final class Slot {
+        private AuditAction action;
+        private String entityType;
+        private long entityId;
+        private String username;
+        private String detail;
+        private LocalDateTime createdAt;
+
+        public AuditAction getAction() {
+            return action;
+        }
+
+        public String getEntityType() {
+            return entityType;
+        }
+
+        public long getEntityId() {
+            return entityId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        private void clear() {
+            action = null;
+            entityType = null;
+            username = null;
+            detail = null;
+            createdAt = null;
+        }
+    }
+
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Written only by the consumer
+    private volatile long head;
+
+    public AuditRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(AuditAction action, String entityType, long entityId, String username, String detail,
+                         LocalDateTime createdAt) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long lag = sequences.get(index) - position;
+            if (lag < 0) {
+                // The consumer has not yet freed this slot from the previous lap
+                return false;
+            }
+            if (lag == 0 && tail.compareAndSet(position, position + 1)) {
+                Slot slot = slots[index];
+                slot.action = action;
+                slot.entityType = entityType;
+                slot.entityId = entityId;
+                slot.username = username;
+                slot.detail = detail;
+                slot.createdAt = createdAt;
+                sequences.set(index, position + 1);
+                return true;
+            }
+            // Another producer took this position first
+        }
+    }
+
+    // Single consumer only; the slot must not be kept after sink returns
+    public int drain(int max, Consumer<Slot> sink) {
+        int drained = 0;
+        long position = head;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            Slot slot = slots[index];
+            sink.accept(slot);
+            slot.clear();
+            sequences.set(index, position + slots.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,264 @@
+package com.klef.cicd.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.klef.cicd.dto.AuditEntryView;
+import com.klef.cicd.model.AuditAction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Audit trail of product, supplier, user and task mutations, written off
+ * the request path.
+ *
+ * {@link #record} only puts the record into a preallocated ring buffer
+ * (after commit when called inside a transaction, so rolled-back changes
+ * are not audited). A single writer thread drains the buffer every
+ * {@code app.audit.flush-interval-ms} and inserts up to
+ * {@code app.audit.batch-size} rows per JDBC batch. When the buffer is full
+ * a caller waits at most {@code app.audit.overflow-wait-ms} for room and
+ * then drops the record, counted in {@code app.audit.dropped}; a slow audit
+ * table never stalls the mutation itself. On shutdown the writer drains
+ * what is left before the connection pool closes.
+ */
+@Service
+public class AuditService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+
+    private static final String INSERT_ENTRY = "INSERT INTO audit_log (action, entity_type, entity_id, username, detail, "
+            + "created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_ENTRIES = "SELECT id, action, entity_type, entity_id, username, detail, created_at "
+            + "FROM audit_log";
+    private static final int MAX_DETAIL = 500;
+    private static final int WRITE_ATTEMPTS = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${app.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${app.audit.overflow-wait-ms:20}")
+    private long overflowWaitMillis;
+
+    private AuditRingBuffer buffer;
+    private Thread writer;
+    private volatile boolean running;
+    // Records taken into the buffer, and those since written or given up on
+    private final AtomicLong accepted = new AtomicLong();
+    private volatile long settled;
+    private Counter written;
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        buffer = new AuditRingBuffer(bufferCapacity);
+        written = Counter.builder("app.audit.written").description("Audit records inserted").register(meterRegistry);
+        dropped = Counter.builder("app.audit.dropped").description("Audit records lost to a full buffer or failed writes")
+                .register(meterRegistry);
+        Gauge.builder("app.audit.pending", buffer, AuditRingBuffer::size)
+                .description("Audit records waiting for the writer").register(meterRegistry);
+        if (enabled) {
+            running = true;
+            writer = Thread.ofPlatform().name("audit-writer").daemon().start(this::writeLoop);
+        }
+    }
+
+    public void record(AuditAction action, String entityType, Long entityId, String username, String detail) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime at = LocalDateTime.now();
+        String trimmed = detail != null && detail.length() > MAX_DETAIL ? detail.substring(0, MAX_DETAIL) : detail;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(action, entityType, entityId, username, trimmed, at);
+                }
+            });
+        } else {
+            enqueue(action, entityType, entityId, username, trimmed, at);
+        }
+    }
+
+    // Newest first; beforeId pages further back
+    public List<AuditEntryView> search(String entityType, Long entityId, String username, AuditAction action,
+                                       LocalDateTime from, LocalDateTime to, Long beforeId, int limit) {
+        if (entityId != null && entityType == null) {
+            throw new RuntimeException("entityId requires entityType");
+        }
+        StringBuilder sql = new StringBuilder(SELECT_ENTRIES);
+        List<Object> args = new ArrayList<>();
+        String separator = " WHERE ";
+        if (entityType != null) {
+            sql.append(separator).append("entity_type = ?");
+            args.add(entityType);
+            separator = " AND ";
+        }
+        if (entityId != null) {
+            sql.append(separator).append("entity_id = ?");
+            args.add(entityId);
+            separator = " AND ";
+        }
+        if (username != null) {
+            sql.append(separator).append("username = ?");
+            args.add(username);
+            separator = " AND ";
+        }
+        if (action != null) {
+            sql.append(separator).append("action = ?");
+            args.add(action.name());
+            separator = " AND ";
+        }
+        if (from != null) {
+            sql.append(separator).append("created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+            separator = " AND ";
+        }
+        if (to != null) {
+            sql.append(separator).append("created_at < ?");
+            args.add(Timestamp.valueOf(to));
+            separator = " AND ";
+        }
+        if (beforeId != null) {
+            sql.append(separator).append("id < ?");
+            args.add(beforeId);
+        }
+        sql.append(" ORDER BY id DESC LIMIT ?");
+        args.add(Math.min(Math.max(limit, 1), 500));
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new AuditEntryView(
+                rs.getLong("id"),
+                AuditAction.valueOf(rs.getString("action")),
+                rs.getString("entity_type"),
+                rs.getLong("entity_id"),
+                rs.getString("username"),
+                rs.getString("detail"),
+                rs.getTimestamp("created_at").toLocalDateTime()), args.toArray());
+    }
+
+    // Blocks until everything recorded so far has been written or dropped
+    public void flush() {
+        if (writer == null) {
+            return;
+        }
+        long target = accepted.get();
+        while (settled < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void enqueue(AuditAction action, String entityType, Long entityId, String username, String detail,
+                         LocalDateTime at) {
+        if (buffer.offer(action, entityType, entityId, username, detail, at)) {
+            accepted.incrementAndGet();
+            return;
+        }
+        // Full: give the writer a bounded moment to make room, then drop rather than hold up the caller
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(overflowWaitMillis);
+        LockSupport.unpark(writer);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            if (buffer.offer(action, entityType, entityId, username, detail, at)) {
+                accepted.incrementAndGet();
+                return;
+            }
+        }
+        dropped.increment();
+    }
+
+    // Nothing may end this loop but shutdown: a dead writer would leave the buffer to fill and drop every record
+    private void writeLoop() {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.clear();
+                // Only copies references, so a bad record cannot fail the drain and stay stuck in its slot
+                buffer.drain(batchSize, slot -> batch.add(new Object[] {
+                        slot.getAction(),
+                        slot.getEntityType(),
+                        slot.getEntityId(),
+                        slot.getUsername(),
+                        slot.getDetail(),
+                        slot.getCreatedAt()}));
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                log.error("Audit writer failed; continuing", e);
+            }
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        for (int attempt = 1; attempt <= WRITE_ATTEMPTS; attempt++) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_ENTRY, batch.stream().map(AuditService::toRow).toList());
+                written.increment(batch.size());
+                settled += batch.size();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Audit batch of {} failed (attempt {} of {}): {}", batch.size(), attempt, WRITE_ATTEMPTS,
+                        e.getMessage());
+                if (attempt < WRITE_ATTEMPTS) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200L * attempt));
+                }
+            }
+        }
+        dropped.increment(batch.size());
+        settled += batch.size();
+        log.error("Dropped {} audit records after {} failed attempts", batch.size(), WRITE_ATTEMPTS);
+    }
+
+    private static Object[] toRow(Object[] record) {
+        return new Object[] {((AuditAction) record[0]).name(), record[1], record[2], record[3], record[4],
+                Timestamp.valueOf((LocalDateTime) record[5])};
+    }
+}
@@ -0,0 +1,90 @@
+package com.klef.cicd.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.klef.cicd.dto.BatchResult;
+
+/**
+ * Resolves a list of ids with one IN query instead of one GET per row.
+ *
+ * Duplicate ids are looked up once, and at most {@code app.batch.max-ids}
+ * distinct ids are accepted per call. Records already resolved during the
+ * current HTTP request are kept in an identity map on the request, so
+ * asking for the same id again in that request does not query again.
+ * The map is dropped with the request; outside a request every call queries.
+ */
+@Component
+public class BatchLookup {
+
+    private static final String CACHE_ATTRIBUTE = BatchLookup.class.getName() + ".";
+
+    private final int maxIds;
+
+    public BatchLookup(@Value("${app.batch.max-ids:200}") int maxIds) {
+        this.maxIds = maxIds;
+    }
+
+    public <T> BatchResult<T> fetch(String type, Collection<Long> ids,
+                                    Function<Collection<Long>, List<T>> loader, Function<T, Long> idOf) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        if (distinct.isEmpty()) {
+            throw new RuntimeException("At least one id is required");
+        }
+        if (distinct.size() > maxIds) {
+            throw new RuntimeException("At most " + maxIds + " ids per request, got " + distinct.size());
+        }
+
+        Map<Long, T> resolved = identityMap(type);
+        List<Long> toLoad = new ArrayList<>();
+        for (Long id : distinct) {
+            if (!resolved.containsKey(id)) {
+                toLoad.add(id);
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            for (T item : loader.apply(toLoad)) {
+                resolved.put(idOf.apply(item), item);
+            }
+        }
+
+        List<T> items = new ArrayList<>(distinct.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            T item = resolved.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(items, missing);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Map<Long, T> identityMap(String type) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return new HashMap<>();
+        }
+        String name = CACHE_ATTRIBUTE + type;
+        Map<Long, T> map = (Map<Long, T>) request.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+        if (map == null) {
+            map = new HashMap<>();
+            request.setAttribute(name, map, RequestAttributes.SCOPE_REQUEST);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,455 @@
+package com.klef.cicd.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.klef.cicd.dto.AnalyticsGroup;
+import com.klef.cicd.dto.AnalyticsResult;
+import com.klef.cicd.dto.DistributionView;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.event.ForecastsUpdatedEvent;
+import com.klef.cicd.event.StockChangedEvent;
+
+/**
+ * Column-oriented copy of the product catalog for ad-hoc analytics.
+ *
+ * Each attribute a report needs is a primitive array indexed by row: stock,
+ * threshold, price in cents, and category as a code into a dictionary.
+ * Rows are kept in product id order, so a product's row is found by binary
+ * search on the id column. Queries filter and aggregate with parallel
+ * streams over row numbers and never touch the database. The snapshot is
+ * loaded on first use; after that, each {@link StockChangedEvent} re-reads
+ * only the products it names.
+ *
+ * Alongside the columns it keeps a {@link QuantileSketch} per category (and
+ * one for the whole catalog) of stock, price and days of cover. Every row
+ * change removes the row's old values from its sketches and adds the new
+ * ones, so distribution queries read a few thousand buckets instead of
+ * sorting the catalog.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final int REFRESH_CHUNK = 1000;
+
+    private static final String LOAD_PRODUCTS = "SELECT p.id, p.category, p.stock, p.low_stock_threshold, p.price, "
+            + "f.daily_velocity FROM products p LEFT JOIN product_forecasts f ON f.product_id = p.id ORDER BY p.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockWriteBehindBuffer stockWriteBehindBuffer;
+
+    @Value("${app.analytics.sketch-relative-accuracy:0.01}")
+    private double sketchRelativeAccuracy;
+
+    @Value("${app.analytics.sketch-max-buckets:2048}")
+    private int sketchMaxBuckets;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Refreshes read the database one at a time, so an older read can never overwrite a newer one
+    private final Object refreshMonitor = new Object();
+
+    private long[] ids = new long[1024];
+    private int[] stock = new int[1024];
+    private int[] threshold = new int[1024];
+    private long[] priceCents = new long[1024];
+    private int[] category = new int[1024];
+    // Units a day from the last forecast; 0 when there is no forecast or no demand
+    private float[] velocity = new float[1024];
+    private int size;
+
+    private final Map<Integer, Distribution> distributions = new HashMap<>();
+    private Distribution overall;
+
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Filters the catalog and aggregates it, optionally per category.
+     * Any filter argument may be null. Percentiles are of stock per product,
+     * by nearest rank.
+     */
+    public AnalyticsResult query(String categoryFilter, Boolean lowStock, Integer minStock, Integer maxStock,
+            boolean byCategory, int[] percentiles) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int rows = size;
+            int[] stockColumn = stock;
+            int[] thresholdColumn = threshold;
+            long[] priceColumn = priceCents;
+            int[] categoryColumn = category;
+
+            Integer code = categoryFilter == null ? null : categoryCodes.get(categoryFilter);
+            if (categoryFilter != null && code == null) {
+                return new AnalyticsResult(rows, 0, List.of());
+            }
+            int wantedCategory = code == null ? -1 : code;
+            int low = minStock == null ? Integer.MIN_VALUE : minStock;
+            int high = maxStock == null ? Integer.MAX_VALUE : maxStock;
+
+            int[] matched = IntStream.range(0, rows).parallel()
+                    .filter(row -> (wantedCategory < 0 || categoryColumn[row] == wantedCategory)
+                            && stockColumn[row] >= low && stockColumn[row] <= high
+                            && (lowStock == null || (stockColumn[row] <= thresholdColumn[row]) == lowStock))
+                    .toArray();
+
+            int groupCount = byCategory ? categories.size() : 1;
+            Totals totals = Arrays.stream(matched).parallel().collect(
+                    () -> new Totals(groupCount),
+                    (t, row) -> t.add(byCategory ? categoryColumn[row] : 0, stockColumn[row],
+                            priceColumn[row], stockColumn[row] <= thresholdColumn[row]),
+                    Totals::merge);
+
+            // Group in the high bits, stock in the low bits: one parallel sort orders both
+            long[] keys = percentiles.length == 0 ? null : Arrays.stream(matched).parallel()
+                    .mapToLong(row -> ((long) (byCategory ? categoryColumn[row] : 0) << 32)
+                            | ((stockColumn[row] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL))
+                    .sorted()
+                    .toArray();
+
+            List<AnalyticsGroup> groups = new ArrayList<>();
+            int offset = 0;
+            for (int g = 0; g < groupCount; g++) {
+                long count = totals.count[g];
+                if (count == 0) {
+                    continue;
+                }
+                Map<String, Integer> stockPercentiles = new LinkedHashMap<>();
+                for (int p : percentiles) {
+                    int rank = (int) Math.max(1, Math.ceil(p / 100.0 * count));
+                    stockPercentiles.put("p" + p, (int) keys[offset + rank - 1] ^ Integer.MIN_VALUE);
+                }
+                offset += (int) count;
+                groups.add(new AnalyticsGroup(
+                        byCategory ? categories.get(g) : "all",
+                        count,
+                        totals.units[g],
+                        BigDecimal.valueOf(totals.valueCents[g], 2),
+                        (double) totals.units[g] / count,
+                        BigDecimal.valueOf(totals.priceCents[g] / count, 2),
+                        totals.lowStock[g],
+                        (double) totals.lowStock[g] / count,
+                        stockPercentiles));
+            }
+            groups.sort(Comparator.comparing(AnalyticsGroup::value).reversed());
+            return new AnalyticsResult(rows, matched.length, groups);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // metric is stock, price or daysOfCover; a null category means the whole catalog
+    public DistributionView distribution(String metric, String categoryName, int[] percentiles, int bins) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Distribution distribution = overall;
+            if (categoryName != null) {
+                Integer code = categoryCodes.get(categoryName);
+                distribution = code == null ? null : distributions.get(code);
+            }
+            if (distribution == null) {
+                return new DistributionView(metric, categoryName, 0, 0, sketchRelativeAccuracy, Map.of(), List.of());
+            }
+            QuantileSketch sketch = distribution.sketch(metric);
+            Map<String, Double> values = new LinkedHashMap<>();
+            if (sketch.count() > 0) {
+                for (int p : percentiles) {
+                    values.put("p" + p, sketch.quantile(p / 100.0));
+                }
+            }
+            return new DistributionView(metric, categoryName, sketch.count(),
+                    metric.equals("daysOfCover") ? distribution.withoutDemand : 0,
+                    sketchRelativeAccuracy, values, sketch.histogram(bins));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        ensureLoaded();
+        return size;
+    }
+
+    // Runs after the writing transaction commits, so the rows it reads are the new ones
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(StockChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        refresh(event.productIds());
+    }
+
+    // Days of cover depend on velocity, which only changes when the forecast runs
+    @EventListener
+    public void onForecastsUpdated(ForecastsUpdatedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        synchronized (refreshMonitor) {
+            // Read before taking the write lock, as refresh does, so queries are not blocked on the database
+            List<Forecast> forecasts = jdbcTemplate.query("SELECT product_id, daily_velocity FROM product_forecasts",
+                    (rs, rowNum) -> new Forecast(rs.getLong(1), rs.getFloat(2)));
+            lock.writeLock().lock();
+            try {
+                for (Forecast forecast : forecasts) {
+                    int row = Arrays.binarySearch(ids, 0, size, forecast.productId());
+                    if (row >= 0) {
+                        account(row, false);
+                        velocity[row] = forecast.dailyVelocity();
+                        account(row, true);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void refresh(Collection<Long> productIds) {
+        List<Long> changed = new ArrayList<>(productIds);
+        synchronized (refreshMonitor) {
+            for (int from = 0; from < changed.size(); from += REFRESH_CHUNK) {
+                List<Long> chunk = changed.subList(from, Math.min(from + REFRESH_CHUNK, changed.size()));
+                Map<Long, ProductView> current = new HashMap<>();
+                productService.getProductsByIds(chunk).forEach(product -> current.put(product.id(), product));
+                lock.writeLock().lock();
+                try {
+                    for (Long id : chunk) {
+                        ProductView product = current.get(id);
+                        if (product == null) {
+                            removeRow(id);
+                        } else {
+                            putRow(id, product.category(), product.stock(), product.lowStockThreshold(), cents(product.price()));
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (refreshMonitor) {
+            if (loaded) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                // Set first: queries wait on the lock, events wait on the monitor, and both see the full load
+                loaded = true;
+                size = 0;
+                stockWriteBehindBuffer.read(() -> {
+                    jdbcTemplate.query(LOAD_PRODUCTS, rs -> {
+                        appendRow(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4), cents(rs.getBigDecimal(5)));
+                        velocity[size - 1] = rs.getFloat(6);
+                    });
+                    for (Long id : stockWriteBehindBuffer.pendingProductIds()) {
+                        int row = Arrays.binarySearch(ids, 0, size, id);
+                        if (row >= 0) {
+                            stock[row] += (int) stockWriteBehindBuffer.pendingDelta(id);
+                        }
+                    }
+                    return null;
+                });
+                distributions.clear();
+                overall = new Distribution(sketchRelativeAccuracy, sketchMaxBuckets);
+                for (int row = 0; row < size; row++) {
+                    account(row, true);
+                }
+            } catch (RuntimeException e) {
+                loaded = false;
+                throw e;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void putRow(long id, String categoryName, int units, int lowStockThreshold, long cents) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            // New ids are nearly always the largest, so this shifts little or nothing
+            row = -row - 1;
+            grow();
+            int tail = size - row;
+            System.arraycopy(ids, row, ids, row + 1, tail);
+            System.arraycopy(stock, row, stock, row + 1, tail);
+            System.arraycopy(threshold, row, threshold, row + 1, tail);
+            System.arraycopy(priceCents, row, priceCents, row + 1, tail);
+            System.arraycopy(category, row, category, row + 1, tail);
+            System.arraycopy(velocity, row, velocity, row + 1, tail);
+            size++;
+            velocity[row] = 0;
+        } else {
+            account(row, false);
+        }
+        setRow(row, id, categoryName, units, lowStockThreshold, cents);
+        account(row, true);
+    }
+
+    private void appendRow(long id, String categoryName, int units, int lowStockThreshold, long cents) {
+        grow();
+        setRow(size++, id, categoryName, units, lowStockThreshold, cents);
+    }
+
+    private void removeRow(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            return;
+        }
+        account(row, false);
+        int tail = size - row - 1;
+        System.arraycopy(ids, row + 1, ids, row, tail);
+        System.arraycopy(stock, row + 1, stock, row, tail);
+        System.arraycopy(threshold, row + 1, threshold, row, tail);
+        System.arraycopy(priceCents, row + 1, priceCents, row, tail);
+        System.arraycopy(category, row + 1, category, row, tail);
+        System.arraycopy(velocity, row + 1, velocity, row, tail);
+        size--;
+    }
+
+    private void setRow(int row, long id, String categoryName, int units, int lowStockThreshold, long cents) {
+        ids[row] = id;
+        stock[row] = units;
+        threshold[row] = lowStockThreshold;
+        priceCents[row] = cents;
+        category[row] = categoryCodes.computeIfAbsent(categoryName, name -> {
+            categories.add(name);
+            return categories.size() - 1;
+        });
+    }
+
+    private void grow() {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            stock = Arrays.copyOf(stock, capacity);
+            threshold = Arrays.copyOf(threshold, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            category = Arrays.copyOf(category, capacity);
+            velocity = Arrays.copyOf(velocity, capacity);
+        }
+    }
+
+    // Adds a row's current values to its sketches, or removes them before the row changes
+    private void account(int row, boolean add) {
+        Distribution distribution = distributions.computeIfAbsent(category[row],
+                code -> new Distribution(sketchRelativeAccuracy, sketchMaxBuckets));
+        distribution.update(stock[row], priceCents[row], velocity[row], add);
+        overall.update(stock[row], priceCents[row], velocity[row], add);
+    }
+
+    private static long cents(BigDecimal price) {
+        return price.movePointRight(2).longValue();
+    }
+
+    private record Forecast(long productId, float dailyVelocity) {}
+
+    private static class Distribution {
+        final QuantileSketch stock;
+        final QuantileSketch price;
+        final QuantileSketch daysOfCover;
+        long withoutDemand;
+
+        Distribution(double relativeAccuracy, int maxBuckets) {
+            stock = new QuantileSketch(relativeAccuracy, maxBuckets);
+            price = new QuantileSketch(relativeAccuracy, maxBuckets);
+            daysOfCover = new QuantileSketch(relativeAccuracy, maxBuckets);
+        }
+
+        void update(int units, long cents, float dailyVelocity, boolean add) {
+            double cover = units / (double) dailyVelocity;
+            if (add) {
+                stock.add(units);
+                price.add(cents / 100.0);
+                if (dailyVelocity > 0) {
+                    daysOfCover.add(cover);
+                } else {
+                    withoutDemand++;
+                }
+            } else {
+                stock.remove(units);
+                price.remove(cents / 100.0);
+                if (dailyVelocity > 0) {
+                    daysOfCover.remove(cover);
+                } else {
+                    withoutDemand--;
+                }
+            }
+        }
+
+        QuantileSketch sketch(String metric) {
+            return switch (metric) {
+                case "price" -> price;
+                case "daysOfCover" -> daysOfCover;
+                default -> stock;
+            };
+        }
+    }
+
+    // Per-group running sums; one instance per parallel stream segment, merged at the end
+    private static class Totals {
+        final long[] count;
+        final long[] units;
+        final long[] valueCents;
+        final long[] priceCents;
+        final long[] lowStock;
+
+        Totals(int groups) {
+            count = new long[groups];
+            units = new long[groups];
+            valueCents = new long[groups];
+            priceCents = new long[groups];
+            lowStock = new long[groups];
+        }
+
+        void add(int group, int stock, long price, boolean low) {
+            count[group]++;
+            units[group] += stock;
+            valueCents[group] += stock * price;
+            priceCents[group] += price;
+            if (low) {
+                lowStock[group]++;
+            }
+        }
+
+        void merge(Totals other) {
+            for (int g = 0; g < count.length; g++) {
+                count[g] += other.count[g];
+                units[g] += other.units[g];
+                valueCents[g] += other.valueCents[g];
+                priceCents[g] += other.priceCents[g];
+                lowStock[g] += other.lowStock[g];
+            }
+        }
+    }
+}
@@ -1,9 +1,28 @@
 package com.klef.cicd.service;
 
+import com.klef.cicd.dto.AnalyticsResult;
+import com.klef.cicd.dto.DashboardBootstrap;
 import com.klef.cicd.dto.DashboardStats;
+import com.klef.cicd.dto.DistributionView;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.UserResponse;
+import com.klef.cicd.service.StaleWhileRevalidate.Tracked;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
 @Service
 public class DashboardService {
     
@@ -16,12 +35,133 @@ public class DashboardService {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+    
+    @Autowired
+    private StaleWhileRevalidate staleWhileRevalidate;
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Value("${app.dashboard.bootstrap-deadline-ms:3000}")
+    private long bootstrapDeadlineMillis;
+    
+    // A virtual thread per query: a slow query parks only its own thread, and there is no pool to size
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+    
+    // Every browser loads this at shift start; concurrent calls share one set of queries
     public DashboardStats getDashboardStats() {
-        long totalProducts = productService.getTotalProductsCount();
-        long lowStockCount = productService.getLowStockCount();
-        long totalSuppliers = supplierService.getTotalSuppliersCount();
-        long totalUsers = userService.getAllUsers().size();
+        return staleWhileRevalidate.read("dashboard.stats", this::loadDashboardStats);
+    }
+    
+    // The four counts are independent, so they run side by side
+    private DashboardStats loadDashboardStats() {
+        Future<Long> totalProducts = fanOut.submit(productService::getTotalProductsCount);
+        Future<Long> lowStockCount = fanOut.submit(productService::getLowStockCount);
+        Future<Long> totalSuppliers = fanOut.submit(supplierService::getTotalSuppliersCount);
+        Future<Long> totalUsers = fanOut.submit(userService::getTotalUsersCount);
+        
+        return new DashboardStats(join(totalProducts), join(lowStockCount), join(totalSuppliers), join(totalUsers));
+    }
+    
+    // The dashboard page in one round trip, bounded by the slowest part rather than the sum
+    public DashboardBootstrap getBootstrap(String username) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(bootstrapDeadlineMillis);
+        Future<Tracked<DashboardStats>> stats = part(this::getDashboardStats);
+        Future<Tracked<List<ProductView>>> lowStock = part(productService::getLowStockProducts);
+        Future<Tracked<TaskService.TaskStats>> taskStats = part(() -> taskService.getTaskStats(username));
+        Future<Tracked<UserResponse>> user = part(() -> userService.getCurrentUser(username));
         
-        return new DashboardStats(totalProducts, lowStockCount, totalSuppliers, totalUsers);
+        Map<String, String> unavailable = new LinkedHashMap<>();
+        Map<String, Long> stale = new LinkedHashMap<>();
+        return new DashboardBootstrap(
+                await("stats", stats, deadline, unavailable, stale),
+                await("lowStockProducts", lowStock, deadline, unavailable, stale),
+                await("taskStats", taskStats, deadline, unavailable, stale),
+                await("user", user, deadline, unavailable, stale),
+                unavailable,
+                stale,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    // The part's virtual thread has no request to put the stale headers on, so staleness is tracked instead
+    private <T> Future<Tracked<T>> part(Supplier<T> work) {
+        return fanOut.submit(() -> staleWhileRevalidate.track(work));
+    }
+    
+    // Served from the in-memory catalog snapshot, not from MySQL
+    public AnalyticsResult getProductAnalytics(String category, Boolean lowStock, Integer minStock, Integer maxStock,
+            String groupBy, List<Integer> percentiles) {
+        boolean byCategory;
+        if (groupBy == null || groupBy.equals("none")) {
+            byCategory = false;
+        } else if (groupBy.equals("category")) {
+            byCategory = true;
+        } else {
+            throw new RuntimeException("groupBy must be category or none");
+        }
+        for (Integer p : percentiles) {
+            if (p == null || p < 1 || p > 100) {
+                throw new RuntimeException("Percentiles must be between 1 and 100");
+            }
+        }
+        return catalogSnapshot.query(category, lowStock, minStock, maxStock, byCategory,
+                percentiles.stream().mapToInt(Integer::intValue).toArray());
+    }
+    
+    // Read from per-category sketches: the cost does not grow with the catalog
+    public DistributionView getDistribution(String metric, String category, List<Integer> percentiles, int bins) {
+        if (!List.of("stock", "price", "daysOfCover").contains(metric)) {
+            throw new RuntimeException("metric must be stock, price or daysOfCover");
+        }
+        if (bins < 1 || bins > 200) {
+            throw new RuntimeException("bins must be between 1 and 200");
+        }
+        for (Integer p : percentiles) {
+            if (p == null || p < 1 || p > 100) {
+                throw new RuntimeException("Percentiles must be between 1 and 100");
+            }
+        }
+        return catalogSnapshot.distribution(metric, category,
+                percentiles.stream().mapToInt(Integer::intValue).toArray(), bins);
+    }
+    
+    // Every part shares one deadline; a part that misses it is reported instead of failing the page.
+    // It is left to finish on its virtual thread: interrupting a JDBC call can break the connection.
+    private <T> T await(String part, Future<Tracked<T>> future, long deadline, Map<String, String> unavailable,
+            Map<String, Long> stale) {
+        try {
+            Tracked<T> result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (result.stale()) {
+                stale.put(part, result.ageSeconds());
+            }
+            return result.value();
+        } catch (TimeoutException e) {
+            unavailable.put(part, "Timed out");
+        } catch (ExecutionException e) {
+            unavailable.put(part, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unavailable.put(part, "Interrupted");
+        }
+        return null;
+    }
+    
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted");
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
     }
 }
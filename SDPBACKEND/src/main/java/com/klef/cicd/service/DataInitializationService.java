@@ -23,6 +23,9 @@ public class DataInitializationService implements CommandLineRunner {
     
     @Autowired
     private SupplierRepository supplierRepository;
+    
+    @Autowired
+    private PasswordHashService passwordHashService;
 
     @Override
     public void run(String... args) throws Exception {
@@ -41,11 +44,13 @@ public class DataInitializationService implements CommandLineRunner {
     }
     
     private void initializeUsers() {
+        String defaultPassword = passwordHashService.hash("password123");
+        
         // Create admin user
         User admin = new User();
         admin.setUsername("admin");
         admin.setEmail("admin@example.com");
-        admin.setPassword("password123");
+        admin.setPassword(defaultPassword);
         admin.setRole(User.Role.ADMIN);
         userRepository.save(admin);
         
@@ -53,7 +58,7 @@ public class DataInitializationService implements CommandLineRunner {
         User manager = new User();
         manager.setUsername("manager1");
         manager.setEmail("manager@example.com");
-        manager.setPassword("password123");
+        manager.setPassword(defaultPassword);
         manager.setRole(User.Role.MANAGER);
         userRepository.save(manager);
         
@@ -61,7 +66,7 @@ public class DataInitializationService implements CommandLineRunner {
         User staff = new User();
         staff.setUsername("staff1");
         staff.setEmail("staff@example.com");
-        staff.setPassword("password123");
+        staff.setPassword(defaultPassword);
         staff.setRole(User.Role.STAFF);
         userRepository.save(staff);
     }
@@ -0,0 +1,85 @@
+package com.klef.cicd.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tracks how the database is answering the guarded reads.
+ *
+ * After {@code failure-threshold} consecutive reads that failed or took
+ * longer than {@code slow-call-ms}, or one read that outran the caller's
+ * timeout, the breaker opens: readers that have a previous result use it
+ * instead of queueing behind MySQL. Once {@code open-ms} has passed, one
+ * read at a time is let through as a probe; a fast success closes the
+ * breaker again, anything else keeps it open for another period.
+ */
+@Component
+public class DbCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(DbCircuitBreaker.class);
+
+    private final long slowCallMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile boolean open;
+    private volatile long openedAt;
+    private int consecutiveBad;
+
+    public DbCircuitBreaker(@Value("${app.db-breaker.slow-call-ms:1000}") long slowCallMillis,
+                            @Value("${app.db-breaker.failure-threshold:3}") int failureThreshold,
+                            @Value("${app.db-breaker.open-ms:15000}") long openMillis,
+                            MeterRegistry meterRegistry) {
+        this.slowCallMillis = slowCallMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        meterRegistry.gauge("app.db-breaker.open", this, breaker -> breaker.open ? 1 : 0);
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    // True for the one caller allowed to probe the database while the breaker is open
+    public boolean tryProbe() {
+        return open && System.currentTimeMillis() - openedAt >= openMillis && probing.compareAndSet(false, true);
+    }
+
+    public synchronized void record(long elapsedMillis, boolean succeeded) {
+        probing.set(false);
+        if (succeeded && elapsedMillis <= slowCallMillis) {
+            consecutiveBad = 0;
+            if (open) {
+                open = false;
+                log.info("Database reads are fast again, closing the circuit breaker");
+            }
+            return;
+        }
+        consecutiveBad++;
+        if (open || consecutiveBad >= failureThreshold) {
+            trip(succeeded ? "slow reads (" + elapsedMillis + " ms)" : "failed reads");
+        }
+    }
+
+    // A caller gave up waiting: the database is stalled now, not just slow
+    public synchronized void recordTimeout() {
+        if (!open) {
+            trip("a read exceeded the caller timeout");
+        }
+    }
+
+    private void trip(String reason) {
+        if (!open) {
+            log.warn("Opening the database circuit breaker after {}; serving cached reads for {} ms", reason, openMillis);
+        }
+        open = true;
+        openedAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,138 @@
+package com.klef.cicd.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumption velocity and reorder points per SKU, computed on a fork-join pool.
+ *
+ * The SKU range is split in halves until it is no larger than one chunk.
+ * Each chunk loads its daily consumption into a single flat int[] (one row
+ * of {@code days} per SKU) and writes its results into shared primitive
+ * arrays at its own indexes, so workers never share a slot and the hot
+ * loop allocates nothing. Each chunk hands its results to the writer as
+ * soon as it finishes.
+ *
+ * Reorder point = velocity x lead time + z x sigma x sqrt(lead time).
+ * Reorder quantity covers {@code coverDays} of demand, but never less than
+ * the supplier's minimum order.
+ */
+public class DemandForecaster {
+
+    // Fills series[(i - from) * days + day] with the units consumed by SKU i on that day
+    @FunctionalInterface
+    public interface HistoryLoader {
+        void load(int from, int to, int[] series);
+    }
+
+    // Receives the finished results for SKUs [from, to)
+    @FunctionalInterface
+    public interface ResultWriter {
+        void write(int from, int to, Forecasts forecasts);
+    }
+
+    public static class Forecasts {
+        public final float[] velocity;
+        public final float[] stdDev;
+        public final int[] reorderPoint;
+        public final int[] reorderQuantity;
+
+        Forecasts(int size) {
+            velocity = new float[size];
+            stdDev = new float[size];
+            reorderPoint = new int[size];
+            reorderQuantity = new int[size];
+        }
+    }
+
+    private final int days;
+    private final int chunkSize;
+    private final double serviceLevelZ;
+    private final int coverDays;
+
+    public DemandForecaster(int days, int chunkSize, double serviceLevelZ, int coverDays) {
+        this.days = days;
+        this.chunkSize = chunkSize;
+        this.serviceLevelZ = serviceLevelZ;
+        this.coverDays = coverDays;
+    }
+
+    // Returns the results for every SKU; demandCount is set to the number of SKUs with any consumption
+    public Forecasts forecast(ForkJoinPool pool, int[] leadTimeDays, int[] minOrderQuantity,
+            HistoryLoader loader, ResultWriter writer, AtomicInteger demandCount) {
+        Forecasts forecasts = new Forecasts(leadTimeDays.length);
+        pool.invoke(new ChunkTask(0, leadTimeDays.length, leadTimeDays, minOrderQuantity, loader, writer, forecasts, demandCount));
+        return forecasts;
+    }
+
+    // Computes SKUs [from, to) from an already loaded series; returns how many had demand
+    int compute(int from, int to, int[] series, int[] leadTimeDays, int[] minOrderQuantity, Forecasts out) {
+        int withDemand = 0;
+        for (int i = from; i < to; i++) {
+            int base = (i - from) * days;
+            long sum = 0;
+            long sumSquares = 0;
+            for (int d = 0; d < days; d++) {
+                int units = series[base + d];
+                sum += units;
+                sumSquares += (long) units * units;
+            }
+            double mean = (double) sum / days;
+            double sigma = Math.sqrt(Math.max(0.0, (double) sumSquares / days - mean * mean));
+            int leadTime = leadTimeDays[i];
+
+            out.velocity[i] = (float) mean;
+            out.stdDev[i] = (float) sigma;
+            if (sum == 0) {
+                out.reorderPoint[i] = 0;
+                out.reorderQuantity[i] = 0;
+                continue;
+            }
+            withDemand++;
+            out.reorderPoint[i] = (int) Math.ceil(mean * leadTime + serviceLevelZ * sigma * Math.sqrt(leadTime));
+            out.reorderQuantity[i] = Math.max((int) Math.ceil(mean * coverDays), Math.max(minOrderQuantity[i], 1));
+        }
+        return withDemand;
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int[] leadTimeDays;
+        private final int[] minOrderQuantity;
+        private final HistoryLoader loader;
+        private final ResultWriter writer;
+        private final Forecasts forecasts;
+        private final AtomicInteger demandCount;
+
+        ChunkTask(int from, int to, int[] leadTimeDays, int[] minOrderQuantity, HistoryLoader loader,
+                ResultWriter writer, Forecasts forecasts, AtomicInteger demandCount) {
+            this.from = from;
+            this.to = to;
+            this.leadTimeDays = leadTimeDays;
+            this.minOrderQuantity = minOrderQuantity;
+            this.loader = loader;
+            this.writer = writer;
+            this.forecasts = forecasts;
+            this.demandCount = demandCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (from == to) {
+                return;
+            }
+            if (to - from <= chunkSize) {
+                int[] series = new int[(to - from) * days];
+                loader.load(from, to, series);
+                demandCount.addAndGet(DemandForecaster.this.compute(from, to, series, leadTimeDays, minOrderQuantity, forecasts));
+                writer.write(from, to, forecasts);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, leadTimeDays, minOrderQuantity, loader, writer, forecasts, demandCount),
+                    new ChunkTask(mid, to, leadTimeDays, minOrderQuantity, loader, writer, forecasts, demandCount));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.klef.cicd.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Narrowed SELECT for the {@code fields=} parameter of list endpoints.
+ *
+ * Each field a client may ask for maps to one SQL column, so only the
+ * requested columns are read, sent by the database and serialized. Rows
+ * come back as maps in the same shape as the full view: a dotted field such
+ * as {@code assignedTo.username} becomes a nested object, and asking for
+ * {@code assignedTo} selects all of its sub-fields. A join is only added
+ * when one of its columns is selected. {@code id} is always included.
+ */
+public class FieldProjection {
+
+    private record Column(String field, String sql, Class<?> type, String join) {}
+
+    private final String from;
+    private final String orderBy;
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private final Map<String, String> joins = new LinkedHashMap<>();
+
+    public FieldProjection(String from, String orderBy) {
+        this.from = from;
+        this.orderBy = orderBy;
+    }
+
+    public FieldProjection column(String field, String sql, Class<?> type) {
+        return column(field, sql, type, null);
+    }
+
+    // join names a clause registered with join(); it is added only when this column is selected
+    public FieldProjection column(String field, String sql, Class<?> type, String join) {
+        columns.put(field, new Column(field, sql, type, join));
+        return this;
+    }
+
+    public FieldProjection join(String name, String clause) {
+        joins.put(name, clause);
+        return this;
+    }
+
+    // Comma-separated field list in, selected fields out in declaration order; unknown names are rejected
+    public List<String> resolve(String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        requested.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            boolean matched = false;
+            for (String column : columns.keySet()) {
+                if (column.equals(name) || column.startsWith(name + ".")) {
+                    requested.add(column);
+                    matched = true;
+                }
+            }
+            if (!matched) {
+                throw new RuntimeException("Unknown field: " + name + ". Allowed: " + String.join(", ", allowedFields()));
+            }
+        }
+        List<String> selected = new ArrayList<>();
+        for (String column : columns.keySet()) {
+            if (requested.contains(column)) {
+                selected.add(column);
+            }
+        }
+        return selected;
+    }
+
+    public String sql(List<String> fields) {
+        StringBuilder select = new StringBuilder("SELECT ");
+        Set<String> neededJoins = new LinkedHashSet<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Column column = columns.get(fields.get(i));
+            select.append(i == 0 ? "" : ", ").append(column.sql());
+            if (column.join() != null) {
+                neededJoins.add(column.join());
+            }
+        }
+        select.append(" FROM ").append(from);
+        for (String join : neededJoins) {
+            select.append(' ').append(joins.get(join));
+        }
+        return select.append(" ORDER BY ").append(orderBy).toString();
+    }
+
+    public List<Map<String, Object>> query(JdbcTemplate jdbcTemplate, List<String> fields) {
+        List<Column> selected = fields.stream().map(columns::get).toList();
+        return jdbcTemplate.query(sql(fields), (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                Column column = selected.get(i);
+                put(row, column.field(), rs.getObject(i + 1, column.type()));
+            }
+            return row;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> row, String field, Object value) {
+        int dot = field.indexOf('.');
+        if (dot < 0) {
+            row.put(field, value);
+            return;
+        }
+        Map<String, Object> nested = (Map<String, Object>) row.computeIfAbsent(field.substring(0, dot),
+                key -> new LinkedHashMap<String, Object>());
+        put(nested, field.substring(dot + 1), value);
+    }
+
+    private List<String> allowedFields() {
+        Set<String> allowed = new LinkedHashSet<>();
+        for (String column : columns.keySet()) {
+            int dot = column.indexOf('.');
+            allowed.add(dot < 0 ? column : column.substring(0, dot));
+            allowed.add(column);
+        }
+        return new ArrayList<>(allowed);
+    }
+}
@@ -0,0 +1,226 @@
+package com.klef.cicd.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.ForecastRun;
+import com.klef.cicd.dto.ProductForecastView;
+import com.klef.cicd.event.ForecastsUpdatedEvent;
+import com.klef.cicd.repository.ProductForecastRepository;
+
+/**
+ * Suggested reorder points from the stock ledger.
+ *
+ * Every product is loaded once into primitive arrays in id order, together
+ * with the lead time and minimum order of its preferred supplier. Then
+ * {@link DemandForecaster} splits them into chunks on a dedicated fork-join
+ * pool. Each chunk reads the consumption (the outflow of adjustments, which
+ * counts picks even when a write-behind flush netted them against receipts)
+ * of one contiguous id range with one indexed query, bucketed by calendar
+ * day, and replaces the
+ * product_forecasts rows of that range in one JDBC batch. Suggestions are
+ * only exposed; lowStockThreshold is never changed here.
+ */
+@Service
+public class ForecastService {
+
+    private static final Logger log = LoggerFactory.getLogger(ForecastService.class);
+
+    private static final String LOAD_PRODUCTS = "SELECT p.id, ps.lead_time_days, ps.min_order_quantity FROM products p "
+            + "LEFT JOIN product_suppliers ps ON ps.product_id = p.id AND ps.preferred = TRUE ORDER BY p.id";
+
+    private static final String LOAD_CONSUMPTION = "SELECT product_id, created_at, outflow FROM stock_movements "
+            + "WHERE product_id BETWEEN ? AND ? AND created_at >= ? AND created_at < ? "
+            + "AND reason = 'ADJUSTMENT' AND outflow > 0";
+
+    private static final String INSERT_FORECAST = "INSERT INTO product_forecasts (product_id, daily_velocity, "
+            + "demand_std_dev, lead_time_days, reorder_point, reorder_quantity, computed_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductForecastRepository productForecastRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.forecast.lookback-days:28}")
+    private int lookbackDays;
+
+    @Value("${app.forecast.chunk-size:2048}")
+    private int chunkSize;
+
+    // Each worker holds a database connection while it loads or writes, so keep this below the pool size
+    @Value("${app.forecast.parallelism:4}")
+    private int parallelism;
+
+    // 1.65 covers demand on about 95% of lead-time periods
+    @Value("${app.forecast.service-level-z:1.65}")
+    private double serviceLevelZ;
+
+    @Value("${app.forecast.cover-days:14}")
+    private int coverDays;
+
+    @Value("${app.forecast.default-lead-time-days:7}")
+    private int defaultLeadTimeDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public Optional<ProductForecastView> getForecast(Long productId) {
+        return productForecastRepository.findView(productId);
+    }
+
+    public List<ProductForecastView> getUnderThreshold(int limit) {
+        return productForecastRepository.findUnderThreshold(PageRequest.of(0, Math.min(Math.max(limit, 1), 500)));
+    }
+
+    @Scheduled(cron = "${app.forecast.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!running.get()) {
+            ForecastRun run = runForecast();
+            log.info("Forecast: {} products, {} with demand, {} ms", run.products(), run.withDemand(), run.elapsedMs());
+        }
+    }
+
+    public ForecastRun runForecast() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A forecast is already running");
+        }
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Skus skus = loadSkus();
+            // Whole days only, ending at today's midnight
+            LocalDate firstDay = LocalDate.now().minusDays(lookbackDays);
+            Timestamp since = Timestamp.valueOf(firstDay.atStartOfDay());
+            Timestamp until = Timestamp.valueOf(LocalDate.now().atStartOfDay());
+            Timestamp computedAt = Timestamp.valueOf(LocalDateTime.now());
+
+            DemandForecaster forecaster = new DemandForecaster(lookbackDays, chunkSize, serviceLevelZ, coverDays);
+            AtomicInteger withDemand = new AtomicInteger();
+            forecaster.forecast(pool, skus.leadTimeDays, skus.minOrderQuantity,
+                    (from, to, series) -> loadConsumption(skus.ids, from, to, since, until, firstDay, series),
+                    (from, to, forecasts) -> writeForecasts(skus, from, to, forecasts, computedAt),
+                    withDemand);
+
+            // Forecasts of products deleted since the last run
+            jdbcTemplate.update("DELETE FROM product_forecasts WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM products p WHERE p.id = product_forecasts.product_id)");
+            eventPublisher.publishEvent(new ForecastsUpdatedEvent(skus.size));
+            return new ForecastRun(skus.size, withDemand.get(), lookbackDays, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    private Skus loadSkus() {
+        Skus skus = new Skus();
+        jdbcTemplate.query(LOAD_PRODUCTS, rs -> {
+            int leadTime = rs.getInt(2);
+            if (rs.wasNull() || leadTime <= 0) {
+                leadTime = defaultLeadTimeDays;
+            }
+            skus.add(rs.getLong(1), leadTime, rs.getInt(3));
+        });
+        skus.trim();
+        return skus;
+    }
+
+    private void loadConsumption(long[] ids, int from, int to, Timestamp since, Timestamp until, LocalDate firstDay,
+                                 int[] series) {
+        jdbcTemplate.query(LOAD_CONSUMPTION, rs -> {
+            int index = Arrays.binarySearch(ids, from, to, rs.getLong(1));
+            int day = dayIndex(firstDay, rs.getTimestamp(2));
+            if (index >= 0 && day >= 0 && day < lookbackDays) {
+                series[(index - from) * lookbackDays + day] += rs.getInt(3);
+            }
+        }, ids[from], ids[to - 1], since, until);
+    }
+
+    // Calendar days rather than elapsed milliseconds: days around a DST change are 23 or 25 hours long
+    static int dayIndex(LocalDate firstDay, Timestamp at) {
+        return (int) ChronoUnit.DAYS.between(firstDay, at.toLocalDateTime().toLocalDate());
+    }
+
+    // Replaces the rows of one id range; ranges never overlap, so chunks write concurrently
+    private void writeForecasts(Skus skus, int from, int to, DemandForecaster.Forecasts forecasts, Timestamp computedAt) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM product_forecasts WHERE product_id BETWEEN ? AND ?", skus.ids[from], skus.ids[to - 1]);
+            jdbcTemplate.batchUpdate(INSERT_FORECAST, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int sku = from + i;
+                    ps.setLong(1, skus.ids[sku]);
+                    ps.setFloat(2, forecasts.velocity[sku]);
+                    ps.setFloat(3, forecasts.stdDev[sku]);
+                    ps.setInt(4, skus.leadTimeDays[sku]);
+                    ps.setInt(5, forecasts.reorderPoint[sku]);
+                    ps.setInt(6, forecasts.reorderQuantity[sku]);
+                    ps.setTimestamp(7, computedAt);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return to - from;
+                }
+            });
+        });
+    }
+
+    // Product ids in ascending order with their supplier terms, as parallel arrays
+    private static class Skus {
+        long[] ids = new long[1024];
+        int[] leadTimeDays = new int[1024];
+        int[] minOrderQuantity = new int[1024];
+        int size;
+
+        void add(long id, int leadTime, int minOrder) {
+            // A product with two preferred links keeps the first
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                leadTimeDays = Arrays.copyOf(leadTimeDays, size * 2);
+                minOrderQuantity = Arrays.copyOf(minOrderQuantity, size * 2);
+            }
+            ids[size] = id;
+            leadTimeDays[size] = leadTime;
+            minOrderQuantity[size] = minOrder;
+            size++;
+        }
+
+        void trim() {
+            ids = Arrays.copyOf(ids, size);
+            leadTimeDays = Arrays.copyOf(leadTimeDays, size);
+            minOrderQuantity = Arrays.copyOf(minOrderQuantity, size);
+        }
+    }
+}
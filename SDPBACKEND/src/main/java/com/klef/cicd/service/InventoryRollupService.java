@@ -0,0 +1,240 @@
+package com.klef.cicd.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.InventoryRollupView;
+import com.klef.cicd.dto.RollupRun;
+import com.klef.cicd.repository.InventoryRollupRepository;
+
+/**
+ * One row of inventory totals per category per day, for trend reports.
+ *
+ * The first run aggregates the whole catalog. After that, each run reads
+ * only the products that changed since the previous run: rows with a newer
+ * updated_at, plus products deleted according to the ledger. For each one
+ * it subtracts the state the last rollup counted (kept in
+ * inventory_rollup_state) and adds the current state. The differences go
+ * onto the previous day's totals. The totals, the per-product state and
+ * the checkpoint commit together, so re-running a day is safe.
+ */
+@Service
+public class InventoryRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryRollupService.class);
+
+    private static final int CHUNK = 1000;
+
+    // Changes that committed just before the previous run started are read again; re-reading is harmless
+    private static final long OVERLAP_MINUTES = 5;
+
+    private static final int MAX_RANGE_DAYS = 731;
+
+    private static final String INSERT_ROLLUP = "INSERT INTO inventory_rollups "
+            + "(rollup_date, category, total_value, units, sku_count, low_stock_count, computed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_STATE = "INSERT INTO inventory_rollup_state "
+            + "(product_id, category, stock, price, low_stock) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private InventoryRollupRepository inventoryRollupRepository;
+
+    @Autowired
+    private StockWriteBehindBuffer stockWriteBehindBuffer;
+
+    public List<InventoryRollupView> getRollups(LocalDate from, LocalDate to, String category, boolean byCategory) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        if (from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new RuntimeException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        if (category != null) {
+            return inventoryRollupRepository.findByCategory(from, to, category);
+        }
+        return byCategory ? inventoryRollupRepository.findByCategories(from, to) : inventoryRollupRepository.findTotals(from, to);
+    }
+
+    // Shortly after midnight, for the day that just ended
+    @Scheduled(cron = "${app.rollup.cron:0 5 0 * * *}")
+    public void scheduledRollup() {
+        RollupRun run = rollup(LocalDate.now().minusDays(1));
+        log.info("Inventory rollup for {}: {} products changed, {} categories, {} ms",
+                run.date(), run.productsChanged(), run.categories(), run.elapsedMs());
+    }
+
+    public synchronized RollupRun rollup(LocalDate date) {
+        // A future day would move the checkpoint past today and lock every real day out
+        if (date.isAfter(LocalDate.now())) {
+            throw new RuntimeException("Cannot roll up a day after today");
+        }
+        long start = System.nanoTime();
+        // Buffered stock deltas must be in products before it is read
+        stockWriteBehindBuffer.flush();
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            long maxMovementId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM stock_movements", Long.class);
+            List<Checkpoint> checkpoint = jdbcTemplate.query("SELECT rollup_date, computed_at, last_movement_id, "
+                    + "previous_movement_id FROM inventory_rollup_checkpoint WHERE id = 1",
+                    (rs, rowNum) -> new Checkpoint(rs.getDate(1).toLocalDate(), rs.getTimestamp(2).toLocalDateTime(),
+                            rs.getLong(3), rs.getLong(4)));
+
+            Map<String, Totals> totals;
+            int changed;
+            long lastMovementId = 0;
+            if (checkpoint.isEmpty()) {
+                totals = fullRollup();
+                changed = -1;
+            } else {
+                Checkpoint last = checkpoint.get(0);
+                if (date.isBefore(last.date())) {
+                    throw new RuntimeException("Rollups already exist up to " + last.date());
+                }
+                lastMovementId = last.lastMovementId();
+                totals = loadTotals(last.date());
+                // Deletions are read one run behind, so one that committed after the last run read its max id is still seen
+                changed = applyChanges(totals, last.computedAt().minusMinutes(OVERLAP_MINUTES), last.previousMovementId());
+            }
+
+            writeTotals(date, totals, now);
+            writeCheckpoint(date, now, maxMovementId, lastMovementId);
+            return new RollupRun(date, changed < 0, Math.max(changed, 0),
+                    (int) totals.values().stream().filter(t -> t.skuCount > 0).count(),
+                    (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    // First run: everything is new, so the state table is filled from products in one statement
+    private Map<String, Totals> fullRollup() {
+        jdbcTemplate.update("DELETE FROM inventory_rollup_state");
+        jdbcTemplate.update("INSERT INTO inventory_rollup_state (product_id, category, stock, price, low_stock) "
+                + "SELECT id, category, stock, price, CASE WHEN stock <= low_stock_threshold THEN TRUE ELSE FALSE END "
+                + "FROM products");
+        Map<String, Totals> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT category, SUM(stock * price), SUM(stock), COUNT(*), "
+                + "SUM(CASE WHEN low_stock THEN 1 ELSE 0 END) FROM inventory_rollup_state GROUP BY category",
+                rs -> {
+                    totals.put(rs.getString(1), new Totals(rs.getBigDecimal(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+                });
+        return totals;
+    }
+
+    private Map<String, Totals> loadTotals(LocalDate date) {
+        Map<String, Totals> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT category, total_value, units, sku_count, low_stock_count FROM inventory_rollups "
+                + "WHERE rollup_date = ?", rs -> {
+                    totals.put(rs.getString(1), new Totals(rs.getBigDecimal(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+                }, Date.valueOf(date));
+        return totals;
+    }
+
+    private int applyChanges(Map<String, Totals> totals, LocalDateTime since, long movementWatermark) {
+        Set<Long> changed = new LinkedHashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE updated_at >= ?", Long.class, Timestamp.valueOf(since)));
+        // Deleted products leave no row behind, only a REMOVED movement
+        changed.addAll(jdbcTemplate.queryForList("SELECT DISTINCT product_id FROM stock_movements "
+                + "WHERE id > ? AND reason = 'REMOVED'", Long.class, movementWatermark));
+
+        List<Long> ids = new ArrayList<>(changed);
+        for (int from = 0; from < ids.size(); from += CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK, ids.size()));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            Object[] args = chunk.toArray();
+
+            jdbcTemplate.query("SELECT category, stock, price, low_stock FROM inventory_rollup_state "
+                    + "WHERE product_id IN (" + in + ")", rs -> {
+                        totals.computeIfAbsent(rs.getString(1), c -> new Totals())
+                                .add(-1, rs.getInt(2), rs.getBigDecimal(3), rs.getBoolean(4));
+                    }, args);
+
+            List<Object[]> states = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, category, stock, price, low_stock_threshold FROM products "
+                    + "WHERE id IN (" + in + ")", rs -> {
+                        boolean low = rs.getInt(3) <= rs.getInt(5);
+                        totals.computeIfAbsent(rs.getString(2), c -> new Totals())
+                                .add(1, rs.getInt(3), rs.getBigDecimal(4), low);
+                        states.add(new Object[] {rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getBigDecimal(4), low});
+                    }, args);
+
+            jdbcTemplate.update("DELETE FROM inventory_rollup_state WHERE product_id IN (" + in + ")", args);
+            jdbcTemplate.batchUpdate(INSERT_STATE, states);
+        }
+        return ids.size();
+    }
+
+    private void writeTotals(LocalDate date, Map<String, Totals> totals, LocalDateTime now) {
+        jdbcTemplate.update("DELETE FROM inventory_rollups WHERE rollup_date = ?", Date.valueOf(date));
+        List<Object[]> rows = new ArrayList<>();
+        totals.forEach((category, t) -> {
+            if (t.skuCount > 0) {
+                rows.add(new Object[] {Date.valueOf(date), category, t.value, t.units, t.skuCount,
+                        t.lowStockCount, Timestamp.valueOf(now)});
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_ROLLUP, rows);
+    }
+
+    private void writeCheckpoint(LocalDate date, LocalDateTime now, long lastMovementId, long previousMovementId) {
+        int updated = jdbcTemplate.update("UPDATE inventory_rollup_checkpoint SET rollup_date = ?, computed_at = ?, "
+                + "last_movement_id = ?, previous_movement_id = ? WHERE id = 1",
+                Date.valueOf(date), Timestamp.valueOf(now), lastMovementId, previousMovementId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO inventory_rollup_checkpoint "
+                    + "(id, rollup_date, computed_at, last_movement_id, previous_movement_id) VALUES (1, ?, ?, ?, ?)",
+                    Date.valueOf(date), Timestamp.valueOf(now), lastMovementId, previousMovementId);
+        }
+    }
+
+    private record Checkpoint(LocalDate date, LocalDateTime computedAt, long lastMovementId, long previousMovementId) {}
+
+    private static class Totals {
+        BigDecimal value = BigDecimal.ZERO;
+        long units;
+        long skuCount;
+        long lowStockCount;
+
+        Totals() {}
+
+        Totals(BigDecimal value, long units, long skuCount, long lowStockCount) {
+            this.value = value == null ? BigDecimal.ZERO : value;
+            this.units = units;
+            this.skuCount = skuCount;
+            this.lowStockCount = lowStockCount;
+        }
+
+        // sign -1 removes a product's old contribution, +1 adds its new one
+        void add(int sign, int stock, BigDecimal price, boolean low) {
+            value = value.add(price.multiply(BigDecimal.valueOf((long) sign * stock)));
+            units += (long) sign * stock;
+            skuCount += sign;
+            if (low) {
+                lowStockCount += sign;
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.klef.cicd.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.klef.cicd.dto.LocationStockView;
+import com.klef.cicd.event.StockChangedEvent;
+import com.klef.cicd.model.Location;
+import com.klef.cicd.model.StockMovementReason;
+import com.klef.cicd.repository.LocationRepository;
+import com.klef.cicd.repository.LocationStockRepository;
+import com.klef.cicd.repository.ProductRepository;
+
+/**
+ * Stock per product and location.
+ *
+ * Every change is a single guarded UPDATE of one location_stock row, so
+ * work at different locations never waits on the same row or lock. The
+ * cross-location total stays in {@code products.stock} and is updated in
+ * the same transaction, so it never misses a committed location change.
+ * With {@code app.stock.write-behind.enabled} location deltas are instead
+ * handed to {@link StockWriteBehindBuffer} after commit and applied to the
+ * total in coalesced batches. Product-level writes that name no location
+ * apply to the default location.
+ */
+@Service
+public class LocationStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationStockService.class);
+
+    private static final String CHANGE_STOCK = "UPDATE location_stock SET stock = stock + ?, updated_at = ? "
+            + "WHERE product_id = ? AND location_id = ? AND stock + ? >= 0";
+
+    private static final String INSERT_STOCK = "INSERT INTO location_stock "
+            + "(product_id, location_id, stock, updated_at) VALUES (?, ?, ?, ?)";
+
+    // Products from before locations existed keep all their stock at the default location
+    private static final String BACKFILL_DEFAULT = "INSERT INTO location_stock (product_id, location_id, stock, updated_at) "
+            + "SELECT p.id, ?, p.stock, ? FROM products p "
+            + "WHERE NOT EXISTS (SELECT 1 FROM location_stock ls WHERE ls.product_id = p.id)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationStockRepository locationStockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockWriteBehindBuffer stockWriteBehindBuffer;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.locations.default-code:MAIN}")
+    private String defaultLocationCode;
+
+    @Value("${app.locations.default-name:Main warehouse}")
+    private String defaultLocationName;
+
+    private volatile Long defaultLocationId;
+
+    public List<Location> getAllLocations() {
+        return locationRepository.findAll();
+    }
+
+    public Location createLocation(Location location) {
+        if (location.getCode() == null || location.getCode().isBlank() || location.getName() == null) {
+            throw new RuntimeException("Location code and name are required");
+        }
+        if (locationRepository.existsByCode(location.getCode())) {
+            throw new RuntimeException("Location code already exists");
+        }
+        return locationRepository.save(location);
+    }
+
+    public List<LocationStockView> getStockAtLocation(Long locationId) {
+        return locationStockRepository.findByLocationId(locationId);
+    }
+
+    public List<LocationStockView> getLowStockProducts(Long locationId) {
+        return locationStockRepository.findLowStockProducts(locationId);
+    }
+
+    public List<LocationStockView> getProductLocations(Long productId) {
+        return locationStockRepository.findByProductId(productId);
+    }
+
+    @Transactional
+    public LocationStockView adjustStock(Long locationId, Long productId, int delta, String username) {
+        changeStock(productId, locationId, delta);
+        if (stockWriteBehindBuffer.isEnabled()) {
+            afterCommit(() -> stockWriteBehindBuffer.submit(productId, delta));
+        } else {
+            if (productRepository.adjustStock(productId, delta, LocalDateTime.now()) == 0) {
+                throw new RuntimeException("Insufficient stock");
+            }
+            int stock = productRepository.findStockById(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            stockLedgerService.record(productId, delta, stock, StockMovementReason.ADJUSTMENT, username);
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+        return locationStockRepository.findView(productId, locationId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+
+    // Moves stock between two locations; the product total does not change
+    @Transactional
+    public List<LocationStockView> transfer(Long productId, Long fromLocationId, Long toLocationId, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        if (fromLocationId.equals(toLocationId)) {
+            throw new RuntimeException("Source and destination must differ");
+        }
+        // Lock the two rows in id order so opposite transfers cannot deadlock
+        if (fromLocationId < toLocationId) {
+            changeStock(productId, fromLocationId, -quantity);
+            changeStock(productId, toLocationId, quantity);
+        } else {
+            changeStock(productId, toLocationId, quantity);
+            changeStock(productId, fromLocationId, -quantity);
+        }
+        return locationStockRepository.findByProductId(productId);
+    }
+
+    @Transactional
+    public LocationStockView setLowStockThreshold(Long locationId, Long productId, Integer threshold) {
+        int updated = jdbcTemplate.update("UPDATE location_stock SET low_stock_threshold = ? "
+                + "WHERE product_id = ? AND location_id = ?", threshold, productId, locationId);
+        if (updated == 0) {
+            throw new RuntimeException("Product is not stocked at this location");
+        }
+        return locationStockRepository.findView(productId, locationId)
+                .orElseThrow(() -> new RuntimeException("Product is not stocked at this location"));
+    }
+
+    // Used by product-level writes inside their own transaction; the caller maintains products.stock
+    public void changeStockAtDefault(Long productId, int delta) {
+        changeStock(productId, getDefaultLocationId(), delta);
+    }
+
+    public void deleteProductStock(Long productId) {
+        jdbcTemplate.update("DELETE FROM location_stock WHERE product_id = ?", productId);
+    }
+
+    public Long getDefaultLocationId() {
+        Long id = defaultLocationId;
+        if (id == null) {
+            synchronized (this) {
+                if (defaultLocationId == null) {
+                    defaultLocationId = locationRepository.findByCode(defaultLocationCode)
+                            .orElseGet(() -> locationRepository.save(new Location(defaultLocationCode, defaultLocationName)))
+                            .getId();
+                }
+                id = defaultLocationId;
+            }
+        }
+        return id;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        Long locationId = getDefaultLocationId();
+        stockWriteBehindBuffer.flush();
+        int backfilled = jdbcTemplate.update(BACKFILL_DEFAULT, locationId, Timestamp.valueOf(LocalDateTime.now()));
+        if (backfilled > 0) {
+            log.info("Location stock: {} products placed at {}", backfilled, defaultLocationCode);
+        }
+    }
+
+    private void changeStock(Long productId, Long locationId, int delta) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (jdbcTemplate.update(CHANGE_STOCK, delta, now, productId, locationId, delta) == 1) {
+            return;
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new RuntimeException("Product not found");
+        }
+        if (!locationRepository.existsById(locationId)) {
+            throw new RuntimeException("Location not found");
+        }
+        if (delta < 0) {
+            throw new RuntimeException("Insufficient stock");
+        }
+        // First stock of this product at this location
+        try {
+            jdbcTemplate.update(INSERT_STOCK, productId, locationId, delta, now);
+        } catch (DataIntegrityViolationException e) {
+            // Another request created the row first
+            jdbcTemplate.update(CHANGE_STOCK, delta, now, productId, locationId, delta);
+        }
+    }
+
+    // Runs before after-commit event listeners, so they already see the buffered delta
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+}
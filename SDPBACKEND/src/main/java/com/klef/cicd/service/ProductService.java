@@ -1,42 +1,138 @@
 package com.klef.cicd.service;
 
+import com.klef.cicd.dto.BatchResult;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.event.StockChangedEvent;
+import com.klef.cicd.model.AuditAction;
 import com.klef.cicd.model.Product;
+import com.klef.cicd.model.StockMovementReason;
 import com.klef.cicd.model.User;
 import com.klef.cicd.repository.ProductRepository;
 import com.klef.cicd.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @Service
 public class ProductService {
     
+    private static final FieldProjection PRODUCT_FIELDS = new FieldProjection("products p", "p.id")
+            .column("id", "p.id", Long.class)
+            .column("name", "p.name", String.class)
+            .column("category", "p.category", String.class)
+            .column("stock", "p.stock", Integer.class)
+            .column("price", "p.price", BigDecimal.class)
+            .column("lowStockThreshold", "p.low_stock_threshold", Integer.class)
+            .column("createdAt", "p.created_at", LocalDateTime.class)
+            .column("updatedAt", "p.updated_at", LocalDateTime.class);
+    
     @Autowired
     private ProductRepository productRepository;
     
     @Autowired
     private UserRepository userRepository;
     
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    
+    @Autowired
+    private StockWriteBehindBuffer stockWriteBehindBuffer;
+    
+    @Autowired
+    private LocationStockService locationStockService;
+    
+    @Autowired
+    private ProductSupplierService productSupplierService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private StaleWhileRevalidate staleWhileRevalidate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private BatchLookup batchLookup;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    public List<ProductView> getAllProducts() {
+        return staleWhileRevalidate.read("products.all",
+                () -> stockWriteBehindBuffer.read(() -> withPendingStock(productRepository.findAllViews())));
+    }
+    
+    // Only the requested columns are selected; stock still includes write-behind deltas not yet flushed
+    public List<Map<String, Object>> getAllProducts(String fields) {
+        List<String> selected = PRODUCT_FIELDS.resolve(fields);
+        return stockWriteBehindBuffer.read(() -> {
+            List<Map<String, Object>> rows = PRODUCT_FIELDS.query(jdbcTemplate, selected);
+            if (selected.contains("stock") && !stockWriteBehindBuffer.pendingProductIds().isEmpty()) {
+                for (Map<String, Object> row : rows) {
+                    long pending = stockWriteBehindBuffer.pendingDelta((Long) row.get("id"));
+                    if (pending != 0) {
+                        row.put("stock", (int) ((Integer) row.get("stock") + pending));
+                    }
+                }
+            }
+            return rows;
+        });
+    }
+    
+    public Optional<ProductView> getProductById(Long id) {
+        return stockWriteBehindBuffer.read(() -> productRepository.findViewById(id).map(this::withPendingStock));
+    }
+    
+    public List<ProductView> getProductsByIds(Collection<Long> ids) {
+        return stockWriteBehindBuffer.read(() -> withPendingStock(productRepository.findViewsByIds(ids)));
     }
     
-    public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+    public BatchResult<ProductView> getProductsBatch(List<Long> ids) {
+        return batchLookup.fetch("product", ids, this::getProductsByIds, ProductView::id);
     }
     
-    public Product createProduct(Product product, String username) {
+    @Transactional
+    public ProductView createProduct(Product product, String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         product.setUser(user);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        locationStockService.changeStockAtDefault(saved.getId(), saved.getStock());
+        stockLedgerService.record(saved.getId(), saved.getStock(), saved.getStock(), StockMovementReason.INITIAL, username);
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(saved.getId())));
+        auditService.record(AuditAction.CREATE, "product", saved.getId(), username, saved.getName());
+        return ProductView.from(saved);
+    }
+    
+    public ProductView updateProduct(Long id, Product productDetails, String username) {
+        // An absolute stock value must not be overtaken by deltas still in the buffer
+        flushPendingStock();
+        return transactionTemplate.execute(status -> applyUpdate(id, productDetails, username));
     }
     
-    public Product updateProduct(Long id, Product productDetails, String username) {
+    private ProductView applyUpdate(Long id, Product productDetails, String username) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
+        int previousStock = product.getStock();
         
         product.setName(productDetails.getName());
         product.setCategory(productDetails.getCategory());
@@ -44,33 +140,153 @@ public class ProductService {
         product.setPrice(productDetails.getPrice());
         product.setLowStockThreshold(productDetails.getLowStockThreshold());
         
-        return productRepository.save(product);
+        // The difference is booked at the default location, before the products row is locked
+        if (product.getStock() != previousStock) {
+            locationStockService.changeStockAtDefault(id, product.getStock() - previousStock);
+        }
+        
+        // Flush so @PreUpdate has stamped updatedAt before the view is built
+        Product saved = productRepository.saveAndFlush(product);
+        if (saved.getStock() != previousStock) {
+            stockLedgerService.record(id, saved.getStock() - previousStock, saved.getStock(),
+                    StockMovementReason.ADJUSTMENT, username);
+        }
+        // Also sent when only threshold, price or category changed; listeners re-read the product
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(id)));
+        auditService.record(AuditAction.UPDATE, "product", id, username, saved.getName());
+        return ProductView.from(saved);
     }
     
-    public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new RuntimeException("Product not found");
+    @Transactional
+    public ProductView adjustStock(Long id, int delta, String username) {
+        if (stockWriteBehindBuffer.isEnabled()) {
+            // Same path as a location update; the total catches up at the next flush
+            locationStockService.adjustStock(locationStockService.getDefaultLocationId(), id, delta, username);
+            ProductView product = getProductById(id).orElseThrow(() -> new RuntimeException("Product not found"));
+            auditService.record(AuditAction.UPDATE, "product", id, username, "stock " + signed(delta));
+            // The delta is buffered only after commit, so add it to the returned view here
+            return product.withStock(product.stock() + delta);
         }
-        productRepository.deleteById(id);
+        
+        locationStockService.changeStockAtDefault(id, delta);
+        if (productRepository.adjustStock(id, delta, LocalDateTime.now()) == 0) {
+            productRepository.findStockById(id).orElseThrow(() -> new RuntimeException("Product not found"));
+            throw new RuntimeException("Insufficient stock");
+        }
+        ProductView adjusted = productRepository.findViewById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        stockLedgerService.record(id, delta, adjusted.stock(), StockMovementReason.ADJUSTMENT, username);
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(id)));
+        auditService.record(AuditAction.UPDATE, "product", id, username, "stock " + signed(delta));
+        return adjusted;
+    }
+    
+    public void deleteProduct(Long id, String username) {
+        flushPendingStock();
+        transactionTemplate.executeWithoutResult(status -> applyDelete(id, username));
+    }
+    
+    private void applyDelete(Long id, String username) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        productRepository.delete(product);
+        locationStockService.deleteProductStock(id);
+        productSupplierService.deleteForProduct(id);
+        stockLedgerService.record(id, -product.getStock(), 0, StockMovementReason.REMOVED, username);
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(id)));
+        auditService.record(AuditAction.DELETE, "product", id, username, product.getName());
+    }
+    
+    public List<ProductView> getProductsByCategory(String category) {
+        return stockWriteBehindBuffer.read(() -> withPendingStock(productRepository.findByCategory(category)));
+    }
+    
+    public List<ProductView> searchProducts(String name) {
+        return stockWriteBehindBuffer.read(
+                () -> withPendingStock(productRepository.findByNameContainingIgnoreCase(name)));
     }
     
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category);
+    // Polled by every open dashboard; concurrent calls share one query, and a stalled database serves the last result
+    public List<ProductView> getLowStockProducts() {
+        return staleWhileRevalidate.read("products.low-stock", this::loadLowStockProducts);
     }
     
-    public List<Product> searchProducts(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+    private List<ProductView> loadLowStockProducts() {
+        return stockWriteBehindBuffer.read(
+                () -> withPendingMatches(productRepository.findLowStockProducts(), product -> headroom(product) <= 0));
     }
     
-    public List<Product> getLowStockProducts() {
-        return productRepository.findLowStockProducts();
+    // In stock but at most `within` units above the threshold, closest to it first
+    public List<ProductView> getNearlyLowStockProducts(int within) {
+        if (within < 1) {
+            throw new RuntimeException("within must be at least 1");
+        }
+        List<ProductView> products = stockWriteBehindBuffer.read(
+                () -> withPendingMatches(productRepository.findNearlyLowStockProducts(within),
+                        product -> headroom(product) > 0 && headroom(product) <= within));
+        products.sort(Comparator.comparingInt(ProductService::headroom).thenComparing(ProductView::id));
+        return products;
     }
     
     public long getLowStockCount() {
-        return productRepository.countLowStockProducts();
+        return stockWriteBehindBuffer.read(() -> stockWriteBehindBuffer.pendingProductIds().isEmpty()
+                ? productRepository.countLowStockProducts()
+                : loadLowStockProducts().size());
     }
     
     public long getTotalProductsCount() {
         return productRepository.count();
     }
+    
+    // Runs before the caller's transaction opens: the flush commits on a connection of its own, and taking
+    // it while already holding one would let concurrent writes exhaust the pool
+    private void flushPendingStock() {
+        if (stockWriteBehindBuffer.isEnabled()) {
+            stockWriteBehindBuffer.flush();
+        }
+    }
+    
+    private List<ProductView> withPendingStock(List<ProductView> products) {
+        if (stockWriteBehindBuffer.pendingProductIds().isEmpty()) {
+            return products;
+        }
+        List<ProductView> result = new ArrayList<>(products.size());
+        for (ProductView product : products) {
+            result.add(withPendingStock(product));
+        }
+        return result;
+    }
+    
+    // Re-checks products with buffered deltas, which can move a product into or out of the matching range
+    private List<ProductView> withPendingMatches(List<ProductView> matches, Predicate<ProductView> matching) {
+        Set<Long> pending = stockWriteBehindBuffer.pendingProductIds();
+        if (pending.isEmpty()) {
+            return new ArrayList<>(matches);
+        }
+        List<ProductView> result = new ArrayList<>();
+        for (ProductView product : matches) {
+            if (!pending.contains(product.id())) {
+                result.add(product);
+            }
+        }
+        for (ProductView product : withPendingStock(productRepository.findViewsByIds(pending))) {
+            if (matching.test(product)) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+    
+    private static int headroom(ProductView product) {
+        return product.stock() - product.lowStockThreshold();
+    }
+    
+    private static String signed(int delta) {
+        return delta >= 0 ? "+" + delta : String.valueOf(delta);
+    }
+    
+    private ProductView withPendingStock(ProductView product) {
+        long pending = stockWriteBehindBuffer.pendingDelta(product.id());
+        return pending == 0 ? product : product.withStock((int) (product.stock() + pending));
+    }
 }
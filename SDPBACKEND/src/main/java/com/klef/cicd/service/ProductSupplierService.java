@@ -0,0 +1,89 @@
+package com.klef.cicd.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.klef.cicd.dto.ProductSupplierRequest;
+import com.klef.cicd.dto.ProductSupplierView;
+import com.klef.cicd.model.ProductSupplier;
+import com.klef.cicd.repository.ProductRepository;
+import com.klef.cicd.repository.ProductSupplierRepository;
+import com.klef.cicd.repository.SupplierRepository;
+
+@Service
+public class ProductSupplierService {
+    
+    @Autowired
+    private ProductSupplierRepository productSupplierRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private SupplierRepository supplierRepository;
+    
+    public List<ProductSupplierView> getSuppliersForProduct(Long productId) {
+        return productSupplierRepository.findByProductId(productId);
+    }
+    
+    public List<ProductSupplierView> getProductsForSupplier(Long supplierId) {
+        return productSupplierRepository.findBySupplierId(supplierId);
+    }
+    
+    // Creates or updates the link; the first supplier of a product becomes its preferred one
+    @Transactional
+    public List<ProductSupplierView> linkSupplier(Long productId, ProductSupplierRequest request) {
+        if (request.getSupplierId() == null) {
+            throw new RuntimeException("supplierId is required");
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new RuntimeException("Product not found");
+        }
+        if (!supplierRepository.existsById(request.getSupplierId())) {
+            throw new RuntimeException("Supplier not found");
+        }
+        
+        ProductSupplier link = productSupplierRepository.findByProductIdAndSupplierId(productId, request.getSupplierId())
+                .orElseGet(() -> {
+                    ProductSupplier created = new ProductSupplier();
+                    created.setProductId(productId);
+                    created.setSupplierId(request.getSupplierId());
+                    created.setPreferred(productSupplierRepository.findByProductId(productId).isEmpty());
+                    created.setCreatedAt(LocalDateTime.now());
+                    return created;
+                });
+        if (request.getPreferred() != null) {
+            link.setPreferred(request.getPreferred());
+        }
+        link.setUnitCost(request.getUnitCost());
+        link.setLeadTimeDays(request.getLeadTimeDays());
+        link.setMinOrderQuantity(request.getMinOrderQuantity());
+        productSupplierRepository.save(link);
+        
+        if (link.isPreferred()) {
+            productSupplierRepository.clearPreferred(productId, request.getSupplierId());
+        }
+        return productSupplierRepository.findByProductId(productId);
+    }
+    
+    @Transactional
+    public void unlinkSupplier(Long productId, Long supplierId) {
+        ProductSupplier link = productSupplierRepository.findByProductIdAndSupplierId(productId, supplierId)
+                .orElseThrow(() -> new RuntimeException("Supplier is not linked to this product"));
+        productSupplierRepository.delete(link);
+    }
+    
+    @Transactional
+    public void deleteForProduct(Long productId) {
+        productSupplierRepository.deleteByProductId(productId);
+    }
+    
+    @Transactional
+    public void deleteForSupplier(Long supplierId) {
+        productSupplierRepository.deleteBySupplierId(supplierId);
+    }
+}
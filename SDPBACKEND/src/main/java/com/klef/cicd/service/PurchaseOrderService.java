@@ -0,0 +1,112 @@
+package com.klef.cicd.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.PurchaseOrderLineView;
+import com.klef.cicd.dto.PurchaseOrderView;
+import com.klef.cicd.dto.ReplenishmentRun;
+import com.klef.cicd.model.PurchaseOrder;
+import com.klef.cicd.model.PurchaseOrderLine;
+import com.klef.cicd.model.PurchaseOrderStatus;
+import com.klef.cicd.repository.PurchaseOrderLineRepository;
+import com.klef.cicd.repository.PurchaseOrderRepository;
+
+@Service
+public class PurchaseOrderService {
+    
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+    
+    @Autowired
+    private PurchaseOrderLineRepository purchaseOrderLineRepository;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ReplenishmentService replenishmentService;
+    
+    public List<PurchaseOrderView> getPurchaseOrders(PurchaseOrderStatus status) {
+        List<PurchaseOrderView> orders = status == null
+                ? purchaseOrderRepository.findAllViews()
+                : purchaseOrderRepository.findViewsByStatus(status);
+        return withLines(orders);
+    }
+    
+    public PurchaseOrderView getPurchaseOrder(Long id) {
+        PurchaseOrderView order = purchaseOrderRepository.findViewById(id)
+                .orElseThrow(() -> new RuntimeException("Purchase order not found"));
+        return withLines(List.of(order)).get(0);
+    }
+    
+    @Transactional
+    public PurchaseOrderView submit(Long id) {
+        moveTo(id, PurchaseOrderStatus.DRAFT, PurchaseOrderStatus.SUBMITTED);
+        return getPurchaseOrder(id);
+    }
+    
+    @Transactional
+    public PurchaseOrderView cancel(Long id) {
+        PurchaseOrder order = findOrder(id);
+        if (order.getStatus() != PurchaseOrderStatus.DRAFT && order.getStatus() != PurchaseOrderStatus.SUBMITTED) {
+            throw new RuntimeException("Only draft or submitted orders can be cancelled");
+        }
+        order.setStatus(PurchaseOrderStatus.CANCELLED);
+        purchaseOrderRepository.save(order);
+        // Its products are no longer on order, so look at them again next window
+        replenishmentService.markDirty(purchaseOrderLineRepository.findByPurchaseOrderId(id).stream()
+                .map(PurchaseOrderLine::getProductId).toList());
+        return getPurchaseOrder(id);
+    }
+    
+    // Books every line into stock at the default location
+    @Transactional
+    public PurchaseOrderView receive(Long id, String username) {
+        moveTo(id, PurchaseOrderStatus.SUBMITTED, PurchaseOrderStatus.RECEIVED);
+        for (PurchaseOrderLine line : purchaseOrderLineRepository.findByPurchaseOrderId(id)) {
+            productService.adjustStock(line.getProductId(), line.getQuantity(), username);
+        }
+        return getPurchaseOrder(id);
+    }
+    
+    // Queues every product currently at or below its threshold and evaluates now
+    public ReplenishmentRun replenishNow() {
+        replenishmentService.markDirty(productService.getLowStockProducts().stream().map(ProductView::id).toList());
+        return replenishmentService.evaluatePending();
+    }
+    
+    private void moveTo(Long id, PurchaseOrderStatus from, PurchaseOrderStatus to) {
+        PurchaseOrder order = findOrder(id);
+        if (order.getStatus() != from) {
+            throw new RuntimeException("Purchase order is " + order.getStatus().name().toLowerCase()
+                    + ", expected " + from.name().toLowerCase());
+        }
+        order.setStatus(to);
+        purchaseOrderRepository.save(order);
+    }
+    
+    private PurchaseOrder findOrder(Long id) {
+        return purchaseOrderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Purchase order not found"));
+    }
+    
+    // One query for the lines of all listed orders
+    private List<PurchaseOrderView> withLines(List<PurchaseOrderView> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, List<PurchaseOrderLineView>> lines = purchaseOrderLineRepository
+                .findViewsByPurchaseOrderIds(orders.stream().map(PurchaseOrderView::id).toList()).stream()
+                .collect(Collectors.groupingBy(PurchaseOrderLineView::purchaseOrderId));
+        return orders.stream()
+                .map(order -> order.withLines(lines.getOrDefault(order.id(), List.of())))
+                .toList();
+    }
+}
@@ -0,0 +1,180 @@
+package com.klef.cicd.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.klef.cicd.dto.HistogramBin;
+
+/**
+ * Mergeable quantile sketch with relative accuracy and a fixed bucket budget.
+ *
+ * Positive values are counted in logarithmic buckets: bucket i holds
+ * (gamma^(i-1), gamma^i], so every quantile is within the configured
+ * relative error of the true value. Zero gets its own counter. Because a
+ * bucket is only a count, a value can be removed as well as added, which
+ * lets the sketch follow products whose stock or price changes in place.
+ * At most {@code maxBuckets} buckets are kept; beyond that the lowest ones
+ * are collapsed together, trading accuracy at the bottom for bounded memory.
+ * Queries walk the buckets, so their cost depends on the value range, not
+ * on how many values were added.
+ */
+public class QuantileSketch {
+
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+
+    // counts[k] is bucket offset + k
+    private int[] counts = new int[0];
+    private int offset;
+    private int collapsedBelow = Integer.MIN_VALUE;
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+    }
+
+    public void add(double value) {
+        count++;
+        if (value <= 0) {
+            zeroCount++;
+            return;
+        }
+        // slot() may replace the array, so it must run before counts is read
+        int k = slot(index(value));
+        counts[k]++;
+    }
+
+    // Removes a value added earlier; values that were never added are ignored
+    public void remove(double value) {
+        if (value <= 0) {
+            if (zeroCount > 0) {
+                zeroCount--;
+                count--;
+            }
+            return;
+        }
+        int k = index(value) - offset;
+        if (k >= 0 && k < counts.length && counts[k] > 0) {
+            counts[k]--;
+            count--;
+        }
+    }
+
+    public void merge(QuantileSketch other) {
+        zeroCount += other.zeroCount;
+        count += other.zeroCount;
+        for (int k = 0; k < other.counts.length; k++) {
+            int n = other.counts[k];
+            if (n > 0) {
+                int slot = slot(Math.max(other.offset + k, collapsedBelow));
+                counts[slot] += n;
+                count += n;
+            }
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    // q in [0, 1]; NaN when the sketch is empty
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int k = 0; k < counts.length; k++) {
+            seen += counts[k];
+            if (seen > rank) {
+                return 2 * Math.pow(gamma, offset + k) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1);
+    }
+
+    // Non-empty range split into at most maxBins bins of equal width in log space
+    public List<HistogramBin> histogram(int maxBins) {
+        List<HistogramBin> bins = new ArrayList<>();
+        if (zeroCount > 0) {
+            bins.add(new HistogramBin(0, 0, zeroCount));
+        }
+        int first = 0;
+        while (first < counts.length && counts[first] == 0) {
+            first++;
+        }
+        int last = counts.length - 1;
+        while (last >= first && counts[last] == 0) {
+            last--;
+        }
+        if (first > last) {
+            return bins;
+        }
+        int span = last - first + 1;
+        int width = (span + maxBins - 1) / maxBins;
+        for (int start = first; start <= last; start += width) {
+            int end = Math.min(start + width - 1, last);
+            long n = 0;
+            for (int k = start; k <= end; k++) {
+                n += counts[k];
+            }
+            if (n > 0) {
+                bins.add(new HistogramBin(Math.pow(gamma, offset + start - 1), Math.pow(gamma, offset + end), n));
+            }
+        }
+        return bins;
+    }
+
+    private int index(double value) {
+        return Math.max((int) Math.ceil(Math.log(value) / logGamma), collapsedBelow);
+    }
+
+    // Position of a bucket in counts, growing the window or collapsing its bottom as needed
+    private int slot(int index) {
+        if (counts.length == 0) {
+            counts = new int[1];
+            offset = index;
+            return 0;
+        }
+        int top = offset + counts.length - 1;
+        if (index < offset) {
+            int lowest = Math.max(index, top - maxBuckets + 1);
+            if (lowest < offset) {
+                int[] grown = new int[top - lowest + 1];
+                System.arraycopy(counts, 0, grown, offset - lowest, counts.length);
+                counts = grown;
+                offset = lowest;
+            }
+            if (index < offset) {
+                collapsedBelow = offset;
+            }
+            return Math.max(index, offset) - offset;
+        }
+        if (index > top) {
+            int newOffset = Math.max(offset, index - maxBuckets + 1);
+            int[] grown = new int[index - newOffset + 1];
+            int collapsed = 0;
+            for (int i = offset; i <= top; i++) {
+                if (i < newOffset) {
+                    collapsed += counts[i - offset];
+                } else {
+                    grown[i - newOffset] = counts[i - offset];
+                }
+            }
+            grown[0] += collapsed;
+            if (newOffset > offset) {
+                collapsedBelow = newOffset;
+            }
+            counts = grown;
+            offset = newOffset;
+        }
+        return index - offset;
+    }
+}
@@ -0,0 +1,207 @@
+package com.klef.cicd.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.ReplenishmentRun;
+import com.klef.cicd.event.StockChangedEvent;
+import com.klef.cicd.model.ProductSupplier;
+import com.klef.cicd.model.PurchaseOrder;
+import com.klef.cicd.model.PurchaseOrderLine;
+import com.klef.cicd.model.PurchaseOrderStatus;
+import com.klef.cicd.repository.ProductSupplierRepository;
+import com.klef.cicd.repository.PurchaseOrderLineRepository;
+import com.klef.cicd.repository.PurchaseOrderRepository;
+import com.klef.cicd.repository.SupplierRepository;
+
+/**
+ * Drafts purchase orders for products that fall to their low-stock threshold.
+ *
+ * Stock-change events only mark products as dirty. Once per window the
+ * dirty set is drained and just those products are evaluated, so a burst
+ * of changes to the same product costs one check, and all products due
+ * from the same supplier land on that supplier's single open draft.
+ * Products already on a draft or submitted order are skipped. Drafts are
+ * written under a row lock on the supplier, which also holds against other
+ * nodes, and the on-order check is repeated under it, so overlapping runs
+ * never open a second draft or order a product twice.
+ */
+@Service
+public class ReplenishmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplenishmentService.class);
+
+    private static final int EVALUATION_CHUNK = 500;
+    private static final List<PurchaseOrderStatus> OPEN_STATUSES = List.of(PurchaseOrderStatus.DRAFT, PurchaseOrderStatus.SUBMITTED);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSupplierRepository productSupplierRepository;
+
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+
+    @Autowired
+    private PurchaseOrderLineRepository purchaseOrderLineRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.replenishment.enabled:true}")
+    private boolean enabled;
+
+    // Products are ordered back up to threshold x factor
+    @Value("${app.replenishment.order-up-to-factor:2}")
+    private int orderUpToFactor;
+
+    private final Set<Long> dirtyProducts = ConcurrentHashMap.newKeySet();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (enabled) {
+            dirtyProducts.addAll(event.productIds());
+        }
+    }
+
+    public void markDirty(List<Long> productIds) {
+        dirtyProducts.addAll(productIds);
+    }
+
+    public int getPendingCount() {
+        return dirtyProducts.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.replenishment.window-ms:60000}",
+            initialDelayString = "${app.replenishment.window-ms:60000}")
+    public void scheduledRun() {
+        if (enabled && !dirtyProducts.isEmpty()) {
+            ReplenishmentRun run = evaluatePending();
+            if (run.linesAdded() > 0) {
+                log.info("Replenishment: {} lines added to purchase orders {}", run.linesAdded(), run.purchaseOrderIds());
+            }
+        }
+    }
+
+    public synchronized ReplenishmentRun evaluatePending() {
+        // Changes that arrive while this runs stay in the set for the next window
+        List<Long> batch = new ArrayList<>(dirtyProducts);
+        batch.forEach(dirtyProducts::remove);
+
+        int belowThreshold = 0;
+        int alreadyOnOrder = 0;
+        int withoutSupplier = 0;
+        int linesAdded = 0;
+        Set<Long> purchaseOrderIds = new HashSet<>();
+        int from = 0;
+        try {
+            for (; from < batch.size(); from += EVALUATION_CHUNK) {
+                List<Long> chunk = batch.subList(from, Math.min(from + EVALUATION_CHUNK, batch.size()));
+
+                List<ProductView> lowStock = new ArrayList<>();
+                for (ProductView product : productService.getProductsByIds(chunk)) {
+                    if (product.stock() <= product.lowStockThreshold()) {
+                        lowStock.add(product);
+                    }
+                }
+                belowThreshold += lowStock.size();
+                if (lowStock.isEmpty()) {
+                    continue;
+                }
+
+                Set<Long> onOrder = new HashSet<>(purchaseOrderLineRepository.findProductIdsOnOrders(
+                        lowStock.stream().map(ProductView::id).toList(), OPEN_STATUSES));
+                lowStock.removeIf(product -> onOrder.contains(product.id()));
+                alreadyOnOrder += onOrder.size();
+
+                Map<Long, ProductSupplier> suppliers = preferredSuppliers(lowStock.stream().map(ProductView::id).toList());
+                Map<Long, List<PurchaseOrderLine>> linesBySupplier = new LinkedHashMap<>();
+                for (ProductView product : lowStock) {
+                    ProductSupplier supplier = suppliers.get(product.id());
+                    if (supplier == null) {
+                        withoutSupplier++;
+                        continue;
+                    }
+                    linesBySupplier.computeIfAbsent(supplier.getSupplierId(), id -> new ArrayList<>())
+                            .add(new PurchaseOrderLine(null, product.id(), orderQuantity(product, supplier), supplier.getUnitCost()));
+                }
+
+                for (Map.Entry<Long, List<PurchaseOrderLine>> entry : linesBySupplier.entrySet()) {
+                    List<PurchaseOrderLine> added = addToDraft(entry.getKey(), entry.getValue());
+                    if (!added.isEmpty()) {
+                        purchaseOrderIds.add(added.get(0).getPurchaseOrderId());
+                    }
+                    linesAdded += added.size();
+                    alreadyOnOrder += entry.getValue().size() - added.size();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Orders already placed show up as on order next time, so the whole unfinished chunk goes back
+            dirtyProducts.addAll(batch.subList(from, batch.size()));
+            throw e;
+        }
+        return new ReplenishmentRun(batch.size(), belowThreshold, alreadyOnOrder, withoutSupplier, linesAdded,
+                purchaseOrderIds.stream().sorted().toList());
+    }
+
+    // Appends to the supplier's open draft, or starts one; returns the lines that were not already on order
+    private List<PurchaseOrderLine> addToDraft(Long supplierId, List<PurchaseOrderLine> lines) {
+        return transactionTemplate.execute(status -> {
+            supplierRepository.lockById(supplierId);
+            // Another node may have ordered some of these since they were checked
+            Set<Long> onOrder = new HashSet<>(purchaseOrderLineRepository.findProductIdsOnOrders(
+                    lines.stream().map(PurchaseOrderLine::getProductId).toList(), OPEN_STATUSES));
+            List<PurchaseOrderLine> toAdd = lines.stream().filter(line -> !onOrder.contains(line.getProductId())).toList();
+            if (toAdd.isEmpty()) {
+                return toAdd;
+            }
+            PurchaseOrder draft = purchaseOrderRepository.findFirstBySupplierIdAndStatus(supplierId, PurchaseOrderStatus.DRAFT)
+                    .orElseGet(() -> purchaseOrderRepository.save(new PurchaseOrder(supplierId, PurchaseOrderStatus.DRAFT)));
+            toAdd.forEach(line -> line.setPurchaseOrderId(draft.getId()));
+            purchaseOrderLineRepository.saveAll(toAdd);
+            return toAdd;
+        });
+    }
+
+    // Preferred link if there is one, otherwise the cheapest
+    private Map<Long, ProductSupplier> preferredSuppliers(List<Long> productIds) {
+        Map<Long, ProductSupplier> chosen = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return chosen;
+        }
+        Comparator<ProductSupplier> better = Comparator.comparing(ProductSupplier::isPreferred)
+                .thenComparing(ProductSupplier::getUnitCost, Comparator.nullsFirst(Comparator.<BigDecimal>reverseOrder()));
+        for (ProductSupplier link : productSupplierRepository.findByProductIdIn(productIds)) {
+            chosen.merge(link.getProductId(), link, (current, candidate) -> better.compare(candidate, current) > 0 ? candidate : current);
+        }
+        return chosen;
+    }
+
+    private int orderQuantity(ProductView product, ProductSupplier supplier) {
+        int needed = product.lowStockThreshold() * orderUpToFactor - product.stock();
+        int minimum = supplier.getMinOrderQuantity() == null ? 1 : supplier.getMinOrderQuantity();
+        return Math.max(Math.max(needed, minimum), 1);
+    }
+}
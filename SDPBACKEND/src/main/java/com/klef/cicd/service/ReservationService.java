@@ -0,0 +1,175 @@
+package com.klef.cicd.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.ReservationView;
+import com.klef.cicd.dto.StockAvailability;
+import com.klef.cicd.model.ReservationStatus;
+import com.klef.cicd.repository.StockReservationRepository;
+
+/**
+ * Time-limited stock holds for pending orders and tasks.
+ *
+ * Availability is checked and taken in {@link StockHoldIndex}; the
+ * stock_reservations table is the durable record and is written with one
+ * single-row statement per call, so reserve and release never touch the
+ * products row. Holds that reach their TTL are expired by a sweeper.
+ * Consuming a hold turns it into a real stock decrement.
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    private static final String INSERT_RESERVATION = "INSERT INTO stock_reservations "
+            + "(id, product_id, quantity, reference, username, status, created_at, expires_at) "
+            + "VALUES (?, ?, ?, ?, ?, 'ACTIVE', ?, ?)";
+
+    // Only the caller that moves a hold out of ACTIVE gives its quantity back
+    private static final String CLOSE_RESERVATION = "UPDATE stock_reservations SET status = ?, closed_at = ? "
+            + "WHERE id = ? AND status = 'ACTIVE'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private StockHoldIndex stockHoldIndex;
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${app.reservations.default-ttl-seconds:900}")
+    private long defaultTtlSeconds;
+
+    @Value("${app.reservations.max-ttl-seconds:86400}")
+    private long maxTtlSeconds;
+
+    @Value("${app.reservations.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    public ReservationView reserve(Long productId, int quantity, Long ttlSeconds, String reference, String username) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        long ttl = ttlSeconds == null ? defaultTtlSeconds : ttlSeconds;
+        if (ttl <= 0 || ttl > maxTtlSeconds) {
+            throw new RuntimeException("TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        if (!stockHoldIndex.tryHold(productId, quantity)) {
+            throw new RuntimeException("Insufficient available stock");
+        }
+
+        String id = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(ttl);
+        try {
+            jdbcTemplate.update(INSERT_RESERVATION, id, productId, quantity, reference, username,
+                    Timestamp.valueOf(now), Timestamp.valueOf(expiresAt));
+        } catch (RuntimeException e) {
+            stockHoldIndex.release(productId, quantity);
+            throw e;
+        }
+        return new ReservationView(id, productId, quantity, reference, username, ReservationStatus.ACTIVE,
+                now, expiresAt, null);
+    }
+
+    public ReservationView release(String id) {
+        ReservationView reservation = getReservation(id);
+        LocalDateTime closedAt = close(reservation, ReservationStatus.RELEASED);
+        stockHoldIndex.release(reservation.productId(), reservation.quantity());
+        return closed(reservation, ReservationStatus.RELEASED, closedAt);
+    }
+
+    // Turns the hold into a permanent stock decrement in one transaction
+    public ReservationView consume(String id, String username) {
+        ReservationView reservation = getReservation(id);
+        LocalDateTime closedAt = transactionTemplate.execute(status -> {
+            LocalDateTime now = close(reservation, ReservationStatus.CONSUMED);
+            productService.adjustStock(reservation.productId(), -reservation.quantity(), username);
+            return now;
+        });
+        stockHoldIndex.release(reservation.productId(), reservation.quantity());
+        return closed(reservation, ReservationStatus.CONSUMED, closedAt);
+    }
+
+    public ReservationView getReservation(String id) {
+        return stockReservationRepository.findViewById(id)
+                .orElseThrow(() -> new RuntimeException("Reservation not found"));
+    }
+
+    public List<ReservationView> getActiveReservations(Long productId) {
+        return stockReservationRepository.findByProductIdAndStatus(productId, ReservationStatus.ACTIVE);
+    }
+
+    public Optional<StockAvailability> getAvailability(Long productId) {
+        return stockHoldIndex.availability(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.sweep-interval-ms:1000}")
+    public void expireReservations() {
+        int expired;
+        do {
+            expired = expireBatch();
+        } while (expired == sweepBatchSize);
+    }
+
+    private int expireBatch() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> expired = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Row locks make a concurrent release or consume wait, then find the hold already closed
+            expired.addAll(jdbcTemplate.query("SELECT id, product_id, quantity FROM stock_reservations "
+                    + "WHERE status = 'ACTIVE' AND expires_at <= ? ORDER BY expires_at LIMIT ? FOR UPDATE",
+                    (rs, rowNum) -> new Object[] {rs.getString(1), rs.getLong(2), rs.getInt(3)},
+                    now, sweepBatchSize));
+            if (!expired.isEmpty()) {
+                jdbcTemplate.batchUpdate(CLOSE_RESERVATION, expired, expired.size(), (ps, row) -> {
+                    ps.setString(1, ReservationStatus.EXPIRED.name());
+                    ps.setTimestamp(2, now);
+                    ps.setString(3, (String) row[0]);
+                });
+            }
+        });
+        for (Object[] row : expired) {
+            stockHoldIndex.release((Long) row[1], (Integer) row[2]);
+        }
+        if (!expired.isEmpty()) {
+            log.debug("Expired {} stock reservations", expired.size());
+        }
+        return expired.size();
+    }
+
+    private LocalDateTime close(ReservationView reservation, ReservationStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = jdbcTemplate.update(CLOSE_RESERVATION, status.name(), Timestamp.valueOf(now), reservation.id());
+        if (updated == 0) {
+            throw new RuntimeException("Reservation is already " + getReservation(reservation.id()).status().name().toLowerCase());
+        }
+        return now;
+    }
+
+    private static ReservationView closed(ReservationView reservation, ReservationStatus status, LocalDateTime closedAt) {
+        return new ReservationView(reservation.id(), reservation.productId(), reservation.quantity(), reservation.reference(),
+                reservation.username(), status, reservation.createdAt(), reservation.expiresAt(), closedAt);
+    }
+}
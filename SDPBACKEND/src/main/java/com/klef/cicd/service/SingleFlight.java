@@ -0,0 +1,129 @@
+package com.klef.cicd.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Collapses concurrent identical reads into one computation.
+ *
+ * The first caller for a key runs the loader; callers that arrive while it
+ * is running wait for that result instead of running their own queries.
+ * The entry is dropped just before the result is handed out, so nothing is
+ * cached past the in-flight call: a caller may share a query that started
+ * shortly before its request arrived, never one that had already finished.
+ *
+ * Each method can be turned off with app.single-flight.{method}.enabled=false.
+ * Calls are counted in app.single-flight.calls, tagged executed or coalesced.
+ */
+@Component
+public class SingleFlight {
+
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(MeterRegistry meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String method, Supplier<T> loader) {
+        Flight flight = flights.computeIfAbsent(method, this::newFlight);
+        if (!flight.enabled) {
+            flight.executed.increment();
+            return loader.get();
+        }
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = flight.inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            flight.coalesced.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        flight.executed.increment();
+        try {
+            T result = loader.get();
+            land(flight, mine, result, null);
+            return result;
+        } catch (RuntimeException e) {
+            land(flight, mine, null, e);
+            throw e;
+        }
+    }
+
+    // Like execute, but the leader's load runs on the executor and every caller gets the shared future
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String method, Supplier<T> loader, Executor executor) {
+        Flight flight = flights.computeIfAbsent(method, this::newFlight);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (flight.enabled) {
+            CompletableFuture<Object> running = flight.inFlight.compareAndExchange(null, mine);
+            if (running != null) {
+                flight.coalesced.increment();
+                return (CompletableFuture<T>) running;
+            }
+        }
+        flight.executed.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    land(flight, mine, loader.get(), null);
+                } catch (RuntimeException e) {
+                    land(flight, mine, null, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            land(flight, mine, null, e);
+        }
+        return (CompletableFuture<T>) mine;
+    }
+
+    // Unregisters before completing, so a caller arriving after the result is ready starts a new load
+    private static void land(Flight flight, CompletableFuture<Object> future, Object result, RuntimeException failure) {
+        flight.inFlight.compareAndSet(future, null);
+        if (failure == null) {
+            future.complete(result);
+        } else {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    private Flight newFlight(String method) {
+        boolean enabled = environment.getProperty("app.single-flight." + method + ".enabled", Boolean.class, true);
+        return new Flight(enabled,
+                Counter.builder("app.single-flight.calls").tag("method", method).tag("result", "executed")
+                        .description("Reads through the single-flight layer").register(meterRegistry),
+                Counter.builder("app.single-flight.calls").tag("method", method).tag("result", "coalesced")
+                        .description("Reads through the single-flight layer").register(meterRegistry));
+    }
+
+    private static class Flight {
+        final boolean enabled;
+        final Counter executed;
+        final Counter coalesced;
+        final AtomicReference<CompletableFuture<Object>> inFlight = new AtomicReference<>();
+
+        Flight(boolean enabled, Counter executed, Counter coalesced) {
+            this.enabled = enabled;
+            this.executed = executed;
+            this.coalesced = coalesced;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.klef.cicd.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps read endpoints answering while MySQL stalls.
+ *
+ * Every guarded read is loaded on a small refresh pool through
+ * {@link SingleFlight}, so each method has at most one query in flight, and
+ * its last good result is kept. A caller waits for the load for at most
+ * {@code read-timeout-ms}; if it takes longer, or fails, and there is an
+ * earlier result, that result is returned instead and the load carries on
+ * in the background. While the {@link DbCircuitBreaker} is open, callers
+ * get the earlier result straight away and only the breaker's probe reaches
+ * the database. Stale responses carry {@code X-Data-Stale: true} and an
+ * {@code Age} header in seconds. Code that runs off the request thread has
+ * no response to mark, so it reads the staleness through {@link #track}.
+ */
+@Component
+public class StaleWhileRevalidate {
+
+    public static final String STALE_HEADER = "X-Data-Stale";
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private DbCircuitBreaker dbCircuitBreaker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final long readTimeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, Cached> lastGood = new ConcurrentHashMap<>();
+    // Oldest stale age, in seconds, served inside the current thread's track() call; -1 while all reads are fresh
+    private final ThreadLocal<long[]> trackedAge = new ThreadLocal<>();
+
+    public StaleWhileRevalidate(@Value("${app.stale-reads.read-timeout-ms:2000}") long readTimeoutMillis,
+                                @Value("${app.stale-reads.refresh-threads:4}") int threads) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stale-refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T read(String method, Supplier<T> loader) {
+        Cached last = lastGood.get(method);
+        if (last != null && dbCircuitBreaker.isOpen()) {
+            if (dbCircuitBreaker.tryProbe()) {
+                load(method, loader);
+            }
+            return (T) serveStale(method, last);
+        }
+
+        CompletableFuture<T> load = load(method, loader);
+        try {
+            // Nothing to fall back on yet, so the first read of a method always waits
+            return last == null ? load.get() : load.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            dbCircuitBreaker.recordTimeout();
+            return (T) serveStale(method, last);
+        } catch (ExecutionException e) {
+            if (last != null) {
+                return (T) serveStale(method, last);
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Read interrupted");
+        }
+    }
+
+    // Runs work on the calling thread and reports whether any guarded read inside it was answered stale
+    public <T> Tracked<T> track(Supplier<T> work) {
+        long[] outer = trackedAge.get();
+        long[] age = {-1};
+        trackedAge.set(age);
+        try {
+            return new Tracked<>(work.get(), age[0]);
+        } finally {
+            if (outer == null) {
+                trackedAge.remove();
+            } else {
+                outer[0] = Math.max(outer[0], age[0]);
+                trackedAge.set(outer);
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> load(String method, Supplier<T> loader) {
+        return singleFlight.submit(method, () -> {
+            long start = System.nanoTime();
+            try {
+                T result = loader.get();
+                dbCircuitBreaker.record((System.nanoTime() - start) / 1_000_000, true);
+                lastGood.put(method, new Cached(result, System.currentTimeMillis()));
+                return result;
+            } catch (RuntimeException e) {
+                dbCircuitBreaker.record((System.nanoTime() - start) / 1_000_000, false);
+                throw e;
+            }
+        }, executor);
+    }
+
+    private Object serveStale(String method, Cached cached) {
+        meterRegistry.counter("app.stale-reads.served", "method", method).increment();
+        long ageSeconds = (System.currentTimeMillis() - cached.loadedAt()) / 1000;
+        long[] tracked = trackedAge.get();
+        if (tracked != null) {
+            tracked[0] = Math.max(tracked[0], ageSeconds);
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null) {
+                response.setHeader(STALE_HEADER, "true");
+                response.setHeader("Age", String.valueOf(ageSeconds));
+            }
+        }
+        return cached.value();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record Cached(Object value, long loadedAt) {}
+
+    // ageSeconds is the age of the oldest stale result served, or -1 if none was
+    public record Tracked<T>(T value, long ageSeconds) {
+        public boolean stale() {
+            return ageSeconds >= 0;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.klef.cicd.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.klef.cicd.dto.StockAvailability;
+import com.klef.cicd.event.StockChangedEvent;
+import com.klef.cicd.model.ReservationStatus;
+import com.klef.cicd.repository.ProductRepository;
+import com.klef.cicd.repository.StockReservationRepository;
+
+/**
+ * In-memory available-to-promise per product.
+ *
+ * Each product keeps its stock and its total active holds packed into one
+ * {@link AtomicLong}, so checking "stock - held >= quantity" and taking the
+ * hold is a single compare-and-set with no lock and no products-table access.
+ * A product is loaded from the database the first time it is touched; after
+ * that its stock is refreshed from {@link StockChangedEvent}s and its holds
+ * change only through {@link ReservationService}.
+ */
+@Component
+public class StockHoldIndex {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private StockWriteBehindBuffer stockWriteBehindBuffer;
+
+    private final Map<Long, AtomicLong> levels = new ConcurrentHashMap<>();
+
+    // Takes the hold if enough is available; false means it was not taken
+    public boolean tryHold(Long productId, int quantity) {
+        AtomicLong level = level(productId);
+        while (true) {
+            long current = level.get();
+            if (stock(current) - held(current) < quantity) {
+                return false;
+            }
+            if (level.compareAndSet(current, pack(stock(current), held(current) + quantity))) {
+                return true;
+            }
+        }
+    }
+
+    public void release(Long productId, int quantity) {
+        AtomicLong level = levels.get(productId);
+        if (level == null) {
+            return;
+        }
+        while (true) {
+            long current = level.get();
+            if (level.compareAndSet(current, pack(stock(current), Math.max(0, held(current) - quantity)))) {
+                return;
+            }
+        }
+    }
+
+    public Optional<StockAvailability> availability(Long productId) {
+        AtomicLong level = levels.get(productId);
+        if (level == null) {
+            try {
+                level = level(productId);
+            } catch (RuntimeException e) {
+                return Optional.empty();
+            }
+        }
+        long current = level.get();
+        return Optional.of(new StockAvailability(productId, stock(current), held(current),
+                Math.max(0, stock(current) - held(current))));
+    }
+
+    // Runs after the writing transaction commits, so the stock it reads is the new one
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        for (Long productId : event.productIds()) {
+            // computeIfPresent waits for a concurrent first load of the same product
+            levels.computeIfPresent(productId, (id, level) -> {
+                Optional<Integer> stock = currentStock(id);
+                if (stock.isEmpty()) {
+                    return null;
+                }
+                while (true) {
+                    long current = level.get();
+                    if (level.compareAndSet(current, pack(stock.get(), held(current)))) {
+                        return level;
+                    }
+                }
+            });
+        }
+    }
+
+    private AtomicLong level(Long productId) {
+        AtomicLong level = levels.get(productId);
+        if (level != null) {
+            return level;
+        }
+        AtomicLong loaded = levels.computeIfAbsent(productId, id -> currentStock(id)
+                .map(stock -> new AtomicLong(pack(stock,
+                        (int) stockReservationRepository.sumQuantityByProductIdAndStatus(id, ReservationStatus.ACTIVE))))
+                .orElse(null));
+        if (loaded == null) {
+            throw new RuntimeException("Product not found");
+        }
+        return loaded;
+    }
+
+    private Optional<Integer> currentStock(Long productId) {
+        return stockWriteBehindBuffer.read(() -> productRepository.findStockById(productId)
+                .map(stock -> (int) (stock + stockWriteBehindBuffer.pendingDelta(productId))));
+    }
+
+    private static long pack(int stock, int held) {
+        return ((long) stock << 32) | (held & 0xFFFFFFFFL);
+    }
+
+    private static int stock(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    private static int held(long packed) {
+        return (int) packed;
+    }
+}
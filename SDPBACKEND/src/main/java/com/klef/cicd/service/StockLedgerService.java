@@ -0,0 +1,131 @@
+package com.klef.cicd.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.klef.cicd.dto.StockLevelAt;
+import com.klef.cicd.dto.StockMovementView;
+import com.klef.cicd.model.StockMovement;
+import com.klef.cicd.model.StockMovementReason;
+import com.klef.cicd.model.StockSnapshot;
+import com.klef.cicd.repository.StockMovementRepository;
+import com.klef.cicd.repository.StockSnapshotRepository;
+
+/**
+ * Append-only ledger of stock changes plus periodic per-product snapshots.
+ *
+ * The stock of a product at any time is the latest snapshot taken before
+ * that time plus the movements recorded after it, so history queries read
+ * one snapshot row and a short tail instead of the whole ledger. A
+ * snapshot is the stock_after of the product's latest movement, so it
+ * covers exactly the movements up to that row.
+ */
+@Service
+public class StockLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerService.class);
+
+    private static final String INSERT_MOVEMENT = "INSERT INTO stock_movements "
+            + "(product_id, delta, stock_after, reason, username, created_at, outflow) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // One row per product whose ledger moved since its last snapshot. Stock and watermark come from the same
+    // movement row, so a movement that commits after the snapshot can never be both in the stock and skipped
+    // by the tail, as it could when products.stock was paired with a separately read MAX(id).
+    private static final String INSERT_SNAPSHOTS = "INSERT INTO stock_snapshots "
+            + "(product_id, stock, last_movement_id, taken_at) "
+            + "SELECT m.product_id, m.stock_after, m.id, ? FROM stock_movements m "
+            + "JOIN (SELECT product_id, MAX(id) AS max_id FROM stock_movements GROUP BY product_id) latest "
+            + "ON latest.max_id = m.id "
+            + "JOIN products p ON p.id = m.product_id "
+            + "LEFT JOIN (SELECT product_id, MAX(last_movement_id) AS last_id FROM stock_snapshots GROUP BY product_id) s "
+            + "ON s.product_id = m.product_id "
+            + "WHERE s.product_id IS NULL OR m.id > s.last_id";
+
+    // Products from before the ledger have no movement to read stock_after from. One whose row changed in the
+    // last few minutes may have a first movement still in flight, so it waits for a later run.
+    private static final String INSERT_LEGACY_SNAPSHOTS = "INSERT INTO stock_snapshots "
+            + "(product_id, stock, last_movement_id, taken_at) "
+            + "SELECT p.id, p.stock, 0, ? FROM products p "
+            + "WHERE (p.updated_at IS NULL OR p.updated_at <= ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.product_id = p.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM stock_snapshots s WHERE s.product_id = p.id)";
+
+    private static final long LEGACY_SETTLE_MINUTES = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Value("${app.stock.ledger-batch-size:500}")
+    private int batchSize;
+
+    // Joins the caller's transaction so the movement commits with the stock change. Left as a single insert:
+    // buffering it past the commit could lose movements the stock already reflects, and getStockAt needs them
+    // all. Paths that change many products at once (write-behind flushes) go through append as one batch.
+    public void record(Long productId, int delta, int stockAfter, StockMovementReason reason, String username) {
+        append(List.of(new StockMovement(productId, delta, stockAfter, reason, username)));
+    }
+
+    // Writes movements as JDBC batches; with rewriteBatchedStatements MySQL gets multi-row INSERTs
+    public void append(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT, movements, batchSize, (ps, movement) -> {
+            ps.setLong(1, movement.getProductId());
+            ps.setInt(2, movement.getDelta());
+            ps.setInt(3, movement.getStockAfter());
+            ps.setString(4, movement.getReason().name());
+            ps.setString(5, movement.getUsername());
+            ps.setTimestamp(6, Timestamp.valueOf(movement.getCreatedAt()));
+            ps.setInt(7, movement.getOutflow());
+        });
+    }
+
+    public List<StockMovementView> getRecentMovements(Long productId, int limit) {
+        return stockMovementRepository.findRecentByProductId(productId, PageRequest.of(0, Math.min(Math.max(limit, 1), 500)));
+    }
+
+    public Optional<StockLevelAt> getStockAt(Long productId, LocalDateTime at) {
+        Optional<StockSnapshot> snapshot = stockSnapshotRepository
+                .findFirstByProductIdAndTakenAtLessThanEqualOrderByTakenAtDesc(productId, at);
+        if (snapshot.isPresent()) {
+            long tail = stockMovementRepository.sumDeltasAfter(productId, snapshot.get().getLastMovementId(), at);
+            return Optional.of(new StockLevelAt(productId, at, snapshot.get().getStock() + tail));
+        }
+
+        // Without an earlier snapshot the ledger is only complete if it starts with the INITIAL movement
+        if (stockMovementRepository.existsByProductIdAndReasonAndCreatedAtLessThanEqual(productId, StockMovementReason.INITIAL, at)) {
+            return Optional.of(new StockLevelAt(productId, at, stockMovementRepository.sumDeltasAfter(productId, 0L, at)));
+        }
+        return Optional.empty();
+    }
+
+    @Scheduled(cron = "${app.stock.snapshot-cron:0 0 * * * *}")
+    @Transactional
+    public int takeSnapshots() {
+        LocalDateTime now = LocalDateTime.now();
+        int written = jdbcTemplate.update(INSERT_SNAPSHOTS, Timestamp.valueOf(now))
+                + jdbcTemplate.update(INSERT_LEGACY_SNAPSHOTS, Timestamp.valueOf(now),
+                        Timestamp.valueOf(now.minusMinutes(LEGACY_SETTLE_MINUTES)));
+        log.info("Stock snapshot: {} products written", written);
+        return written;
+    }
+}
@@ -0,0 +1,533 @@
+package com.klef.cicd.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import com.klef.cicd.event.StockChangedEvent;
+import com.klef.cicd.model.StockMovement;
+import com.klef.cicd.model.StockMovementReason;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Coalesces stock deltas into batched updates of {@code products.stock}.
+ *
+ * Each delta is first appended to a local intent log, then added to a
+ * striped per-product counter, and acknowledged. Every few hundred
+ * milliseconds the counters are drained and applied as one batch of
+ * {@code UPDATE products SET stock = stock + ?}. The highest applied intent
+ * sequence is stored in the same transaction, so on restart only intents
+ * past that checkpoint are replayed: nothing is lost and nothing is applied
+ * twice. Sequences are numbered per log, so the checkpoint is kept per log:
+ * each log directory holds a random id, created with the log, that keys its
+ * row in {@code stock_write_checkpoints}. Nodes never read each other's
+ * checkpoint, and a node that restarts on the same volume resumes its own. Reads add {@link #pendingDelta(Long)} on top of the database value;
+ * doing both inside {@link #read} makes them consistent with a concurrent
+ * flush, whose commit waits for such readers and clears the in-flight
+ * deltas before any new reader starts.
+ *
+ * Only used with {@code app.stock.write-behind.enabled}: location and
+ * product-level adjustments then feed the product total through here.
+ * Otherwise they update the products row in their own transaction and no
+ * intent log is written.
+ *
+ * The log is written to the OS on every append, which survives a JVM crash;
+ * set {@code app.stock.write-behind.fsync=true} to also survive power loss.
+ */
+@Service
+public class StockWriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(StockWriteBehindBuffer.class);
+
+    // seq(8) + productId(8) + delta(4) + crc(4)
+    private static final int RECORD_SIZE = 24;
+    private static final String SEGMENT_PREFIX = "intents-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String LOG_ID_FILE = "log-id";
+    // Logs written before logs had an id; V4 moved their checkpoint to this id
+    private static final String LEGACY_LOG_ID = "legacy";
+    private static final int IN_CHUNK = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.stock.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.stock.write-behind.log-dir:data/stock-intents}")
+    private String logDir;
+
+    @Value("${app.stock.write-behind.fsync:false}")
+    private boolean fsync;
+
+    @Value("${app.stock.write-behind.node-id:${HOSTNAME:local}}")
+    private String node;
+
+    // Writers and readers share the lock; the flusher takes it exclusively to drain and to commit
+    private final StampedLock drainLock = new StampedLock();
+    private final ThreadLocal<Boolean> reading = ThreadLocal.withInitial(() -> false);
+    private final Map<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object flushMonitor = new Object();
+    private final Object segmentMonitor = new Object();
+    // Segments whose flush failed; their intents are back in the counters and go with the next flush
+    private final List<Path> unappliedSegments = new ArrayList<>();
+
+    private volatile FileChannel segment;
+    private volatile Path segmentPath;
+    private volatile String logId;
+    // Own transaction, so a flush triggered inside a service call commits on its own
+    private final TransactionDefinition flushTransaction =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void submit(Long productId, int delta) {
+        // Inside read() the lock is already held; taking it again could queue behind a waiting flush
+        long stamp = reading.get() ? 0L : drainLock.readLock();
+        try {
+            ensureSegment();
+            long seq = sequence.incrementAndGet();
+            appendIntent(seq, productId, delta);
+            counters.computeIfAbsent(productId, id -> new StripedCounter()).add(delta);
+        } finally {
+            if (stamp != 0L) {
+                drainLock.unlockRead(stamp);
+            }
+        }
+    }
+
+    // Runs a database read and its pendingDelta lookups as one unit: a flush commits entirely before or after it
+    public <T> T read(Supplier<T> reader) {
+        if (reading.get()) {
+            return reader.get();
+        }
+        long stamp = drainLock.readLock();
+        reading.set(true);
+        try {
+            return reader.get();
+        } finally {
+            reading.set(false);
+            drainLock.unlockRead(stamp);
+        }
+    }
+
+    // Delta accepted but not yet visible in the products table
+    public long pendingDelta(Long productId) {
+        // Deltas move between the two maps only under the write lock; retry under a read lock if one did
+        long stamp = drainLock.tryOptimisticRead();
+        long pending = sumPending(productId);
+        if (!drainLock.validate(stamp)) {
+            stamp = drainLock.readLock();
+            try {
+                pending = sumPending(productId);
+            } finally {
+                drainLock.unlockRead(stamp);
+            }
+        }
+        return pending;
+    }
+
+    public Set<Long> pendingProductIds() {
+        long stamp = drainLock.tryOptimisticRead();
+        Set<Long> ids = collectPendingIds();
+        if (!drainLock.validate(stamp)) {
+            stamp = drainLock.readLock();
+            try {
+                ids = collectPendingIds();
+            } finally {
+                drainLock.unlockRead(stamp);
+            }
+        }
+        return ids;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.write-behind.flush-interval-ms:250}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    public void flush() {
+        if (reading.get()) {
+            throw new IllegalStateException("Cannot flush stock deltas inside a consistent read");
+        }
+        synchronized (flushMonitor) {
+            if (counters.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Long> drained = new HashMap<>();
+            Map<Long, Long> outflows = new HashMap<>();
+            long upToSeq;
+            long stamp = drainLock.writeLock();
+            try {
+                // No writer is mid-submit here, so every intent up to upToSeq is in a counter
+                counters.forEach((productId, counter) -> {
+                    long delta = counter.drain();
+                    long outflow = counter.drainOutflow();
+                    // A product whose receipts and picks cancel out still gets its outflow recorded
+                    if (delta != 0 || outflow != 0) {
+                        drained.put(productId, delta);
+                        outflows.put(productId, outflow);
+                    }
+                });
+                // In flight before the counters go, so no reader sees the deltas in neither map
+                drained.forEach((productId, delta) -> {
+                    if (delta != 0) {
+                        inFlight.put(productId, delta);
+                    }
+                });
+                counters.clear();
+                upToSeq = sequence.get();
+                unappliedSegments.add(rotateSegment(upToSeq + 1));
+            } finally {
+                drainLock.unlockWrite(stamp);
+            }
+
+            try {
+                apply(drained, outflows, upToSeq, inFlight::clear);
+                unappliedSegments.forEach(StockWriteBehindBuffer::deleteQuietly);
+                unappliedSegments.clear();
+            } catch (RuntimeException e) {
+                // Back into the counters in the same step that leaves flight, so reads count them exactly once;
+                // the segments stay on disk until a later flush covers their intents
+                stamp = drainLock.writeLock();
+                try {
+                    drained.forEach((productId, delta) -> counters.computeIfAbsent(productId, id -> new StripedCounter())
+                            .restore(delta, outflows.get(productId)));
+                    inFlight.clear();
+                } finally {
+                    drainLock.unlockWrite(stamp);
+                }
+                log.error("Write-behind flush of {} products failed, will retry", drained.size(), e);
+                return;
+            }
+            // Database and pending totals are consistent again; let caches re-read them
+            eventPublisher.publishEvent(new StockChangedEvent(drained.keySet()));
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void recover() throws IOException {
+        Path dir = Paths.get(logDir);
+        if (!Files.isDirectory(dir)) {
+            // No log yet; the first intent creates one with a new id and its own numbering
+            return;
+        }
+
+        List<Path> segments = listSegments(dir);
+        synchronized (segmentMonitor) {
+            logId = readLogId(dir, !segments.isEmpty());
+        }
+        // New intents must number past the checkpoint even if the segments are gone
+        long checkpoint = readCheckpoint();
+        sequence.set(checkpoint);
+        Map<Long, Long> replay = new HashMap<>();
+        Map<Long, Long> replayOutflow = new HashMap<>();
+        long maxSeq = checkpoint;
+        for (Path path : segments) {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(path));
+            while (records.remaining() >= RECORD_SIZE) {
+                long seq = records.getLong();
+                long productId = records.getLong();
+                int delta = records.getInt();
+                int crc = records.getInt();
+                if (crc != checksum(seq, productId, delta)) {
+                    // Torn write at the tail of a segment
+                    break;
+                }
+                if (seq > checkpoint) {
+                    replay.merge(productId, (long) delta, Long::sum);
+                    replayOutflow.merge(productId, (long) Math.max(0, -delta), Long::sum);
+                }
+                maxSeq = Math.max(maxSeq, seq);
+            }
+        }
+
+        if (!replay.isEmpty()) {
+            log.warn("Replaying write-behind stock deltas for {} products (intents {}..{})",
+                    replay.size(), checkpoint + 1, maxSeq);
+            apply(replay, replayOutflow, maxSeq, () -> { });
+            eventPublisher.publishEvent(new StockChangedEvent(replay.keySet()));
+        }
+        for (Path path : segments) {
+            deleteQuietly(path);
+        }
+
+        sequence.set(maxSeq);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        closeQuietly(segment);
+    }
+
+    // afterCommit runs under the write lock together with the commit, so no reader sees both or neither
+    private void apply(Map<Long, Long> deltas, Map<Long, Long> outflows, long upToSeq, Runnable afterCommit) {
+        List<Long> productIds = new ArrayList<>(deltas.keySet());
+        TransactionStatus status = transactionManager.getTransaction(flushTransaction);
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate("UPDATE products SET stock = stock + ?, updated_at = ? WHERE id = ?",
+                    productIds, productIds.size(), (ps, productId) -> {
+                        ps.setLong(1, deltas.get(productId));
+                        ps.setTimestamp(2, now);
+                        ps.setLong(3, productId);
+                    });
+            writeCheckpoint(upToSeq);
+
+            // One coalesced ledger row per product and flush, with the stock the update left behind and the
+            // gross outflow, so picks netted against receipts still count as consumption
+            Map<Long, Integer> stockAfter = new HashMap<>();
+            for (int from = 0; from < productIds.size(); from += IN_CHUNK) {
+                List<Long> chunk = productIds.subList(from, Math.min(from + IN_CHUNK, productIds.size()));
+                String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                jdbcTemplate.query("SELECT id, stock FROM products WHERE id IN (" + in + ")",
+                        rs -> {
+                            stockAfter.put(rs.getLong(1), rs.getInt(2));
+                        }, chunk.toArray());
+            }
+            List<StockMovement> movements = new ArrayList<>();
+            for (Long productId : productIds) {
+                Integer stock = stockAfter.get(productId);
+                if (stock != null) {
+                    movements.add(new StockMovement(productId, deltas.get(productId).intValue(), stock,
+                            StockMovementReason.ADJUSTMENT, null, outflows.getOrDefault(productId, 0L).intValue()));
+                }
+            }
+            stockLedgerService.append(movements);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        long stamp = drainLock.writeLock();
+        try {
+            transactionManager.commit(status);
+            afterCommit.run();
+        } finally {
+            drainLock.unlockWrite(stamp);
+        }
+    }
+
+    private long sumPending(Long productId) {
+        StripedCounter counter = counters.get(productId);
+        long pending = counter == null ? 0 : counter.sum();
+        return pending + inFlight.getOrDefault(productId, 0L);
+    }
+
+    private Set<Long> collectPendingIds() {
+        Set<Long> ids = new HashSet<>(counters.keySet());
+        ids.addAll(inFlight.keySet());
+        return ids;
+    }
+
+    private long readCheckpoint() {
+        List<Long> rows = jdbcTemplate.queryForList("SELECT last_seq FROM stock_write_checkpoints WHERE log_id = ?",
+                Long.class, logId);
+        return rows.isEmpty() ? 0L : rows.get(0);
+    }
+
+    private void writeCheckpoint(long seq) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = jdbcTemplate.update("UPDATE stock_write_checkpoints SET last_seq = ?, node = ?, updated_at = ? "
+                + "WHERE log_id = ?", seq, node, now, logId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO stock_write_checkpoints (log_id, node, last_seq, updated_at) "
+                    + "VALUES (?, ?, ?, ?)", logId, node, seq, now);
+        }
+    }
+
+    // The id is created together with the log; segments without one predate ids and keep the old checkpoint
+    private static String readLogId(Path dir, boolean hasSegments) throws IOException {
+        Path file = dir.resolve(LOG_ID_FILE);
+        if (Files.exists(file)) {
+            return Files.readString(file).trim();
+        }
+        String id = hasSegments ? LEGACY_LOG_ID : UUID.randomUUID().toString();
+        Files.writeString(file, id);
+        return id;
+    }
+
+    private void appendIntent(long seq, Long productId, int delta) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(seq).putLong(productId).putInt(delta).putInt(checksum(seq, productId, delta)).flip();
+        try {
+            FileChannel channel = segment;
+            if (channel == null) {
+                throw new IllegalStateException("Write-behind intent log is not open");
+            }
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not log stock change", e);
+        }
+    }
+
+    // The log is opened on first use, so nodes that never buffer a delta never create it
+    private void ensureSegment() {
+        if (segment == null) {
+            synchronized (segmentMonitor) {
+                if (segment == null) {
+                    rotateSegment(sequence.get() + 1);
+                }
+            }
+        }
+    }
+
+    // Opens a fresh segment and returns the previous one, whose intents are all <= firstSeq - 1
+    private Path rotateSegment(long firstSeq) {
+        Path previousPath = segmentPath;
+        FileChannel previous = segment;
+        try {
+            Path dir = Files.createDirectories(Paths.get(logDir));
+            if (logId == null) {
+                logId = readLogId(dir, !listSegments(dir).isEmpty());
+            }
+            Path path = dir.resolve(SEGMENT_PREFIX + firstSeq + SEGMENT_SUFFIX);
+            segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            segmentPath = path;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open write-behind intent log", e);
+        }
+        closeQuietly(previous);
+        return previousPath;
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static int checksum(long seq, long productId, int delta) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(20).putLong(seq).putLong(productId).putInt(delta).array());
+        return (int) crc.getValue();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete applied intent log {}", path, e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close intent log", e);
+        }
+    }
+
+    // Per-product counter spread over cache-line-padded cells so concurrent pickers don't contend. Each
+    // stripe keeps the net delta and, in the next cell of the same line, the units taken out
+    static final class StripedCounter {
+        private static final int STRIPES = 8;
+        private static final int PADDING = 8;
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+        void add(long delta) {
+            int stripe = (int) (Thread.currentThread().threadId() & (STRIPES - 1));
+            cells.addAndGet(stripe * PADDING, delta);
+            if (delta < 0) {
+                cells.addAndGet(stripe * PADDING + 1, -delta);
+            }
+        }
+
+        // Puts back what a failed flush drained
+        void restore(long delta, long outflow) {
+            cells.addAndGet(0, delta);
+            cells.addAndGet(1, outflow);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += cells.get(stripe * PADDING);
+            }
+            return sum;
+        }
+
+        // Exact even under concurrent adds: each cell is swapped to zero atomically
+        long drain() {
+            return drainCells(0);
+        }
+
+        long drainOutflow() {
+            return drainCells(1);
+        }
+
+        private long drainCells(int offset) {
+            long sum = 0;
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += cells.getAndSet(stripe * PADDING + offset, 0);
+            }
+            return sum;
+        }
+    }
+}
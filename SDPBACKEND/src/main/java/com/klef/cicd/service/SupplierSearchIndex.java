@@ -0,0 +1,424 @@
+package com.klef.cicd.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.klef.cicd.dto.SupplierSearchHit;
+import com.klef.cicd.dto.SupplierSearchResult;
+import com.klef.cicd.dto.SupplierView;
+import com.klef.cicd.repository.SupplierRepository;
+
+/**
+ * In-memory prefix index over supplier name, contact, email and phone.
+ *
+ * Every field is split into lowercase word tokens (phone numbers also get a
+ * digits-only token) and stored in a sorted map, so each query term is a
+ * prefix range scan instead of a LIKE over the whole table. All terms must
+ * match; hits are ranked by which field matched and whether the match was
+ * a whole word. The index is loaded on first use and kept current by
+ * {@link SupplierService} on every write.
+ *
+ * A load reads the table and then swaps the result in, so a write that
+ * commits while it reads may be missing from what it read. Writes that
+ * arrive while a load is running are queued and replayed on top of the
+ * loaded suppliers. A periodic reload (app.suppliers.search-reload-ms)
+ * also catches changes made outside this instance, e.g. by other nodes.
+ */
+@Component
+public class SupplierSearchIndex {
+
+    private static final String[] FIELDS = {"name", "contact", "email", "phone"};
+    private static final int PHONE = 3;
+    private static final int FIELD_BITS = 4;
+
+    // Best field weight for each field bitmask: name 4, contact 3, email 2, phone 2
+    private static final int[] MASK_WEIGHTS = new int[1 << FIELD_BITS];
+
+    static {
+        int[] weights = {4, 3, 2, 2};
+        for (int mask = 1; mask < MASK_WEIGHTS.length; mask++) {
+            for (int field = 0; field < FIELDS.length; field++) {
+                if ((mask & (1 << field)) != 0) {
+                    MASK_WEIGHTS[mask] = Math.max(MASK_WEIGHTS[mask], weights[field]);
+                }
+            }
+        }
+    }
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Suppliers are addressed by a dense ordinal so scoring can use plain int arrays
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final List<SupplierView> documents = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private volatile boolean loaded;
+    // Writes seen while a load is reading the table; null when no load is running. Guarded by the write lock
+    private List<Change> pending;
+
+    public SupplierSearchResult search(String query, int page, int size) {
+        ensureLoaded();
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return new SupplierSearchResult(query, page, size, 0, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] scores = null;
+            for (String term : terms) {
+                int[] termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // Every term has to match
+                    for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+                        scores[ordinal] = scores[ordinal] > 0 && termScores[ordinal] > 0
+                                ? scores[ordinal] + termScores[ordinal] : 0;
+                    }
+                }
+            }
+
+            int total = 0;
+            for (int score : scores) {
+                if (score > 0) {
+                    total++;
+                }
+            }
+            // Computed in long: page * size can pass Integer.MAX_VALUE
+            long offset = (long) page * size;
+            if (offset >= total) {
+                return new SupplierSearchResult(query, page, size, total, List.of());
+            }
+
+            // The heap never holds more than the matches, however far the page is
+            int[] ranked = topOrdinals(scores, (int) Math.min(offset + size, total));
+            List<SupplierSearchHit> hits = new ArrayList<>();
+            for (int i = (int) offset; i < ranked.length; i++) {
+                SupplierView supplier = documents.get(ranked[i]);
+                hits.add(new SupplierSearchHit(supplier, scores[ranked[i]], highlight(supplier, terms)));
+            }
+            return new SupplierSearchResult(query, page, size, total, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(SupplierView supplier) {
+        apply(new Change(supplier.id(), supplier));
+    }
+
+    public void remove(Long id) {
+        apply(new Change(id, null));
+    }
+
+    // Before the first load there is nothing to update: the load reads every write that committed before it started
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            }
+            if (loaded) {
+                change.applyTo(this);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Full rebuild from the database
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<SupplierView> suppliers;
+        try {
+            suppliers = supplierRepository.findAllViews();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        load(suppliers);
+    }
+
+    // Only an index that is in use is refreshed; one nobody searched stays unloaded
+    @Scheduled(fixedDelayString = "${app.suppliers.search-reload-ms:600000}",
+            initialDelayString = "${app.suppliers.search-reload-ms:600000}")
+    public void scheduledReload() {
+        if (loaded) {
+            reload();
+        }
+    }
+
+    // Replaces the index with these suppliers, then replays the writes queued since the read began
+    void load(List<SupplierView> suppliers) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            ordinals.clear();
+            freeOrdinals.clear();
+            suppliers.forEach(this::addDocument);
+            if (pending != null) {
+                pending.forEach(change -> change.applyTo(this));
+                pending = null;
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    // Best score per supplier for one term: field weight, doubled for a whole-word match
+    private int[] scoreTerm(String term) {
+        int[] termScores = new int[documents.size()];
+        for (Map.Entry<String, Postings> posting
+                : postings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+            int bonus = posting.getKey().length() == term.length() ? 2 : 1;
+            Postings docs = posting.getValue();
+            for (int i = 0; i < docs.size; i++) {
+                int entry = docs.entries[i];
+                int ordinal = entry >>> FIELD_BITS;
+                int score = MASK_WEIGHTS[entry & ((1 << FIELD_BITS) - 1)] * bonus;
+                if (score > termScores[ordinal]) {
+                    termScores[ordinal] = score;
+                }
+            }
+        }
+        return termScores;
+    }
+
+    // Highest scoring ordinals, best first, ties broken by supplier name
+    private int[] topOrdinals(int[] scores, int limit) {
+        Comparator<Integer> better = Comparator.<Integer>comparingInt(ordinal -> scores[ordinal])
+                .thenComparing(ordinal -> documents.get(ordinal).name(), String.CASE_INSENSITIVE_ORDER.reversed());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, better);
+        for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+            if (scores[ordinal] == 0) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(ordinal);
+            } else if (scores[ordinal] >= scores[heap.peek()] && better.compare(ordinal, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(ordinal);
+            }
+        }
+        int[] ranked = new int[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll();
+        }
+        return ranked;
+    }
+
+    private void addDocument(SupplierView supplier) {
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = documents.size();
+            documents.add(supplier);
+        } else {
+            ordinal = freeOrdinals.poll();
+            documents.set(ordinal, supplier);
+        }
+        ordinals.put(supplier.id(), ordinal);
+
+        String[] values = fieldValues(supplier);
+        for (int field = 0; field < values.length; field++) {
+            for (String token : indexTokens(values[field], field)) {
+                postings.computeIfAbsent(token, key -> new Postings()).add(ordinal, 1 << field);
+            }
+        }
+    }
+
+    private void removeDocument(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        String[] values = fieldValues(documents.get(ordinal));
+        for (int field = 0; field < values.length; field++) {
+            for (String token : indexTokens(values[field], field)) {
+                Postings docs = postings.get(token);
+                if (docs != null && docs.remove(ordinal) && docs.size == 0) {
+                    postings.remove(token);
+                }
+            }
+        }
+        documents.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+
+    // A put, or a removal when supplier is null
+    private record Change(Long id, SupplierView supplier) {
+        void applyTo(SupplierSearchIndex index) {
+            index.removeDocument(id);
+            if (supplier != null) {
+                index.addDocument(supplier);
+            }
+        }
+    }
+
+    // Growable list of (ordinal << 4 | field mask) entries for one token
+    private static final class Postings {
+        private int[] entries = new int[2];
+        private int size;
+
+        void add(int ordinal, int fieldBit) {
+            // A document's fields are indexed together, so a repeat token is always the last entry
+            if (size > 0 && entries[size - 1] >>> FIELD_BITS == ordinal) {
+                entries[size - 1] |= fieldBit;
+                return;
+            }
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = ordinal << FIELD_BITS | fieldBit;
+        }
+
+        boolean remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] >>> FIELD_BITS == ordinal) {
+                    System.arraycopy(entries, i + 1, entries, i, size - i - 1);
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String[] fieldValues(SupplierView supplier) {
+        return new String[] {supplier.name(), supplier.contact(), supplier.email(), supplier.phone()};
+    }
+
+    private static List<String> indexTokens(String value, int field) {
+        List<String> tokens = tokenize(value);
+        if (field == PHONE && value != null) {
+            String digits = value.replaceAll("\\D", "");
+            if (!digits.isEmpty()) {
+                tokens.add(digits);
+            }
+        }
+        return tokens;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static List<SupplierSearchHit.Highlight> highlight(SupplierView supplier, List<String> terms) {
+        List<SupplierSearchHit.Highlight> highlights = new ArrayList<>();
+        String[] values = fieldValues(supplier);
+        for (int field = 0; field < values.length; field++) {
+            String value = values[field];
+            if (value == null) {
+                continue;
+            }
+            Set<Integer> covered = new HashSet<>();
+            int start = -1;
+            for (int i = 0; i <= value.length(); i++) {
+                boolean wordChar = i < value.length() && Character.isLetterOrDigit(value.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    String token = value.substring(start, i).toLowerCase(Locale.ROOT);
+                    for (String term : terms) {
+                        if (token.startsWith(term) && covered.add(start)) {
+                            highlights.add(new SupplierSearchHit.Highlight(FIELDS[field], start, start + term.length()));
+                        }
+                    }
+                    start = -1;
+                }
+            }
+            if (field == PHONE && covered.isEmpty()) {
+                highlightPhoneDigits(value, terms, highlights);
+            }
+        }
+        return highlights;
+    }
+
+    // A digits-only term like "123456" matches "123-456-7890"; map it back onto the original text
+    private static void highlightPhoneDigits(String phone, List<String> terms, List<SupplierSearchHit.Highlight> highlights) {
+        String digits = phone.replaceAll("\\D", "");
+        for (String term : terms) {
+            if (!digits.startsWith(term)) {
+                continue;
+            }
+            int seen = 0;
+            int start = -1;
+            for (int i = 0; i < phone.length() && seen < term.length(); i++) {
+                if (Character.isDigit(phone.charAt(i))) {
+                    if (start < 0) {
+                        start = i;
+                    }
+                    seen++;
+                    if (seen == term.length()) {
+                        highlights.add(new SupplierSearchHit.Highlight(FIELDS[PHONE], start, i + 1));
+                    }
+                }
+            }
+            return;
+        }
+    }
+}
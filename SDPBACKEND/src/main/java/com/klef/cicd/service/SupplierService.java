@@ -1,32 +1,80 @@
 package com.klef.cicd.service;
 
+import com.klef.cicd.dto.BatchResult;
+import com.klef.cicd.dto.SupplierSearchResult;
+import com.klef.cicd.dto.SupplierView;
+import com.klef.cicd.model.AuditAction;
 import com.klef.cicd.model.Supplier;
 import com.klef.cicd.repository.SupplierRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class SupplierService {
     
+    private static final FieldProjection SUPPLIER_FIELDS = new FieldProjection("suppliers s", "s.id")
+            .column("id", "s.id", Long.class)
+            .column("name", "s.name", String.class)
+            .column("contact", "s.contact", String.class)
+            .column("email", "s.email", String.class)
+            .column("phone", "s.phone", String.class)
+            .column("createdAt", "s.created_at", LocalDateTime.class)
+            .column("updatedAt", "s.updated_at", LocalDateTime.class);
+    
+    // Deep pages cost a heap as large as the offset, so search pages are capped well before that matters
+    static final int MAX_SEARCH_OFFSET = 10_000;
+    
     @Autowired
     private SupplierRepository supplierRepository;
     
-    public List<Supplier> getAllSuppliers() {
-        return supplierRepository.findAll();
+    @Autowired
+    private SupplierSearchIndex supplierSearchIndex;
+    
+    @Autowired
+    private ProductSupplierService productSupplierService;
+    
+    @Autowired
+    private StaleWhileRevalidate staleWhileRevalidate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private BatchLookup batchLookup;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    public List<SupplierView> getAllSuppliers() {
+        return staleWhileRevalidate.read("suppliers.all", supplierRepository::findAllViews);
+    }
+    
+    public List<Map<String, Object>> getAllSuppliers(String fields) {
+        return SUPPLIER_FIELDS.query(jdbcTemplate, SUPPLIER_FIELDS.resolve(fields));
+    }
+    
+    public Optional<SupplierView> getSupplierById(Long id) {
+        return supplierRepository.findViewById(id);
     }
     
-    public Optional<Supplier> getSupplierById(Long id) {
-        return supplierRepository.findById(id);
+    public BatchResult<SupplierView> getSuppliersByIds(List<Long> ids) {
+        return batchLookup.fetch("supplier", ids, supplierRepository::findViewsByIds, SupplierView::id);
     }
     
-    public Supplier createSupplier(Supplier supplier) {
-        return supplierRepository.save(supplier);
+    public SupplierView createSupplier(Supplier supplier, String username) {
+        SupplierView created = SupplierView.from(supplierRepository.save(supplier));
+        supplierSearchIndex.put(created);
+        auditService.record(AuditAction.CREATE, "supplier", created.id(), username, created.name());
+        return created;
     }
     
-    public Supplier updateSupplier(Long id, Supplier supplierDetails) {
+    public SupplierView updateSupplier(Long id, Supplier supplierDetails, String username) {
         Supplier supplier = supplierRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Supplier not found"));
         
@@ -35,20 +83,32 @@ public class SupplierService {
         supplier.setEmail(supplierDetails.getEmail());
         supplier.setPhone(supplierDetails.getPhone());
         
-        return supplierRepository.save(supplier);
+        SupplierView updated = SupplierView.from(supplierRepository.save(supplier));
+        supplierSearchIndex.put(updated);
+        auditService.record(AuditAction.UPDATE, "supplier", id, username, updated.name());
+        return updated;
     }
     
-    public void deleteSupplier(Long id) {
+    public void deleteSupplier(Long id, String username) {
         if (!supplierRepository.existsById(id)) {
             throw new RuntimeException("Supplier not found");
         }
+        productSupplierService.deleteForSupplier(id);
         supplierRepository.deleteById(id);
+        supplierSearchIndex.remove(id);
+        auditService.record(AuditAction.DELETE, "supplier", id, username, null);
     }
     
-    public List<Supplier> searchSuppliers(String name) {
+    public List<SupplierView> searchSuppliers(String name) {
         return supplierRepository.findByNameContainingIgnoreCase(name);
     }
     
+    // Ranked search across name, contact, email and phone; pages stop at the first MAX_SEARCH_OFFSET results
+    public SupplierSearchResult searchAllFields(String query, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), 100);
+        return supplierSearchIndex.search(query, Math.min(Math.max(page, 0), MAX_SEARCH_OFFSET / pageSize), pageSize);
+    }
+    
     public long getTotalSuppliersCount() {
         return supplierRepository.count();
     }
@@ -2,11 +2,17 @@ package com.klef.cicd.service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import com.klef.cicd.dto.BatchResult;
+import com.klef.cicd.dto.TaskView;
+import com.klef.cicd.dto.UserSummary;
+import com.klef.cicd.model.AuditAction;
 import com.klef.cicd.model.Task;
 import com.klef.cicd.model.TaskStatus;
 import com.klef.cicd.model.User;
@@ -16,14 +22,47 @@ import com.klef.cicd.repository.UserRepository;
 @Service
 public class TaskService {
 
+    private static final FieldProjection TASK_FIELDS = new FieldProjection("tasks t", "t.id")
+            .join("assignedTo", "JOIN users a ON a.id = t.assigned_to_id")
+            .join("createdBy", "JOIN users c ON c.id = t.created_by_id")
+            .column("id", "t.id", Long.class)
+            .column("title", "t.title", String.class)
+            .column("description", "t.description", String.class)
+            .column("status", "t.status", String.class)
+            .column("priority", "t.priority", String.class)
+            .column("dueDate", "t.due_date", LocalDateTime.class)
+            .column("createdAt", "t.created_at", LocalDateTime.class)
+            .column("updatedAt", "t.updated_at", LocalDateTime.class)
+            .column("completedAt", "t.completed_at", LocalDateTime.class)
+            .column("assignedTo.id", "a.id", Long.class, "assignedTo")
+            .column("assignedTo.username", "a.username", String.class, "assignedTo")
+            .column("assignedTo.email", "a.email", String.class, "assignedTo")
+            .column("assignedTo.role", "a.role", String.class, "assignedTo")
+            .column("createdBy.id", "c.id", Long.class, "createdBy")
+            .column("createdBy.username", "c.username", String.class, "createdBy")
+            .column("createdBy.email", "c.email", String.class, "createdBy")
+            .column("createdBy.role", "c.role", String.class, "createdBy");
+
     @Autowired
     private TaskRepository taskRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StaleWhileRevalidate staleWhileRevalidate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BatchLookup batchLookup;
+
+    @Autowired
+    private AuditService auditService;
+
     // Create a new task
-    public Task createTask(Task task, String createdByUsername, String assignedToUsername) {
+    public TaskView createTask(Task task, String createdByUsername, String assignedToUsername) {
         User createdBy = userRepository.findByUsername(createdByUsername)
                 .orElseThrow(() -> new RuntimeException("Creator user not found"));
         
@@ -45,35 +84,48 @@ public class TaskService {
         task.setCreatedAt(LocalDateTime.now());
         task.setUpdatedAt(LocalDateTime.now());
 
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        auditService.record(AuditAction.CREATE, "task", saved.getId(), createdByUsername,
+                saved.getTitle() + " -> " + assignedToUsername);
+        return TaskView.from(saved);
     }
 
     // Get all tasks
-    public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+    public List<TaskView> getAllTasks() {
+        return taskRepository.findAllViews();
+    }
+
+    // Get all tasks with only the requested fields; the users table is joined only for assignedTo/createdBy fields
+    public List<Map<String, Object>> getAllTasks(String fields) {
+        return TASK_FIELDS.query(jdbcTemplate, TASK_FIELDS.resolve(fields));
     }
 
     // Get tasks assigned to a specific user
-    public List<Task> getTasksByAssignedUser(String username) {
+    public List<TaskView> getTasksByAssignedUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return taskRepository.findByAssignedTo(user);
     }
 
     // Get tasks created by a specific user
-    public List<Task> getTasksByCreatedUser(String username) {
+    public List<TaskView> getTasksByCreatedUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return taskRepository.findByCreatedBy(user);
     }
 
     // Get task by ID
-    public Optional<Task> getTaskById(Long id) {
-        return taskRepository.findById(id);
+    public Optional<TaskView> getTaskById(Long id) {
+        return taskRepository.findViewById(id);
+    }
+
+    // Get several tasks by id in one query
+    public BatchResult<TaskView> getTasksByIds(List<Long> ids) {
+        return batchLookup.fetch("task", ids, taskRepository::findViewsByIds, TaskView::id);
     }
 
     // Update task
-    public Task updateTask(Long id, Task taskDetails, String username) {
+    public TaskView updateTask(Long id, Task taskDetails, String username) {
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
 
@@ -106,7 +158,9 @@ public class TaskService {
 
         task.setUpdatedAt(LocalDateTime.now());
 
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        auditService.record(AuditAction.UPDATE, "task", id, username, saved.getTitle() + " [" + saved.getStatus() + "]");
+        return TaskView.from(saved);
     }
 
     // Delete task
@@ -124,10 +178,11 @@ public class TaskService {
         }
 
         taskRepository.delete(task);
+        auditService.record(AuditAction.DELETE, "task", id, username, task.getTitle());
     }
 
     // Get overdue tasks for a user
-    public List<Task> getOverdueTasks(String username) {
+    public List<TaskView> getOverdueTasks(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return taskRepository.findOverdueTasksByUser(user);
@@ -141,14 +196,14 @@ public class TaskService {
         Long pending = taskRepository.countByAssignedToAndStatus(user, TaskStatus.PENDING);
         Long inProgress = taskRepository.countByAssignedToAndStatus(user, TaskStatus.IN_PROGRESS);
         Long completed = taskRepository.countByAssignedToAndStatus(user, TaskStatus.COMPLETED);
-        Long overdue = (long) taskRepository.findOverdueTasksByUser(user).size();
+        Long overdue = taskRepository.countOverdueTasksByUser(user);
 
         return new TaskStats(pending, inProgress, completed, overdue);
     }
 
     // Get all staff members for task assignment
-    public List<User> getStaffMembers() {
-        return userRepository.findByRole(User.Role.STAFF);
+    public List<UserSummary> getStaffMembers() {
+        return staleWhileRevalidate.read("tasks.staff", () -> userRepository.findByRole(User.Role.STAFF));
     }
 
     // Inner class for task statistics
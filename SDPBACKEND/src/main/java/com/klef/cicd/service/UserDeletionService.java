@@ -0,0 +1,335 @@
+package com.klef.cicd.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.UserDeletionView;
+import com.klef.cicd.dto.UserDeletionView.Status;
+import com.klef.cicd.event.StockChangedEvent;
+import com.klef.cicd.model.AuditAction;
+import com.klef.cicd.model.StockMovement;
+import com.klef.cicd.model.StockMovementReason;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.UserRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Deletes a user together with the products and tasks that reference it,
+ * or first hands those over to another user, with set-based statements
+ * rather than the entity cascade, which loaded every product and task and
+ * removed them one row at a time.
+ *
+ * Dependents are processed in chunks of {@code app.users.delete.chunk-size}
+ * ids: one SELECT on the foreign key index, then one DELETE or UPDATE per
+ * table with an IN list. Deleted products get the same cleanup as a single
+ * product delete (location stock, supplier links, REMOVED ledger entry,
+ * audit). A user with at most {@code app.users.delete.sync-limit} dependent
+ * rows is removed in one transaction before the call returns. Larger ones
+ * run as a background job that commits each chunk on its own, so no lock
+ * is held for long, and reports progress through {@link #getJob}. The user
+ * row goes last, in one transaction with anything created meanwhile.
+ * Jobs are kept in memory only; every chunk is committed, so a job cut
+ * short by a restart is resumed by deleting the user again.
+ */
+@Service
+public class UserDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDeletionService.class);
+
+    private static final int MAX_JOBS = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StockWriteBehindBuffer stockWriteBehindBuffer;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.users.delete.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.users.delete.sync-limit:2000}")
+    private long syncLimit;
+
+    // One job at a time, so large deletions do not compete with each other for locks
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("user-deletion").daemon().factory());
+
+    // The most recent jobs; finished ones are evicted oldest first
+    private final Map<String, Job> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > MAX_JOBS && eldest.getValue().status != Status.RUNNING;
+        }
+    });
+
+    // reassignTo moves the user's products and tasks to that user instead of deleting them
+    public UserDeletionView delete(Long userId, String reassignTo, String actor) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long targetId = null;
+        if (reassignTo != null) {
+            targetId = userRepository.findByUsername(reassignTo)
+                    .orElseThrow(() -> new RuntimeException("User to reassign to not found: " + reassignTo))
+                    .getId();
+            if (targetId.equals(userId)) {
+                throw new RuntimeException("Cannot reassign to the user being deleted");
+            }
+        }
+
+        Job job = new Job(userId, user.getUsername(), reassignTo, targetId, actor);
+        job.productsTotal = count("SELECT COUNT(*) FROM products WHERE created_by = ?", userId);
+        job.assignedTasksTotal = count("SELECT COUNT(*) FROM tasks WHERE assigned_to_id = ?", userId);
+        // When deleting, tasks the user created for themselves are already gone with the assigned ones
+        job.createdTasksTotal = targetId != null
+                ? count("SELECT COUNT(*) FROM tasks WHERE created_by_id = ?", userId)
+                : count("SELECT COUNT(*) FROM tasks WHERE created_by_id = ? AND assigned_to_id <> ?", userId, userId);
+        synchronized (jobs) {
+            for (Job other : jobs.values()) {
+                if (other.status == Status.RUNNING && other.userId.equals(userId)) {
+                    throw new RuntimeException("User is already being deleted (job " + other.id + ")");
+                }
+            }
+            jobs.put(job.id, job);
+        }
+
+        if (job.total() > syncLimit) {
+            worker.submit(() -> run(job));
+            return job.view();
+        }
+        try {
+            flushPendingStock();
+            transactionTemplate.executeWithoutResult(status -> finish(job));
+            job.complete(null);
+        } catch (RuntimeException e) {
+            job.complete(e);
+            throw e;
+        }
+        return job.view();
+    }
+
+    public UserDeletionView getJob(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Deletion job not found");
+        }
+        return job.view();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // Background path: each chunk commits on its own, then the user row goes with whatever is left
+    private void run(Job job) {
+        try {
+            for (ChunkStep step : steps()) {
+                int processed;
+                do {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new RuntimeException("Interrupted by shutdown; delete the user again to resume");
+                    }
+                    flushPendingStock();
+                    processed = transactionTemplate.execute(status -> step.apply(job));
+                } while (processed == chunkSize);
+            }
+            flushPendingStock();
+            transactionTemplate.executeWithoutResult(status -> finish(job));
+            job.complete(null);
+            log.info("Deleted user {} ({} products, {} assigned and {} created tasks)", job.username,
+                    job.productsDone, job.assignedTasksDone, job.createdTasksDone);
+        } catch (RuntimeException e) {
+            log.error("Deleting user {} failed after {} products, {} assigned and {} created tasks", job.username,
+                    job.productsDone, job.assignedTasksDone, job.createdTasksDone, e);
+            job.complete(e);
+        }
+    }
+
+    // Everything still referencing the user, then the user row itself
+    private void finish(Job job) {
+        for (ChunkStep step : steps()) {
+            int processed;
+            do {
+                processed = step.apply(job);
+            } while (processed == chunkSize);
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", job.userId);
+        String detail = job.reassignTo != null
+                ? String.format("%d products, %d assigned and %d created tasks reassigned to %s",
+                        job.productsDone.get(), job.assignedTasksDone.get(), job.createdTasksDone.get(), job.reassignTo)
+                : String.format("%d products, %d assigned and %d created tasks deleted",
+                        job.productsDone.get(), job.assignedTasksDone.get(), job.createdTasksDone.get());
+        auditService.record(AuditAction.DELETE, "user", job.userId, job.actor, job.username + ": " + detail);
+    }
+
+    // Products first, then tasks by assignee, then the tasks the user created for others
+    private List<ChunkStep> steps() {
+        return List.of(
+                this::products,
+                job -> tasks(job, "assigned_to_id", job.assignedTasksDone),
+                job -> tasks(job, "created_by_id", job.createdTasksDone));
+    }
+
+    private int products(Job job) {
+        Map<Long, String> names = new LinkedHashMap<>();
+        List<StockMovement> removed = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, name, stock FROM products WHERE created_by = ? LIMIT ?", rs -> {
+            names.put(rs.getLong(1), rs.getString(2));
+            removed.add(new StockMovement(rs.getLong(1), -rs.getInt(3), 0, StockMovementReason.REMOVED, job.actor));
+        }, job.userId, chunkSize);
+        if (names.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(names.keySet());
+        String in = placeholders(ids.size());
+        if (job.targetId != null) {
+            jdbcTemplate.update("UPDATE products SET created_by = ? WHERE id IN (" + in + ")", prepend(job.targetId, ids));
+            ids.forEach(id -> auditService.record(AuditAction.UPDATE, "product", id, job.actor,
+                    "owner " + job.username + " -> " + job.reassignTo));
+        } else {
+            Object[] args = ids.toArray();
+            jdbcTemplate.update("DELETE FROM location_stock WHERE product_id IN (" + in + ")", args);
+            jdbcTemplate.update("DELETE FROM product_suppliers WHERE product_id IN (" + in + ")", args);
+            jdbcTemplate.update("DELETE FROM products WHERE id IN (" + in + ")", args);
+            stockLedgerService.append(removed);
+            eventPublisher.publishEvent(new StockChangedEvent(ids));
+            names.forEach((id, name) -> auditService.record(AuditAction.DELETE, "product", id, job.actor, name));
+        }
+        job.productsDone.addAndGet(ids.size());
+        return ids.size();
+    }
+
+    // column is assigned_to_id or created_by_id
+    private int tasks(Job job, String column, AtomicLong done) {
+        Map<Long, String> titles = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, title FROM tasks WHERE " + column + " = ? LIMIT ?", rs -> {
+            titles.put(rs.getLong(1), rs.getString(2));
+        }, job.userId, chunkSize);
+        if (titles.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(titles.keySet());
+        String in = placeholders(ids.size());
+        if (job.targetId != null) {
+            List<Object> args = new ArrayList<>(List.of(job.targetId, Timestamp.valueOf(LocalDateTime.now())));
+            args.addAll(ids);
+            jdbcTemplate.update("UPDATE tasks SET " + column + " = ?, updated_at = ? WHERE id IN (" + in + ")",
+                    args.toArray());
+            String field = column.equals("assigned_to_id") ? "assignedTo " : "createdBy ";
+            ids.forEach(id -> auditService.record(AuditAction.UPDATE, "task", id, job.actor,
+                    field + job.username + " -> " + job.reassignTo));
+        } else {
+            jdbcTemplate.update("DELETE FROM tasks WHERE id IN (" + in + ")", ids.toArray());
+            titles.forEach((id, title) -> auditService.record(AuditAction.DELETE, "task", id, job.actor, title));
+        }
+        done.addAndGet(ids.size());
+        return ids.size();
+    }
+
+    private void flushPendingStock() {
+        if (stockWriteBehindBuffer.isEnabled()) {
+            stockWriteBehindBuffer.flush();
+        }
+    }
+
+    private long count(String sql, Object... args) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return count != null ? count : 0;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] prepend(Object first, List<Long> ids) {
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(first);
+        args.addAll(ids);
+        return args.toArray();
+    }
+
+    interface ChunkStep {
+        int apply(Job job);
+    }
+
+    private static final class Job {
+
+        final String id = UUID.randomUUID().toString();
+        final Long userId;
+        final String username;
+        final String reassignTo;
+        final Long targetId;
+        final String actor;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        // Counted before the job is published
+        long productsTotal;
+        long assignedTasksTotal;
+        long createdTasksTotal;
+        final AtomicLong productsDone = new AtomicLong();
+        final AtomicLong assignedTasksDone = new AtomicLong();
+        final AtomicLong createdTasksDone = new AtomicLong();
+        volatile Status status = Status.RUNNING;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(Long userId, String username, String reassignTo, Long targetId, String actor) {
+            this.userId = userId;
+            this.username = username;
+            this.reassignTo = reassignTo;
+            this.targetId = targetId;
+            this.actor = actor;
+        }
+
+        long total() {
+            return productsTotal + assignedTasksTotal + createdTasksTotal;
+        }
+
+        void complete(RuntimeException failure) {
+            error = failure != null ? failure.getMessage() : null;
+            finishedAt = LocalDateTime.now();
+            status = failure != null ? Status.FAILED : Status.COMPLETED;
+        }
+
+        UserDeletionView view() {
+            return new UserDeletionView(id, userId, username, reassignTo, status,
+                    productsTotal, productsDone.get(),
+                    assignedTasksTotal, assignedTasksDone.get(),
+                    createdTasksTotal, createdTasksDone.get(),
+                    startedAt, finishedAt, error);
+        }
+    }
+}
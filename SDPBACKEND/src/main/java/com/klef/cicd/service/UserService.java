@@ -3,26 +3,51 @@ package com.klef.cicd.service;
 import com.klef.cicd.dto.AuthResponse;
 import com.klef.cicd.dto.LoginRequest;
 import com.klef.cicd.dto.RegisterRequest;
+import com.klef.cicd.dto.UserDeletionView;
 import com.klef.cicd.dto.UserResponse;
+import com.klef.cicd.model.AuditAction;
 import com.klef.cicd.model.User;
 import com.klef.cicd.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
     
+    // The password hash is deliberately not selectable
+    private static final FieldProjection USER_FIELDS = new FieldProjection("users u", "u.id")
+            .column("id", "u.id", Long.class)
+            .column("username", "u.username", String.class)
+            .column("email", "u.email", String.class)
+            .column("role", "u.role", String.class);
+    
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private PasswordHashService passwordHashService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    @Autowired
+    private UserDeletionService userDeletionService;
+    
     public AuthResponse login(LoginRequest loginRequest) {
-        User user = userRepository.findByUsernameOrEmail(loginRequest.getUsername(), loginRequest.getUsername())
+        // Two unique-index lookups rather than one OR query, which databases without index merging scan
+        User user = userRepository.findByUsername(loginRequest.getUsername())
+                .or(() -> userRepository.findByEmail(loginRequest.getUsername()))
                 .orElseThrow(() -> new RuntimeException("Invalid credentials"));
         
-        if (!loginRequest.getPassword().equals(user.getPassword())) {
+        if (!passwordHashService.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid credentials");
         }
         
@@ -31,6 +56,12 @@ public class UserService {
                     "' has role '" + user.getRole() + "', not '" + loginRequest.getRole() + "'");
         }
         
+        // Upgrade plaintext or weaker hashes now that we know the raw password; only on a login that succeeds
+        if (passwordHashService.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHashService.hash(loginRequest.getPassword()));
+            userRepository.save(user);
+        }
+        
         String token = "mock-token-" + user.getId();
         UserResponse userResponse = convertToUserResponse(user);
         
@@ -49,10 +80,12 @@ public class UserService {
         User user = new User();
         user.setUsername(registerRequest.getUsername());
         user.setEmail(registerRequest.getEmail());
-        user.setPassword(registerRequest.getPassword());
+        user.setPassword(passwordHashService.hash(registerRequest.getPassword()));
         user.setRole(User.Role.valueOf(registerRequest.getRole().toUpperCase()));
         
         User savedUser = userRepository.save(user);
+        auditService.record(AuditAction.CREATE, "user", savedUser.getId(), savedUser.getUsername(),
+                "registered as " + savedUser.getRole());
         String token = "mock-token-" + savedUser.getId();
         UserResponse userResponse = convertToUserResponse(savedUser);
         
@@ -65,13 +98,21 @@ public class UserService {
         return convertToUserResponse(user);
     }
     
+    public long getTotalUsersCount() {
+        return userRepository.count();
+    }
+    
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(this::convertToUserResponse)
                 .collect(Collectors.toList());
     }
     
-    public UserResponse createUser(RegisterRequest registerRequest) {
+    public List<Map<String, Object>> getAllUsers(String fields) {
+        return USER_FIELDS.query(jdbcTemplate, USER_FIELDS.resolve(fields));
+    }
+    
+    public UserResponse createUser(RegisterRequest registerRequest, String username) {
         if (userRepository.existsByUsername(registerRequest.getUsername())) {
             throw new RuntimeException("Username already exists");
         }
@@ -83,14 +124,16 @@ public class UserService {
         User user = new User();
         user.setUsername(registerRequest.getUsername());
         user.setEmail(registerRequest.getEmail());
-        user.setPassword(registerRequest.getPassword());
+        user.setPassword(passwordHashService.hash(registerRequest.getPassword()));
         user.setRole(User.Role.valueOf(registerRequest.getRole().toUpperCase()));
         
         User savedUser = userRepository.save(user);
+        auditService.record(AuditAction.CREATE, "user", savedUser.getId(), username,
+                savedUser.getUsername() + " as " + savedUser.getRole());
         return convertToUserResponse(savedUser);
     }
     
-    public UserResponse updateUser(Long id, RegisterRequest registerRequest) {
+    public UserResponse updateUser(Long id, RegisterRequest registerRequest, String username) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -109,18 +152,22 @@ public class UserService {
         user.setRole(User.Role.valueOf(registerRequest.getRole().toUpperCase()));
         
         if (registerRequest.getPassword() != null && !registerRequest.getPassword().isEmpty()) {
-            user.setPassword(registerRequest.getPassword());
+            user.setPassword(passwordHashService.hash(registerRequest.getPassword()));
         }
         
         User savedUser = userRepository.save(user);
+        auditService.record(AuditAction.UPDATE, "user", id, username,
+                savedUser.getUsername() + " as " + savedUser.getRole());
         return convertToUserResponse(savedUser);
     }
     
-    public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found");
-        }
-        userRepository.deleteById(id);
+    // Set-based rather than through the entity cascade; large users continue as a background job
+    public UserDeletionView deleteUser(Long id, String reassignTo, String username) {
+        return userDeletionService.delete(id, reassignTo, username);
+    }
+    
+    public UserDeletionView getDeletion(String jobId) {
+        return userDeletionService.getJob(jobId);
     }
     
     private UserResponse convertToUserResponse(User user) {
@@ -0,0 +1,137 @@
+package com.klef.cicd.service;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.springframework.core.env.Environment;
+import org.springframework.util.ReflectionUtils;
+
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.UserSummary;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.ProductRepository;
+import com.klef.cicd.repository.TaskRepository;
+import com.klef.cicd.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Private copies of the read services, wired to in-memory repositories
+ * filled with generated fixtures.
+ *
+ * Warm-up runs the same service code as real requests, but nothing here
+ * reaches the database or the application's shared caches and metrics:
+ * the services, their stale-read cache and the write-behind buffer are
+ * all instances of their own. Any repository method without a fixture
+ * answer throws.
+ */
+class WarmupSandbox implements AutoCloseable {
+
+    static final int PRODUCTS = 500;
+    static final int STAFF = 20;
+
+    private static final String[] CATEGORIES = {"Electronics", "Furniture", "Stationery", "Tools", "Storage"};
+
+    final ProductService productService = new ProductService();
+    final TaskService taskService = new TaskService();
+
+    private final StaleWhileRevalidate staleWhileRevalidate;
+    private final List<ProductView> products = new ArrayList<>(PRODUCTS);
+    private final List<UserSummary> staff = new ArrayList<>(STAFF);
+
+    WarmupSandbox(Environment environment) {
+        // Fixed seed: every start warms the same shapes
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            int threshold = 5 + random.nextInt(20);
+            products.add(new ProductView(id, "Warm-up product " + id, CATEGORIES[(int) (id % CATEGORIES.length)],
+                    random.nextInt(threshold * 4), BigDecimal.valueOf(100 + random.nextInt(100_000), 2), threshold,
+                    now.minusDays(random.nextInt(365)), now.minusMinutes(random.nextInt(10_000))));
+        }
+        for (long id = 1; id <= STAFF; id++) {
+            staff.add(new UserSummary(id, "warmup-staff-" + id, "warmup-staff-" + id + "@example.invalid", User.Role.STAFF));
+        }
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        staleWhileRevalidate = new StaleWhileRevalidate(2000, 1);
+        wire(staleWhileRevalidate, "singleFlight", new SingleFlight(registry, environment));
+        wire(staleWhileRevalidate, "dbCircuitBreaker", new DbCircuitBreaker(1000, 3, 15000, registry));
+        wire(staleWhileRevalidate, "meterRegistry", registry);
+
+        wire(productService, "productRepository", repository(ProductRepository.class, Map.of(
+                "findAllViews", args -> products,
+                "findViewsByIds", args -> products.stream().filter(p -> ((Collection<?>) args[0]).contains(p.id())).toList(),
+                "findLowStockProducts", args -> products.stream().filter(p -> headroom(p) <= 0).toList(),
+                "findNearlyLowStockProducts", args -> products.stream()
+                        .filter(p -> headroom(p) > 0 && headroom(p) <= (Integer) args[0])
+                        .sorted(Comparator.comparingInt(WarmupSandbox::headroom).thenComparing(ProductView::id))
+                        .toList(),
+                "countLowStockProducts", args -> products.stream().filter(p -> headroom(p) <= 0).count(),
+                "count", args -> (long) products.size())));
+        wire(productService, "stockWriteBehindBuffer", new StockWriteBehindBuffer());
+        wire(productService, "staleWhileRevalidate", staleWhileRevalidate);
+
+        wire(taskService, "userRepository", repository(UserRepository.class, Map.of(
+                "findByRole", args -> staff,
+                "findByUsername", args -> Optional.of(new User((String) args[0], args[0] + "@example.invalid", "",
+                        User.Role.STAFF)))));
+        wire(taskService, "taskRepository", repository(TaskRepository.class, Map.of(
+                "countByAssignedToAndStatus", args -> 3L,
+                "countOverdueTasksByUser", args -> 1L)));
+        wire(taskService, "staleWhileRevalidate", staleWhileRevalidate);
+    }
+
+    List<UserSummary> staff() {
+        return staff;
+    }
+
+    @Override
+    public void close() {
+        staleWhileRevalidate.shutdown();
+    }
+
+    private static int headroom(ProductView product) {
+        return product.stock() - product.lowStockThreshold();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R repository(Class<R> type, Map<String, Function<Object[], Object>> answers) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "Warm-up " + type.getSimpleName();
+                };
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                        + " is not available during warm-up");
+            }
+            return answer.apply(args == null ? new Object[0] : args);
+        };
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static void wire(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass().getSimpleName() + " has no field " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,171 @@
+package com.klef.cicd.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import com.klef.cicd.dto.DashboardBootstrap;
+import com.klef.cicd.dto.DashboardStats;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.UserResponse;
+import com.klef.cicd.dto.UserSummary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs the hot read paths on synthetic data right after startup so the JIT
+ * has compiled them before real traffic arrives.
+ *
+ * Each iteration calls the product and task read services of a
+ * {@link WarmupSandbox}, which are wired to in-memory repositories, and
+ * writes the results and the dashboard DTOs through the application's HTTP
+ * message converters in JSON, CBOR and Smile. Nothing reaches the database
+ * or the application's caches.
+ *
+ * Runs as an application runner, so Spring Boot only flips readiness to
+ * ACCEPTING_TRAFFIC once it returns: either all iterations are done or the
+ * time budget has run out.
+ */
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WarmupService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            new MediaType("application", "x-jackson-smile"));
+
+    @Autowired
+    private ObjectProvider<HttpMessageConverters> httpMessageConverters;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.iterations:500}")
+    private int iterations;
+
+    @Value("${app.warmup.budget-ms:30000}")
+    private long budgetMillis;
+
+    private final AtomicInteger warmupIterations = new AtomicInteger();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        List<HttpMessageConverter<?>> converters = httpMessageConverters.getIfAvailable(
+                () -> new HttpMessageConverters(List.of())).getConverters();
+
+        int completed = 0;
+        int failures = 0;
+        boolean budgetExpired = false;
+        try (WarmupSandbox sandbox = new WarmupSandbox(environment)) {
+            for (int i = 0; i < iterations; i++) {
+                if (System.nanoTime() > deadline) {
+                    budgetExpired = true;
+                    break;
+                }
+                try {
+                    warmOnce(sandbox, converters, i);
+                } catch (Exception e) {
+                    failures++;
+                    log.debug("Warm-up iteration failed: {}", e.getMessage());
+                }
+                completed++;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        Timer.builder("app.warmup.duration")
+                .description("Time spent warming up hot paths before reporting ready")
+                .tag("outcome", budgetExpired ? "budget_expired" : "completed")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        warmupIterations.set(completed);
+        meterRegistry.gauge("app.warmup.iterations", warmupIterations);
+
+        log.info("Warm-up {} after {} ms: {} iterations, {} failed",
+                budgetExpired ? "stopped at time budget" : "completed",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), completed, failures);
+    }
+
+    // The same service calls and response bodies as the product list, low stock, dashboard and task endpoints
+    private void warmOnce(WarmupSandbox sandbox, List<HttpMessageConverter<?>> converters, int iteration)
+            throws IOException {
+        ProductService products = sandbox.productService;
+        List<UserSummary> staff = sandbox.taskService.getStaffMembers();
+        UserSummary user = staff.get(iteration % staff.size());
+
+        List<ProductView> all = products.getAllProducts();
+        List<ProductView> lowStock = products.getLowStockProducts();
+        List<ProductView> nearlyLow = products.getNearlyLowStockProducts(10);
+        DashboardStats stats = new DashboardStats(products.getTotalProductsCount(), products.getLowStockCount(),
+                0, staff.size());
+        TaskService.TaskStats taskStats = sandbox.taskService.getTaskStats(user.username());
+        DashboardBootstrap bootstrap = new DashboardBootstrap(stats, lowStock, taskStats,
+                new UserResponse(user.id(), user.username(), user.email(), user.role().name()), Map.of(), Map.of(), 0);
+
+        for (Object body : List.of(all, lowStock, nearlyLow, stats, staff, taskStats, bootstrap)) {
+            for (MediaType format : FORMATS) {
+                write(converters, body, format);
+            }
+        }
+    }
+
+    // Like content negotiation: the first converter that can write the body in that format does
+    @SuppressWarnings("unchecked")
+    private static void write(List<HttpMessageConverter<?>> converters, Object body, MediaType format)
+            throws IOException {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(body.getClass(), format)) {
+                ((HttpMessageConverter<Object>) converter).write(body, format, new DiscardingOutputMessage());
+                return;
+            }
+        }
+    }
+
+    private static class DiscardingOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
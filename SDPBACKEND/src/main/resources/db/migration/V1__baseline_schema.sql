@@ -0,0 +1,214 @@
+-- Baseline: the schema as spring.jpa.hibernate.ddl-auto=update created it, constraint names included.
+-- Databases created that way are baselined at this version, so later migrations apply to both alike.
+
+create table audit_log (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    entity_id bigint not null,
+    entity_type varchar(32) not null,
+    detail varchar(500),
+    username varchar(255),
+    action enum ('CREATE','DELETE','UPDATE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table inventory_rollup_checkpoint (
+    id bigint not null,
+    rollup_date date not null,
+    computed_at datetime(6) not null,
+    last_movement_id bigint not null,
+    previous_movement_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table inventory_rollup_state (
+    product_id bigint not null,
+    low_stock bit not null,
+    price decimal(10,2) not null,
+    stock integer not null,
+    category varchar(255) not null,
+    primary key (product_id)
+) engine=InnoDB;
+
+create table inventory_rollups (
+    id bigint not null auto_increment,
+    rollup_date date not null,
+    total_value decimal(19,2) not null,
+    computed_at datetime(6) not null,
+    low_stock_count bigint not null,
+    sku_count bigint not null,
+    units bigint not null,
+    category varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table location_stock (
+    id bigint not null auto_increment,
+    low_stock_threshold integer,
+    stock integer not null,
+    location_id bigint not null,
+    product_id bigint not null,
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table locations (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    code varchar(32) not null,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table product_forecasts (
+    product_id bigint not null,
+    daily_velocity float(23) not null,
+    demand_std_dev float(23) not null,
+    lead_time_days integer not null,
+    reorder_point integer not null,
+    reorder_quantity integer not null,
+    computed_at datetime(6) not null,
+    primary key (product_id)
+) engine=InnoDB;
+
+create table product_suppliers (
+    id bigint not null auto_increment,
+    lead_time_days integer,
+    min_order_quantity integer,
+    preferred bit not null,
+    unit_cost decimal(10,2),
+    created_at datetime(6),
+    product_id bigint not null,
+    supplier_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table products (
+    id bigint not null auto_increment,
+    low_stock_threshold integer not null,
+    price decimal(10,2) not null,
+    stock integer not null,
+    created_at datetime(6),
+    created_by bigint,
+    updated_at datetime(6),
+    category varchar(255) not null,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table purchase_order_lines (
+    id bigint not null auto_increment,
+    quantity integer not null,
+    unit_cost decimal(10,2),
+    product_id bigint not null,
+    purchase_order_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table purchase_orders (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    supplier_id bigint not null,
+    updated_at datetime(6),
+    status enum ('CANCELLED','DRAFT','RECEIVED','SUBMITTED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_movements (
+    id bigint not null auto_increment,
+    delta integer not null,
+    stock_after integer not null,
+    created_at datetime(6) not null,
+    product_id bigint not null,
+    username varchar(255),
+    reason enum ('ADJUSTMENT','INITIAL','REMOVED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_reservations (
+    id varchar(36) not null,
+    quantity integer not null,
+    closed_at datetime(6),
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    product_id bigint not null,
+    reference varchar(255),
+    username varchar(255),
+    status enum ('ACTIVE','CONSUMED','EXPIRED','RELEASED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_snapshots (
+    id bigint not null auto_increment,
+    stock integer not null,
+    last_movement_id bigint not null,
+    product_id bigint not null,
+    taken_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_write_checkpoint (
+    id bigint not null,
+    last_seq bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table suppliers (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    updated_at datetime(6),
+    contact varchar(255) not null,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    phone varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table tasks (
+    id bigint not null auto_increment,
+    assigned_to_id bigint not null,
+    completed_at datetime(6),
+    created_at datetime(6),
+    created_by_id bigint not null,
+    due_date datetime(6),
+    updated_at datetime(6),
+    description TEXT,
+    title varchar(255) not null,
+    priority enum ('HIGH','LOW','MEDIUM','URGENT') not null,
+    status enum ('CANCELLED','COMPLETED','IN_PROGRESS','PENDING') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    role enum ('ADMIN','MANAGER','STAFF') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_audit_log_entity on audit_log (entity_type, entity_id, id);
+create index idx_audit_log_username on audit_log (username, id);
+create index idx_audit_log_action on audit_log (action, id);
+create index idx_audit_log_created on audit_log (created_at);
+alter table inventory_rollups add constraint uk_inventory_rollups_date_category unique (rollup_date, category);
+create index idx_location_stock_location_stock on location_stock (location_id, stock);
+alter table location_stock add constraint uk_location_stock_product_location unique (product_id, location_id);
+alter table locations add constraint UKnjcw38t3qcy312pglqpf3pd59 unique (code);
+create index idx_product_suppliers_supplier on product_suppliers (supplier_id);
+alter table product_suppliers add constraint uk_product_suppliers_product_supplier unique (product_id, supplier_id);
+create index idx_products_updated_at on products (updated_at);
+create index idx_purchase_order_lines_order on purchase_order_lines (purchase_order_id);
+create index idx_purchase_order_lines_product on purchase_order_lines (product_id);
+create index idx_purchase_orders_supplier_status on purchase_orders (supplier_id, status);
+create index idx_stock_movements_product_id on stock_movements (product_id, id);
+create index idx_stock_movements_product_created on stock_movements (product_id, created_at);
+create index idx_stock_reservations_status_expires on stock_reservations (status, expires_at);
+create index idx_stock_reservations_product_status on stock_reservations (product_id, status);
+create index idx_stock_snapshots_product_taken on stock_snapshots (product_id, taken_at);
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+alter table products add constraint FKl0lce8i162ldn9n01t2a6lcix foreign key (created_by) references users (id);
+alter table tasks add constraint FK4516wfa828r15k9u3iw5er4vi foreign key (assigned_to_id) references users (id);
+alter table tasks add constraint FKmeg3m9hk7eyq7u5kpot87f9ey foreign key (created_by_id) references users (id);
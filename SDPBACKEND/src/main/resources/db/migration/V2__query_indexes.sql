@@ -0,0 +1,21 @@
+-- Secondary indexes for the repository queries. Each index names the queries it serves;
+-- RepositoryQueryPlanTests fails when a filtered repository query falls back to a full scan.
+-- products.created_by, tasks.assigned_to_id and tasks.created_by_id are already indexed through their foreign keys.
+
+-- ProductRepository.findByCategory
+create index idx_products_category on products (category);
+
+-- TaskRepository.findByAssignedTo, findByAssignedToAndStatus, countByAssignedToAndStatus
+create index idx_tasks_assigned_status on tasks (assigned_to_id, status);
+
+-- TaskRepository.findOverdueTasksByUser, countOverdueTasksByUser
+create index idx_tasks_assigned_due on tasks (assigned_to_id, due_date);
+
+-- TaskRepository.findByStatus
+create index idx_tasks_status_due on tasks (status, due_date);
+
+-- TaskRepository.findOverdueTasks (status != 'COMPLETED' cannot use an index, the due date range can)
+create index idx_tasks_due_date on tasks (due_date);
+
+-- UserRepository.findByRole
+create index idx_users_role on users (role);
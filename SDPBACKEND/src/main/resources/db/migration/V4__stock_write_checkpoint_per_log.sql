@@ -0,0 +1,16 @@
+-- Write-behind intent sequences are numbered per intent log, so each log keeps its own checkpoint.
+-- With one shared row, a second node (even briefly, during a rolling update) made the other skip or
+-- re-apply intents. The old row belongs to the log written before logs had an id; that log adopts
+-- the id 'legacy' on its next start.
+create table stock_write_checkpoints (
+    log_id varchar(64) not null,
+    node varchar(255),
+    last_seq bigint not null,
+    updated_at datetime(6),
+    primary key (log_id)
+) engine=InnoDB;
+
+insert into stock_write_checkpoints (log_id, node, last_seq)
+    select 'legacy', null, last_seq from stock_write_checkpoint where id = 1;
+
+drop table stock_write_checkpoint;
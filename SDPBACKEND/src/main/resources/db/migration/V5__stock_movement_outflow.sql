@@ -0,0 +1,6 @@
+-- Units a movement took out of stock. For a single change this is -delta when the delta is negative.
+-- A coalesced write-behind movement nets receipts against picks, so its outflow can be larger than
+-- -delta (+50 and -30 in one flush is delta 20, outflow 30). Demand forecasts read consumption from here.
+alter table stock_movements add column outflow integer not null default 0;
+
+update stock_movements set outflow = -delta where delta < 0;
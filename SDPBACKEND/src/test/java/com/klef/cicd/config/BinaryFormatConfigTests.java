@@ -0,0 +1,132 @@
+package com.klef.cicd.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.klef.cicd.model.Product;
+
+class BinaryFormatConfigTests {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final BinaryFormatConfig config = new BinaryFormatConfig();
+    private final ObjectMapper json = builder().build();
+    private final ObjectMapper cbor = config.cborHttpMessageConverter(builder()).getObjectMapper();
+    private final ObjectMapper smile = config.smileHttpMessageConverter(builder()).getObjectMapper();
+
+    @Test
+    void binaryFormatsCarryTheSamePayloadAsJson() throws Exception {
+        List<Product> products = products(3);
+        products.get(1).setCategory(null);
+
+        JsonNode expected = json.readTree(json.writeValueAsBytes(products));
+
+        // Compared as text: binary formats keep BigDecimal as a decimal node where JSON parses a double
+        assertEquals(expected.toString(), cbor.readTree(cbor.writeValueAsBytes(products)).toString());
+        assertEquals(expected.toString(), smile.readTree(smile.writeValueAsBytes(products)).toString());
+        // The application's Jackson settings apply: nulls are left out and dates are ISO strings
+        assertFalse(expected.get(1).has("category"));
+        assertTrue(expected.get(0).get("createdAt").isTextual());
+    }
+
+    @Test
+    void convertersOnlyAnswerTheirOwnMediaType() {
+        MappingJackson2CborHttpMessageConverter cborConverter = config.cborHttpMessageConverter(builder());
+        MappingJackson2SmileHttpMessageConverter smileConverter = config.smileHttpMessageConverter(builder());
+
+        assertTrue(cborConverter.canWrite(List.class, MediaType.APPLICATION_CBOR));
+        assertFalse(cborConverter.canWrite(List.class, MediaType.APPLICATION_JSON));
+        assertTrue(smileConverter.canWrite(List.class, SMILE));
+        assertFalse(smileConverter.canWrite(List.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void binaryFormatsAreSmallerThanJson() throws Exception {
+        List<Product> products = products(1_000);
+        int jsonSize = json.writeValueAsBytes(products).length;
+
+        assertTrue(cbor.writeValueAsBytes(products).length < jsonSize);
+        assertTrue(smile.writeValueAsBytes(products).length < jsonSize);
+    }
+
+    // Payload size and serialization time of the product list in each format, with and without gzip
+    @Test
+    @Tag("benchmark")
+    void compareFormats() throws Exception {
+        for (int rows : new int[] {10_000, 100_000}) {
+            List<Product> products = products(rows);
+
+            // One untimed pass so the first format isn't paying for class loading
+            json.writeValueAsBytes(products);
+            cbor.writeValueAsBytes(products);
+            smile.writeValueAsBytes(products);
+
+            int jsonSize = report("json", rows, json, products);
+            assertTrue(report("cbor", rows, cbor, products) < jsonSize);
+            assertTrue(report("smile", rows, smile, products) < jsonSize);
+        }
+    }
+
+    private int report(String format, int rows, ObjectMapper mapper, List<Product> products) throws Exception {
+        long start = System.nanoTime();
+        byte[] body = mapper.writeValueAsBytes(products);
+        long serializeMicros = (System.nanoTime() - start) / 1000;
+
+        start = System.nanoTime();
+        int gzipped = gzip(body).length;
+        long gzipMicros = (System.nanoTime() - start) / 1000;
+
+        System.out.printf("%-6s %,7d rows: %,11d bytes (%,10d gzipped)  serialize %,7d us  gzip %,7d us%n",
+                format, rows, body.length, gzipped, serializeMicros, gzipMicros);
+        return body.length;
+    }
+
+    // Mirrors the spring.jackson.* settings in application.properties
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.FAIL_ON_EMPTY_BEANS, SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static List<Product> products(int rows) {
+        String[] categories = {"Electronics", "Furniture", "Stationery", "Hardware", "Cleaning"};
+        LocalDateTime now = LocalDateTime.now();
+        List<Product> products = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Product product = new Product("Product " + i, categories[i % categories.length],
+                    i % 500, new BigDecimal((i % 10_000) + ".99"), 10 + i % 40);
+            product.setId((long) i + 1);
+            product.setCreatedAt(now.minusMinutes(i));
+            product.setUpdatedAt(now);
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static byte[] gzip(byte[] body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+package com.klef.cicd.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitInterceptorTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(new MockEnvironment()
+            .withProperty("app.concurrency.bulk-paths", "/api/products/bulk/**")
+            .withProperty("app.concurrency.bulk.initial-limit", "1")
+            .withProperty("app.concurrency.bulk.min-limit", "1")
+            .withProperty("app.concurrency.bulk.max-limit", "1")
+            .withProperty("app.concurrency.retry-after-seconds", "3"), registry);
+
+    @Test
+    void requestsOverTheLimitGet429() throws Exception {
+        MockHttpServletRequest first = request("POST", "/api/products/bulk/import");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("POST", "/api/products/bulk/import"), rejected, null));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("3", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Server is busy"));
+        assertEquals(1.0, registry.get("app.concurrency.rejected").tag("class", "bulk").counter().count());
+
+        // Finishing the first request frees its slot
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertEquals(0.0, inFlight("bulk"));
+        assertTrue(interceptor.preHandle(request("POST", "/api/products/bulk/import"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void classesHaveSeparateLimits() throws Exception {
+        assertTrue(interceptor.preHandle(request("POST", "/api/products/bulk/import"), new MockHttpServletResponse(), null));
+
+        assertTrue(interceptor.preHandle(request("GET", "/api/products"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("PUT", "/api/products/1"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("POST", "/api/auth/login"), new MockHttpServletResponse(), null));
+
+        assertEquals(1.0, inFlight("bulk"));
+        assertEquals(1.0, inFlight("reads"));
+        assertEquals(1.0, inFlight("writes"));
+        assertEquals(1.0, inFlight("auth"));
+    }
+
+    @Test
+    void preflightsAndUnadmittedRequestsHoldNoSlot() throws Exception {
+        MockHttpServletRequest preflight = request("OPTIONS", "/api/products/bulk/import");
+        assertTrue(interceptor.preHandle(preflight, new MockHttpServletResponse(), null));
+        interceptor.afterCompletion(preflight, new MockHttpServletResponse(), null, null);
+        assertEquals(0.0, inFlight("bulk"));
+
+        // Completing a rejected request must not release someone else's slot
+        assertTrue(interceptor.preHandle(request("POST", "/api/products/bulk/import"), new MockHttpServletResponse(), null));
+        MockHttpServletRequest rejected = request("POST", "/api/products/bulk/import");
+        assertFalse(interceptor.preHandle(rejected, new MockHttpServletResponse(), null));
+        interceptor.afterCompletion(rejected, new MockHttpServletResponse(), null, null);
+        assertEquals(1.0, inFlight("bulk"));
+    }
+
+    private double inFlight(String endpointClass) {
+        return registry.get("app.concurrency.in-flight").tag("class", endpointClass).gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+}
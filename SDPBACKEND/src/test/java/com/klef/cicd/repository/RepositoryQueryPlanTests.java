@@ -0,0 +1,171 @@
+package com.klef.cicd.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import com.klef.cicd.model.TaskStatus;
+import com.klef.cicd.model.User;
+
+/**
+ * Runs every query method declared on the product, task, user and supplier
+ * repositories against an embedded database built by the Flyway migrations,
+ * captures the SQL Hibernate sends and fails when EXPLAIN shows a full table
+ * scan for a filtered query. Unfiltered listings are expected to scan.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.klef.cicd.repository.RepositoryQueryPlanTests$CapturingInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTests {
+
+    // Queries no index can serve, and why
+    private static final Map<String, String> SCAN_ALLOWED = Map.of(
+            "ProductRepository.findByNameContainingIgnoreCase", "substring match",
+            "SupplierRepository.findByNameContainingIgnoreCase", "substring match",
+            "SupplierRepository.findByContactContainingIgnoreCase", "substring match",
+            "SupplierRepository.findByEmailContainingIgnoreCase", "substring match");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void filteredRepositoryQueriesUseAnIndex() throws Exception {
+        User user = entityManager.persistAndFlush(new User("planner", "planner@example.com", "x", User.Role.STAFF));
+
+        List<String> failures = new ArrayList<>();
+        int checked = 0;
+        for (Object repository : List.of(productRepository, taskRepository, userRepository, supplierRepository)) {
+            Class<?> type = repositoryInterface(repository);
+            Method[] methods = type.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                String name = type.getSimpleName() + "." + method.getName();
+                CapturingInspector.STATEMENTS.clear();
+                method.invoke(repository, arguments(method, user));
+                entityManager.flush();
+                for (String sql : CapturingInspector.STATEMENTS) {
+                    String plan = explain(sql);
+                    checked++;
+                    boolean filtered = sql.toLowerCase().contains(" where ");
+                    if (filtered && plan.contains("tableScan") && !SCAN_ALLOWED.containsKey(name)) {
+                        failures.add(name + ":\n    " + sql + "\n    " + plan.replace('\n', ' '));
+                    }
+                }
+            }
+        }
+        System.out.printf("Explained %d statements, %d full scans allowed%n", checked, SCAN_ALLOWED.size());
+        assertTrue(failures.isEmpty(), "Full table scans:\n" + String.join("\n", failures));
+    }
+
+    private static Class<?> repositoryInterface(Object repository) {
+        for (Class<?> candidate : repository.getClass().getInterfaces()) {
+            if (candidate.getPackageName().equals(RepositoryQueryPlanTests.class.getPackageName())) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No repository interface on " + repository.getClass());
+    }
+
+    private static Object[] arguments(Method method, User user) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (type == Long.class || type == long.class) {
+                args[i] = 1L;
+            } else if (type == Integer.class || type == int.class) {
+                args[i] = 1;
+            } else if (type == String.class) {
+                args[i] = "a";
+            } else if (Collection.class.isAssignableFrom(type)) {
+                args[i] = List.of(1L, 2L);
+            } else if (type == LocalDateTime.class) {
+                args[i] = LocalDateTime.now();
+            } else if (type == User.class) {
+                args[i] = user;
+            } else if (type == User.Role.class) {
+                args[i] = User.Role.STAFF;
+            } else if (type == TaskStatus.class) {
+                args[i] = TaskStatus.PENDING;
+            } else {
+                throw new IllegalStateException("No sample value for " + type + " in " + method);
+            }
+        }
+        return args;
+    }
+
+    // Parameters are bound as NULL: the plan depends on the shape of the query, not the values
+    private String explain(String sql) throws Exception {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setNull(i, Types.NULL);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
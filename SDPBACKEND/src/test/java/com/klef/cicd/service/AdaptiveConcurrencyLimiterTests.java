@@ -0,0 +1,171 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void growsWhenBusyAndHealthyShrinksWhenSlow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 1.5);
+
+        runBatches(limiter, 200, 10 * MS);
+        int grown = limiter.getLimit();
+        assertTrue(grown > 100, "grown to " + grown);
+
+        runBatches(limiter, 20, 100 * MS);
+        int shrunk = limiter.getLimit();
+        assertTrue(shrunk < grown / 4, "shrunk to " + shrunk);
+
+        runBatches(limiter, 200, 10 * MS);
+        assertTrue(limiter.getLimit() > shrunk * 2, "recovered to " + limiter.getLimit());
+    }
+
+    @Test
+    void limitStaysWithinItsBounds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 60, 1.5);
+
+        runBatches(limiter, 500, 10 * MS);
+        assertEquals(60, limiter.getLimit());
+
+        runBatches(limiter, 500, 1_000 * MS);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void idleTrafficDoesNotRaiseTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 1.5);
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(10 * MS);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void neverAdmitsMoreThanTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 8, 8, 1.5);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(8, limiter.getInFlight());
+        limiter.release(MS);
+        assertEquals(7, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 4, 4, 1.5);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < 16; c++) {
+                futures.add(callers.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        if (limiter.tryAcquire()) {
+                            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                            Thread.yield();
+                            active.decrementAndGet();
+                            limiter.release(MS);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdown();
+        }
+        assertTrue(peak.get() <= 4, "peak " + peak.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    // A server with 8 workers: every request beyond 8 in flight makes all of them slower
+    @Test
+    @Tag("benchmark")
+    void keepsLatencyNearCapacityUnderOverload() throws Exception {
+        long unlimited = simulate(null);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 2, 200, 1.5);
+        long limited = simulate(limiter);
+        System.out.printf("64 clients on 8 workers: avg latency %d ms unlimited, %d ms limited (limit %d)%n",
+                unlimited / MS, limited / MS, limiter.getLimit());
+        assertTrue(limited < unlimited, limited + " vs " + unlimited);
+    }
+
+    private static void runBatches(AdaptiveConcurrencyLimiter limiter, int batches, long latency) {
+        for (int b = 0; b < batches; b++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(latency);
+            }
+        }
+    }
+
+    // Average latency of admitted requests over two seconds
+    private static long simulate(AdaptiveConcurrencyLimiter limiter) throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicLong totalLatency = new AtomicLong();
+        AtomicLong served = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        ExecutorService clients = Executors.newFixedThreadPool(64);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < 64; c++) {
+            futures.add(clients.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    if (limiter != null && !limiter.tryAcquire()) {
+                        sleep(2);
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    int concurrent = active.incrementAndGet();
+                    sleep(4 * Math.max(1, concurrent / 8));
+                    active.decrementAndGet();
+                    long latency = System.nanoTime() - start;
+                    if (limiter != null) {
+                        limiter.release(latency);
+                    }
+                    totalLatency.addAndGet(latency);
+                    served.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        clients.shutdown();
+        return totalLatency.get() / Math.max(1, served.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.klef.cicd.model.AuditAction;
+
+class AuditRingBufferTests {
+
+    private static final int PRODUCERS = 8;
+    private static final int PER_PRODUCER = 20_000;
+    private static final LocalDateTime AT = LocalDateTime.now();
+
+    @Test
+    void rejectsWhenFullAndReusesDrainedSlots() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(AuditAction.CREATE, "product", i, "admin", null, AT));
+        }
+        assertFalse(buffer.offer(AuditAction.CREATE, "product", 4, "admin", null, AT));
+
+        List<Long> ids = new ArrayList<>();
+        assertEquals(2, buffer.drain(2, slot -> ids.add(slot.getEntityId())));
+        assertEquals(List.of(0L, 1L), ids);
+        assertTrue(buffer.offer(AuditAction.UPDATE, "product", 4, "admin", null, AT));
+        assertEquals(3, buffer.size());
+    }
+
+    @Test
+    void capacityRoundsUpToAPowerOfTwo() {
+        assertEquals(2, new AuditRingBuffer(0).capacity());
+        assertEquals(2, new AuditRingBuffer(2).capacity());
+        assertEquals(4, new AuditRingBuffer(3).capacity());
+        assertEquals(1024, new AuditRingBuffer(1000).capacity());
+        assertEquals(1024, new AuditRingBuffer(1024).capacity());
+    }
+
+    @Test
+    void drainsNothingWhenEmpty() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        assertEquals(0, buffer.drain(10, slot -> fail("empty buffer")));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void deliversEveryFieldAndClearsTheSlot() {
+        AuditRingBuffer buffer = new AuditRingBuffer(2);
+        buffer.offer(AuditAction.DELETE, "task", 7, "manager", "{\"title\":\"Count\"}", AT);
+
+        List<AuditRingBuffer.Slot> seen = new ArrayList<>();
+        buffer.drain(1, slot -> {
+            assertEquals(AuditAction.DELETE, slot.getAction());
+            assertEquals("task", slot.getEntityType());
+            assertEquals(7, slot.getEntityId());
+            assertEquals("manager", slot.getUsername());
+            assertEquals("{\"title\":\"Count\"}", slot.getDetail());
+            assertEquals(AT, slot.getCreatedAt());
+            seen.add(slot);
+        });
+
+        // Slots are reused, so nothing the sink saw survives the drain
+        assertNull(seen.get(0).getAction());
+        assertNull(seen.get(0).getDetail());
+    }
+
+    @Test
+    void keepsOrderAcrossManyLaps() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < 100; i += 3) {
+            for (long j = i; j < i + 3; j++) {
+                assertTrue(buffer.offer(AuditAction.UPDATE, "product", j, null, null, AT));
+            }
+            buffer.drain(3, slot -> ids.add(slot.getEntityId()));
+        }
+        assertEquals(LongStream.range(0, 102).boxed().toList(), ids);
+        assertEquals(0, buffer.size());
+    }
+
+    // Every record from every producer arrives exactly once, in order per producer
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(1024);
+        long[] lastSeen = new long[PRODUCERS];
+        Arrays.fill(lastSeen, -1);
+        run((producer, sequence) -> {
+            while (!buffer.offer(AuditAction.UPDATE, "p" + producer, sequence, null, null, AT)) {
+                Thread.yield();
+            }
+        }, max -> buffer.drain(max, slot -> {
+            int producer = Integer.parseInt(slot.getEntityType().substring(1));
+            assertEquals(lastSeen[producer] + 1, slot.getEntityId());
+            lastSeen[producer] = slot.getEntityId();
+        }), PER_PRODUCER);
+        for (long last : lastSeen) {
+            assertEquals(PER_PRODUCER - 1, last);
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void ringBufferAgainstBlockingQueue() throws Exception {
+        int perProducer = 250_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(1024);
+        long nanos = run((producer, sequence) -> {
+            while (!buffer.offer(AuditAction.UPDATE, "p" + producer, sequence, null, null, AT)) {
+                Thread.yield();
+            }
+        }, max -> buffer.drain(max, slot -> {}), perProducer);
+
+        ArrayBlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(1024);
+        long lockedNanos = run((producer, sequence) -> {
+            try {
+                queue.put(new Object[] {AuditAction.UPDATE, "p" + producer, sequence, null, null, AT});
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, max -> {
+            List<Object[]> batch = new ArrayList<>(max);
+            return queue.drainTo(batch, max);
+        }, perProducer);
+        System.out.printf("%d producers x %d records: ring buffer %d ms, ArrayBlockingQueue %d ms%n",
+                PRODUCERS, perProducer, nanos / 1_000_000, lockedNanos / 1_000_000);
+    }
+
+    interface Producer {
+        void publish(int producer, long sequence);
+    }
+
+    interface Drainer {
+        int drain(int max);
+    }
+
+    private static long run(Producer producer, Drainer drainer, int perProducer) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int id = p;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (long i = 0; i < perProducer; i++) {
+                    producer.publish(id, i);
+                }
+                return null;
+            }));
+        }
+        long total = (long) PRODUCERS * perProducer;
+        long begin = System.nanoTime();
+        start.countDown();
+        long consumed = 0;
+        while (consumed < total) {
+            int n = drainer.drain(500);
+            if (n == 0) {
+                Thread.yield();
+            }
+            consumed += n;
+        }
+        long elapsed = System.nanoTime() - begin;
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        return elapsed;
+    }
+}
@@ -0,0 +1,71 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.klef.cicd.model.AuditAction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditServiceTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<Object[]> inserted = new ArrayList<>();
+    private final AuditService audit = new AuditService();
+
+    {
+        ReflectionTestUtils.setField(audit, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(audit, "meterRegistry", registry);
+        ReflectionTestUtils.setField(audit, "enabled", true);
+        ReflectionTestUtils.setField(audit, "bufferCapacity", 64);
+        ReflectionTestUtils.setField(audit, "batchSize", 10);
+        ReflectionTestUtils.setField(audit, "flushIntervalMillis", 10L);
+        ReflectionTestUtils.setField(audit, "overflowWaitMillis", 0L);
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        audit.shutdown();
+    }
+
+    // Errors outside the database layer used to escape write() and end the writer thread
+    @Test
+    void theWriterOutlivesFailuresThatAreNotDataAccessErrors() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new IllegalStateException("Connection pool closed"))
+                .thenAnswer(invocation -> {
+                    inserted.addAll(invocation.getArgument(1));
+                    return new int[0];
+                });
+        audit.init();
+
+        audit.record(AuditAction.CREATE, "supplier", 1L, "ana", "Acme");
+        audit.flush();
+        // A record that cannot be converted fails all its attempts and is dropped
+        audit.record(null, "supplier", 2L, "ana", "Broken");
+        audit.flush();
+        audit.record(AuditAction.UPDATE, "supplier", 3L, "ana", "Acme Ltd");
+        audit.flush();
+
+        assertEquals(2, inserted.size());
+        assertEquals(List.of("CREATE", "supplier", 1L, "ana", "Acme"), List.of(inserted.get(0)).subList(0, 5));
+        assertEquals(List.of("UPDATE", "supplier", 3L, "ana", "Acme Ltd"), List.of(inserted.get(1)).subList(0, 5));
+        assertEquals(2, registry.get("app.audit.written").counter().count());
+        assertEquals(1, registry.get("app.audit.dropped").counter().count());
+        Thread writer = (Thread) ReflectionTestUtils.getField(audit, "writer");
+        assertTrue(writer.isAlive());
+    }
+}
@@ -0,0 +1,109 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.klef.cicd.dto.BatchResult;
+
+class BatchLookupTests {
+
+    private final BatchLookup lookup = new BatchLookup(200);
+    private final List<Collection<Long>> queries = new ArrayList<>();
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resolvesAllIdsInOneQueryAndReportsMissing() {
+        BatchResult<Long> result = lookup.fetch("product", List.of(3L, 1L, 3L, 99L), this::load, id -> id);
+        assertEquals(List.of(3L, 1L), result.items());
+        assertEquals(List.of(99L), result.missing());
+        assertEquals(List.of(List.of(3L, 1L, 99L)), queries);
+    }
+
+    @Test
+    void reusesRecordsAlreadyResolvedInTheSameRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        lookup.fetch("product", List.of(1L, 2L), this::load, id -> id);
+        BatchResult<Long> result = lookup.fetch("product", List.of(2L, 3L), this::load, id -> id);
+        assertEquals(List.of(2L, 3L), result.items());
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), queries);
+
+        // Another type has its own identity map
+        lookup.fetch("task", List.of(2L), this::load, id -> id);
+        assertEquals(3, queries.size());
+    }
+
+    @Test
+    void outsideARequestEveryCallQueries() {
+        lookup.fetch("product", List.of(1L), this::load, id -> id);
+        lookup.fetch("product", List.of(1L), this::load, id -> id);
+        assertEquals(List.of(List.of(1L), List.of(1L)), queries);
+    }
+
+    @Test
+    void missingIdsAreLookedUpAgain() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        lookup.fetch("product", List.of(1L, 99L), this::load, id -> id);
+        BatchResult<Long> result = lookup.fetch("product", List.of(1L, 99L), this::load, id -> id);
+        assertEquals(List.of(1L), result.items());
+        assertEquals(List.of(99L), result.missing());
+        assertEquals(List.of(List.of(1L, 99L), List.of(99L)), queries);
+    }
+
+    @Test
+    void theCapCountsDistinctIds() {
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 200).boxed().toList());
+        ids.addAll(ids);
+        ids.add(null);
+
+        BatchResult<Long> result = lookup.fetch("product", ids, this::load, id -> id);
+
+        assertEquals(50, result.items().size());
+        assertEquals(LongStream.rangeClosed(51, 200).boxed().toList(), result.missing());
+        assertEquals(1, queries.size());
+        assertEquals(200, queries.get(0).size());
+    }
+
+    @Test
+    void rejectsMoreThanTheCap() {
+        List<Long> ids = LongStream.rangeClosed(1, 201).boxed().toList();
+        RuntimeException e = assertThrows(RuntimeException.class, () -> lookup.fetch("product", ids, this::load, id -> id));
+        assertEquals("At most 200 ids per request, got 201", e.getMessage());
+        assertEquals(0, queries.size());
+    }
+
+    @Test
+    void rejectsAnEmptyList() {
+        List<Long> onlyNull = new ArrayList<>();
+        onlyNull.add(null);
+        assertThrows(RuntimeException.class, () -> lookup.fetch("product", List.of(), this::load, id -> id));
+        assertThrows(RuntimeException.class, () -> lookup.fetch("product", onlyNull, this::load, id -> id));
+        assertEquals(0, queries.size());
+    }
+
+    // Stands in for the IN query: ids up to 50 exist
+    private List<Long> load(Collection<Long> ids) {
+        queries.add(List.copyOf(ids));
+        List<Long> found = new ArrayList<>();
+        for (Long id : ids) {
+            if (id <= 50) {
+                found.add(id);
+            }
+        }
+        return found;
+    }
+}
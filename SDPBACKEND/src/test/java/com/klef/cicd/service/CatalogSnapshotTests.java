@@ -0,0 +1,244 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.klef.cicd.dto.AnalyticsGroup;
+import com.klef.cicd.dto.AnalyticsResult;
+import com.klef.cicd.dto.DistributionView;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.event.ForecastsUpdatedEvent;
+import com.klef.cicd.event.StockChangedEvent;
+
+class CatalogSnapshotTests {
+
+    private static final int[] NONE = {};
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private CatalogSnapshot snapshot;
+    // What ProductService returns on refresh, by id; a missing id reads as deleted
+    private final Map<Long, ProductView> current = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:catalog-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new RecordingJdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, category VARCHAR(255), stock INT, "
+                + "low_stock_threshold INT, price DECIMAL(38, 2))");
+        jdbcTemplate.execute("CREATE TABLE product_forecasts (product_id BIGINT PRIMARY KEY, daily_velocity REAL)");
+
+        ProductService productService = mock(ProductService.class);
+        when(productService.getProductsByIds(anyCollection())).thenAnswer(invocation -> {
+            List<ProductView> found = new ArrayList<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                if (current.containsKey(id)) {
+                    found.add(current.get(id));
+                }
+            }
+            return found;
+        });
+
+        snapshot = new CatalogSnapshot();
+        ReflectionTestUtils.setField(snapshot, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(snapshot, "productService", productService);
+        ReflectionTestUtils.setField(snapshot, "stockWriteBehindBuffer", new StockWriteBehindBuffer());
+        ReflectionTestUtils.setField(snapshot, "sketchRelativeAccuracy", 0.01);
+        ReflectionTestUtils.setField(snapshot, "sketchMaxBuckets", 2048);
+        jdbcTemplate.snapshot = snapshot;
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    // Rows stay in id order through inserts at the front, middle and end, removals and growth past capacity
+    @Test
+    void rowsStayInIdOrderAsProductsComeAndGo() {
+        for (long id = 2; id <= 2048; id += 2) {
+            insert(id, "Bolts", (int) id, 0, "1.00");
+        }
+        snapshot.size();
+
+        List<Long> changed = new ArrayList<>();
+        for (long id : new long[] {1, 1001, 4001, 5000}) {
+            current.put(id, view(id, "Nuts", (int) id, 0, "2.00"));
+            changed.add(id);
+        }
+        changed.add(2L);
+        changed.add(1000L);
+        // Absent from both sides: removing it is a no-op
+        changed.add(3L);
+        current.put(2048L, view(2048, "Nuts", 7, 0, "2.00"));
+        changed.add(2048L);
+        snapshot.onProductsChanged(new StockChangedEvent(changed));
+
+        int size = snapshot.size();
+        long[] ids = Arrays.copyOf((long[]) ReflectionTestUtils.getField(snapshot, "ids"), size);
+        int[] stock = Arrays.copyOf((int[]) ReflectionTestUtils.getField(snapshot, "stock"), size);
+        List<Long> expected = new ArrayList<>();
+        for (long id = 2; id <= 2048; id += 2) {
+            expected.add(id);
+        }
+        expected.removeAll(List.of(2L, 1000L));
+        expected.addAll(List.of(1L, 1001L, 4001L, 5000L));
+        expected.sort(null);
+
+        assertEquals(expected.size(), size);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), ids);
+        for (int row = 0; row < size; row++) {
+            assertEquals(ids[row] == 2048 ? 7 : (int) ids[row], stock[row], "stock of " + ids[row]);
+        }
+        AnalyticsResult nuts = snapshot.query("Nuts", null, null, null, false, NONE);
+        assertEquals(5, nuts.matched());
+        assertEquals(1 + 1001 + 4001 + 5000 + 7, nuts.groups().get(0).units());
+    }
+
+    @Test
+    void groupsCarryTheirTotalsLargestValueFirst() {
+        insert(1, "Bolts", 10, 20, "1.50");
+        insert(2, "Bolts", 30, 5, "2.50");
+        insert(3, "Gears", 4, 4, "100.00");
+        insert(4, "Gears", 0, 1, "20.00");
+
+        AnalyticsResult result = snapshot.query(null, null, null, null, true, NONE);
+
+        assertEquals(4, result.snapshotProducts());
+        assertEquals(4, result.matched());
+        assertEquals(List.of("Gears", "Bolts"), result.groups().stream().map(AnalyticsGroup::key).toList());
+        AnalyticsGroup gears = result.groups().get(0);
+        assertEquals(2, gears.products());
+        assertEquals(4, gears.units());
+        assertEquals(new BigDecimal("400.00"), gears.value());
+        assertEquals(2.0, gears.averageStock());
+        assertEquals(new BigDecimal("60.00"), gears.averagePrice());
+        assertEquals(2, gears.lowStock());
+        assertEquals(1.0, gears.lowStockRatio());
+        AnalyticsGroup bolts = result.groups().get(1);
+        assertEquals(2, bolts.products());
+        assertEquals(40, bolts.units());
+        assertEquals(new BigDecimal("90.00"), bolts.value());
+        assertEquals(new BigDecimal("2.00"), bolts.averagePrice());
+        assertEquals(1, bolts.lowStock());
+
+        AnalyticsGroup all = snapshot.query(null, null, null, null, false, NONE).groups().get(0);
+        assertEquals("all", all.key());
+        assertEquals(4, all.products());
+        assertEquals(44, all.units());
+        assertEquals(new BigDecimal("490.00"), all.value());
+    }
+
+    // Nearest rank: the smallest value with at least p% of the group at or below it
+    @Test
+    void percentilesAreByNearestRankWithinEachGroup() {
+        long id = 1;
+        for (int units : new int[] {7, -3, 1, 9, 4, 2, 8, 6, 5, 3}) {
+            insert(id++, "Bolts", units, 0, "1.00");
+        }
+        for (int units : new int[] {40, 10, 30, 20}) {
+            insert(id++, "Gears", units, 0, "100.00");
+        }
+        int[] percentiles = {0, 10, 50, 90, 95, 100};
+
+        Map<String, Map<String, Integer>> byGroup = new HashMap<>();
+        snapshot.query(null, null, null, null, true, percentiles).groups()
+                .forEach(group -> byGroup.put(group.key(), group.stockPercentiles()));
+
+        assertEquals(Map.of("p0", -3, "p10", -3, "p50", 4, "p90", 8, "p95", 9, "p100", 9), byGroup.get("Bolts"));
+        assertEquals(Map.of("p0", 10, "p10", 10, "p50", 20, "p90", 40, "p95", 40, "p100", 40), byGroup.get("Gears"));
+        assertEquals(List.of("p0", "p10", "p50", "p90", "p95", "p100"), List.copyOf(byGroup.get("Bolts").keySet()));
+        assertEquals(6, snapshot.query(null, null, null, null, false, new int[] {50}).groups().get(0)
+                .stockPercentiles().get("p50"));
+    }
+
+    @Test
+    void filtersOnCategoryLowStockAndStockRange() {
+        insert(1, "Bolts", 5, 10, "1.00");
+        insert(2, "Bolts", 10, 10, "1.00");
+        insert(3, "Bolts", 11, 10, "1.00");
+        insert(4, "Gears", 50, 10, "1.00");
+
+        assertEquals(3, snapshot.query("Bolts", null, null, null, false, NONE).matched());
+        AnalyticsResult unknown = snapshot.query("Springs", null, null, null, false, NONE);
+        assertEquals(4, unknown.snapshotProducts());
+        assertEquals(0, unknown.matched());
+        assertEquals(List.of(), unknown.groups());
+        // At the threshold counts as low
+        assertEquals(2, snapshot.query(null, true, null, null, false, NONE).matched());
+        assertEquals(2, snapshot.query(null, false, null, null, false, NONE).matched());
+        // Both bounds are inclusive
+        assertEquals(2, snapshot.query(null, null, 10, 11, false, NONE).matched());
+        assertEquals(1, snapshot.query("Bolts", false, 10, null, false, NONE).matched());
+        AnalyticsResult none = snapshot.query(null, null, 100, null, true, new int[] {50});
+        assertEquals(0, none.matched());
+        assertEquals(List.of(), none.groups());
+    }
+
+    @Test
+    void forecastsAreReadBeforeTheWriteLockIsTaken() {
+        insert(1, "Bolts", 30, 0, "1.00");
+        insert(2, "Bolts", 30, 0, "1.00");
+        snapshot.size();
+        assertEquals(2, snapshot.distribution("daysOfCover", null, NONE, 10).withoutValue());
+
+        jdbcTemplate.update("INSERT INTO product_forecasts (product_id, daily_velocity) VALUES (1, 3.0), (9, 1.0)");
+        jdbcTemplate.readsUnderWriteLock.clear();
+        snapshot.onForecastsUpdated(new ForecastsUpdatedEvent(2));
+
+        assertEquals(List.of(false), jdbcTemplate.readsUnderWriteLock);
+        DistributionView cover = snapshot.distribution("daysOfCover", null, new int[] {50}, 10);
+        assertEquals(1, cover.products());
+        assertEquals(1, cover.withoutValue());
+        assertEquals(10.0, cover.percentiles().get("p50"), 0.2);
+    }
+
+    private void insert(long id, String category, int stock, int threshold, String price) {
+        jdbcTemplate.update("INSERT INTO products (id, category, stock, low_stock_threshold, price) VALUES (?, ?, ?, ?, ?)",
+                id, category, stock, threshold, new BigDecimal(price));
+    }
+
+    private static ProductView view(long id, String category, int stock, int threshold, String price) {
+        return new ProductView(id, "Part " + id, category, stock, new BigDecimal(price), threshold, null, null);
+    }
+
+    // Notes whether the snapshot's write lock is held while each row-mapped query runs
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<Boolean> readsUnderWriteLock = new ArrayList<>();
+        CatalogSnapshot snapshot;
+
+        RecordingJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper) throws DataAccessException {
+            ReentrantReadWriteLock lock = (ReentrantReadWriteLock) ReflectionTestUtils.getField(snapshot, "lock");
+            readsUnderWriteLock.add(lock.isWriteLocked());
+            return super.query(sql, rowMapper);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.klef.cicd.dto.DashboardBootstrap;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.UserResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Services are mocks; the stale-read layer is real so the bootstrap sees exactly what a request would
+class DashboardServiceTests {
+
+    private static final ProductView LOW = new ProductView(7L, "Fuse", "Parts", 1, null, 5, null, null);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StaleWhileRevalidate reads = new StaleWhileRevalidate(100, 4);
+    private final ProductService productService = mock(ProductService.class);
+    private final SupplierService supplierService = mock(SupplierService.class);
+    private final UserService userService = mock(UserService.class);
+    private final TaskService taskService = mock(TaskService.class);
+    private final DashboardService dashboard = new DashboardService();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    {
+        ReflectionTestUtils.setField(reads, "singleFlight", new SingleFlight(registry, new MockEnvironment()));
+        ReflectionTestUtils.setField(reads, "dbCircuitBreaker", new DbCircuitBreaker(1000, 3, 15000, registry));
+        ReflectionTestUtils.setField(reads, "meterRegistry", registry);
+        ReflectionTestUtils.setField(dashboard, "productService", productService);
+        ReflectionTestUtils.setField(dashboard, "supplierService", supplierService);
+        ReflectionTestUtils.setField(dashboard, "userService", userService);
+        ReflectionTestUtils.setField(dashboard, "taskService", taskService);
+        ReflectionTestUtils.setField(dashboard, "staleWhileRevalidate", reads);
+        ReflectionTestUtils.setField(dashboard, "bootstrapDeadlineMillis", 500L);
+
+        when(productService.getTotalProductsCount()).thenReturn(40L);
+        when(productService.getLowStockCount()).thenReturn(1L);
+        when(supplierService.getTotalSuppliersCount()).thenReturn(3L);
+        when(userService.getTotalUsersCount()).thenReturn(5L);
+        when(productService.getLowStockProducts()).thenReturn(List.of(LOW));
+        when(taskService.getTaskStats("ana")).thenReturn(new TaskService.TaskStats(2L, 1L, 4L, 0L));
+        when(userService.getCurrentUser("ana")).thenReturn(new UserResponse(1L, "ana", "ana@example.com", "STAFF"));
+    }
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        dashboard.shutdown();
+        reads.shutdown();
+    }
+
+    @Test
+    void everyPartArrivesFresh() {
+        DashboardBootstrap bootstrap = dashboard.getBootstrap("ana");
+
+        assertEquals(40L, bootstrap.stats().getTotalProducts());
+        assertEquals(List.of(LOW), bootstrap.lowStockProducts());
+        assertEquals(4L, bootstrap.taskStats().getCompleted());
+        assertEquals("ana", bootstrap.user().getUsername());
+        assertTrue(bootstrap.unavailable().isEmpty());
+        assertTrue(bootstrap.stale().isEmpty());
+    }
+
+    @Test
+    void aPartPastTheDeadlineIsLeftOut() throws Exception {
+        when(userService.getCurrentUser("ana")).thenAnswer(invocation -> {
+            release.await();
+            return null;
+        });
+
+        long start = System.nanoTime();
+        DashboardBootstrap bootstrap = dashboard.getBootstrap("ana");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertNull(bootstrap.user());
+        assertEquals(Map.of("user", "Timed out"), bootstrap.unavailable());
+        assertEquals(List.of(LOW), bootstrap.lowStockProducts());
+        assertTrue(elapsedMillis >= 500 && elapsedMillis < 5_000, "took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void failedPartsAreListedWithTheirError() {
+        when(taskService.getTaskStats("ana")).thenThrow(new RuntimeException("User not found"));
+        when(productService.getLowStockProducts()).thenThrow(new RuntimeException("Connection refused"));
+
+        DashboardBootstrap bootstrap = dashboard.getBootstrap("ana");
+
+        assertNull(bootstrap.taskStats());
+        assertNull(bootstrap.lowStockProducts());
+        assertEquals(Map.of("lowStockProducts", "Connection refused", "taskStats", "User not found"),
+                bootstrap.unavailable());
+        assertEquals(List.of("lowStockProducts", "taskStats"), List.copyOf(bootstrap.unavailable().keySet()));
+        assertEquals(40L, bootstrap.stats().getTotalProducts());
+    }
+
+    // The guarded reads run on the bootstrap's virtual threads, where no response exists to carry X-Data-Stale
+    @Test
+    void staleReadsAreReportedPerPart() {
+        assertEquals(40L, dashboard.getBootstrap("ana").stats().getTotalProducts());
+        when(productService.getTotalProductsCount()).thenThrow(new RuntimeException("Connection refused"));
+        when(productService.getLowStockProducts()).thenAnswer(invocation -> reads.read("products.low-stock", () -> {
+            throw new RuntimeException("Connection refused");
+        }));
+        reads.read("products.low-stock", () -> List.of(LOW));
+
+        DashboardBootstrap bootstrap = dashboard.getBootstrap("ana");
+
+        assertEquals(40L, bootstrap.stats().getTotalProducts());
+        assertEquals(List.of(LOW), bootstrap.lowStockProducts());
+        assertEquals(List.of("stats", "lowStockProducts"), List.copyOf(bootstrap.stale().keySet()));
+        assertTrue(bootstrap.stale().values().stream().allMatch(age -> age >= 0));
+        assertTrue(bootstrap.unavailable().isEmpty());
+    }
+
+    @Test
+    void nestedTrackingReportsToTheOuterCall() {
+        reads.read("products.low-stock", () -> List.of(LOW));
+
+        StaleWhileRevalidate.Tracked<Object> outer = reads.track(() -> {
+            StaleWhileRevalidate.Tracked<Object> inner = reads.track(() -> reads.read("products.low-stock", () -> {
+                throw new RuntimeException("Connection refused");
+            }));
+            assertTrue(inner.stale());
+            return inner.value();
+        });
+        StaleWhileRevalidate.Tracked<Object> fresh = reads.track(() -> reads.read("products.low-stock", () -> List.of()));
+
+        assertTrue(outer.stale());
+        assertEquals(List.of(LOW), outer.value());
+        assertEquals(-1, fresh.ageSeconds());
+    }
+}
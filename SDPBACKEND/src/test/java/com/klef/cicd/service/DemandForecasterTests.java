@@ -0,0 +1,165 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class DemandForecasterTests {
+
+    private static final int DAYS = 28;
+
+    private final DemandForecaster forecaster = new DemandForecaster(DAYS, 2048, 1.65, 14);
+
+    @Test
+    void computesReorderPointFromVelocityAndVariability() {
+        int[] leadTimes = {7, 7, 4};
+        int[] minOrders = {0, 100, 0};
+        AtomicInteger withDemand = new AtomicInteger();
+
+        DemandForecaster.Forecasts forecasts = forecaster.forecast(ForkJoinPool.commonPool(), leadTimes, minOrders,
+                (from, to, series) -> {
+                    for (int d = 0; d < DAYS; d++) {
+                        series[d] = 5;                          // steady 5 a day
+                        series[DAYS + d] = d % 2 == 0 ? 0 : 10; // same average, but volatile
+                    }                                           // third SKU: no demand
+                },
+                (from, to, result) -> {}, withDemand);
+
+        assertEquals(2, withDemand.get());
+        assertEquals(5.0f, forecasts.velocity[0]);
+        assertEquals(35, forecasts.reorderPoint[0]);
+        assertEquals(70, forecasts.reorderQuantity[0]);
+        // 35 + 1.65 x 5 x sqrt(7) = 56.8
+        assertEquals(57, forecasts.reorderPoint[1]);
+        assertEquals(100, forecasts.reorderQuantity[1]);
+        assertEquals(0, forecasts.reorderPoint[2]);
+        assertEquals(0, forecasts.reorderQuantity[2]);
+    }
+
+    @Test
+    void anyDemandOrdersAtLeastOneUnit() {
+        AtomicInteger withDemand = new AtomicInteger();
+
+        DemandForecaster.Forecasts forecasts = forecaster.forecast(ForkJoinPool.commonPool(), new int[] {7}, new int[] {0},
+                (from, to, series) -> series[DAYS - 1] = 1, (from, to, result) -> {}, withDemand);
+
+        assertEquals(1, withDemand.get());
+        assertEquals(1, forecasts.reorderQuantity[0]);
+        assertTrue(forecasts.reorderPoint[0] >= 1);
+    }
+
+    // Small chunks split the work many times; every SKU is still loaded and written exactly once,
+    // and the results are the same as computing everything in one chunk
+    @Test
+    void chunkedRunMatchesASingleChunk() {
+        int skus = 1_000;
+        int[] leadTimes = new int[skus];
+        int[] minOrders = new int[skus];
+        for (int i = 0; i < skus; i++) {
+            leadTimes[i] = 3 + i % 12;
+            minOrders[i] = i % 5 == 0 ? 50 : 0;
+        }
+        DemandForecaster.HistoryLoader loader = (from, to, series) -> {
+            for (int i = from; i < to; i++) {
+                for (int d = 0; d < DAYS; d++) {
+                    series[(i - from) * DAYS + d] = i % 7 == 0 ? 0 : (i % 20) + (d % 7 == 5 ? i % 9 : 0);
+                }
+            }
+        };
+        AtomicIntegerArray writes = new AtomicIntegerArray(skus);
+        AtomicInteger largestChunk = new AtomicInteger();
+        AtomicInteger chunkedDemand = new AtomicInteger();
+
+        DemandForecaster.Forecasts chunked = new DemandForecaster(DAYS, 16, 1.65, 14).forecast(ForkJoinPool.commonPool(),
+                leadTimes, minOrders, loader, (from, to, result) -> {
+                    largestChunk.accumulateAndGet(to - from, Math::max);
+                    for (int i = from; i < to; i++) {
+                        writes.incrementAndGet(i);
+                    }
+                }, chunkedDemand);
+        AtomicInteger wholeDemand = new AtomicInteger();
+        DemandForecaster.Forecasts whole = new DemandForecaster(DAYS, skus, 1.65, 14).forecast(ForkJoinPool.commonPool(),
+                leadTimes, minOrders, loader, (from, to, result) -> {}, wholeDemand);
+
+        for (int i = 0; i < skus; i++) {
+            assertEquals(1, writes.get(i), "writes of SKU " + i);
+        }
+        assertTrue(largestChunk.get() <= 16);
+        assertEquals(wholeDemand.get(), chunkedDemand.get());
+        assertArrayEquals(whole.velocity, chunked.velocity);
+        assertArrayEquals(whole.reorderPoint, chunked.reorderPoint);
+        assertArrayEquals(whole.reorderQuantity, chunked.reorderQuantity);
+    }
+
+    @Test
+    void noSkusLoadNothing() {
+        AtomicInteger loads = new AtomicInteger();
+
+        DemandForecaster.Forecasts forecasts = forecaster.forecast(ForkJoinPool.commonPool(), new int[0], new int[0],
+                (from, to, series) -> loads.incrementAndGet(), (from, to, result) -> loads.incrementAndGet(),
+                new AtomicInteger());
+
+        assertEquals(0, loads.get());
+        assertEquals(0, forecasts.reorderPoint.length);
+    }
+
+    @Test
+    void loaderFailureFailsTheRun() {
+        RuntimeException failure = assertThrows(RuntimeException.class, () -> forecaster.forecast(ForkJoinPool.commonPool(),
+                new int[] {7, 7}, new int[] {0, 0}, (from, to, series) -> {
+                    throw new RuntimeException("ledger unavailable");
+                }, (from, to, result) -> {}, new AtomicInteger()));
+        // Fork-join rethrows a worker's exception in the caller, possibly wrapped
+        assertTrue(failure.getMessage().contains("ledger unavailable"), failure.getMessage());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void forecastsHalfAMillionSkus() {
+        int skus = 500_000;
+        int[] leadTimes = new int[skus];
+        int[] minOrders = new int[skus];
+        for (int i = 0; i < skus; i++) {
+            leadTimes[i] = 3 + i % 12;
+            minOrders[i] = i % 5 == 0 ? 50 : 0;
+        }
+        AtomicLong written = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        for (int run = 0; run < 3; run++) {
+            written.set(0);
+            AtomicInteger withDemand = new AtomicInteger();
+            long start = System.nanoTime();
+            DemandForecaster.Forecasts forecasts = forecaster.forecast(pool, leadTimes, minOrders,
+                    (from, to, series) -> {
+                        // Synthetic ledger: weekly seasonality, one SKU in seven idle
+                        for (int i = from; i < to; i++) {
+                            if (i % 7 == 0) {
+                                continue;
+                            }
+                            int base = (i - from) * DAYS;
+                            for (int d = 0; d < DAYS; d++) {
+                                series[base + d] = (i % 20) + (d % 7 == 5 ? i % 9 : 0);
+                            }
+                        }
+                    },
+                    (from, to, result) -> written.addAndGet(to - from), withDemand);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("forecast %,d skus x %d days: %,d ms (%,d with demand)%n", skus, DAYS, millis, withDemand.get());
+
+            assertEquals(skus, written.get());
+            assertTrue(Arrays.stream(forecasts.reorderQuantity).allMatch(quantity -> quantity >= 0));
+        }
+        pool.shutdown();
+    }
+}
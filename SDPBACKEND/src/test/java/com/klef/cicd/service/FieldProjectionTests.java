@@ -0,0 +1,81 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class FieldProjectionTests {
+
+    private final FieldProjection tasks = new FieldProjection("tasks t", "t.id")
+            .join("assignedTo", "JOIN users a ON a.id = t.assigned_to_id")
+            .column("id", "t.id", Long.class)
+            .column("title", "t.title", String.class)
+            .column("description", "t.description", String.class)
+            .column("dueDate", "t.due_date", LocalDateTime.class)
+            .column("assignedTo.id", "a.id", Long.class, "assignedTo")
+            .column("assignedTo.username", "a.username", String.class, "assignedTo");
+
+    @Test
+    void selectsOnlyRequestedColumns() {
+        List<String> fields = tasks.resolve("title, dueDate");
+        assertEquals(List.of("id", "title", "dueDate"), fields);
+        assertEquals("SELECT t.id, t.title, t.due_date FROM tasks t ORDER BY t.id", tasks.sql(fields));
+    }
+
+    @Test
+    void joinsOnlyWhenANestedFieldIsRequested() {
+        assertFalse(tasks.sql(tasks.resolve("title")).contains("JOIN"));
+        String sql = tasks.sql(tasks.resolve("assignedTo.username"));
+        assertTrue(sql.contains("JOIN users a"), sql);
+        assertTrue(sql.startsWith("SELECT t.id, a.username FROM"), sql);
+    }
+
+    @Test
+    void objectNameSelectsAllItsFields() {
+        assertEquals(List.of("id", "assignedTo.id", "assignedTo.username"), tasks.resolve("assignedTo"));
+    }
+
+    @Test
+    void blankAndRepeatedFieldsAreIgnored() {
+        assertEquals(List.of("id", "title"), tasks.resolve(" , title,title,"));
+        assertEquals(List.of("id"), tasks.resolve(""));
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> tasks.resolve("title,password"));
+        assertTrue(e.getMessage().startsWith("Unknown field: password"), e.getMessage());
+        // A prefix of a field name is not a field
+        assertThrows(RuntimeException.class, () -> tasks.resolve("assigned"));
+    }
+
+    @Test
+    void rowsNestDottedFields() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:field-projection;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE tasks (id BIGINT PRIMARY KEY, title VARCHAR(50), description VARCHAR(50), "
+                + "due_date TIMESTAMP, assigned_to_id BIGINT)");
+        jdbcTemplate.update("INSERT INTO users VALUES (7, 'priya')");
+        jdbcTemplate.update("INSERT INTO tasks VALUES (2, 'Count shelf B', 'all bins', NULL, 7)");
+        jdbcTemplate.update("INSERT INTO tasks VALUES (1, 'Restock', NULL, NULL, 7)");
+        try {
+            List<Map<String, Object>> rows = tasks.query(jdbcTemplate, tasks.resolve("title,assignedTo.username"));
+
+            assertEquals(2, rows.size());
+            assertEquals(Map.of("id", 1L, "title", "Restock", "assignedTo", Map.of("username", "priya")), rows.get(0));
+            assertEquals(List.of("id", "title", "assignedTo"), List.copyOf(rows.get(1).keySet()));
+        } finally {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.ForecastRun;
+
+class ForecastServiceTests {
+
+    private static final int DAYS = 28;
+
+    private JdbcTemplate jdbcTemplate;
+    private ForecastService forecastService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:forecast-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE product_suppliers (product_id BIGINT, lead_time_days INT, "
+                + "min_order_quantity INT, preferred BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE stock_movements (id BIGINT AUTO_INCREMENT PRIMARY KEY, product_id BIGINT, "
+                + "delta INT, outflow INT, reason VARCHAR(20), created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE product_forecasts (product_id BIGINT PRIMARY KEY, daily_velocity REAL, "
+                + "demand_std_dev REAL, lead_time_days INT, reorder_point INT, reorder_quantity INT, computed_at TIMESTAMP)");
+
+        forecastService = new ForecastService();
+        ReflectionTestUtils.setField(forecastService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(forecastService, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(forecastService, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        ReflectionTestUtils.setField(forecastService, "lookbackDays", DAYS);
+        ReflectionTestUtils.setField(forecastService, "chunkSize", 2048);
+        ReflectionTestUtils.setField(forecastService, "parallelism", 2);
+        ReflectionTestUtils.setField(forecastService, "serviceLevelZ", 1.65);
+        ReflectionTestUtils.setField(forecastService, "coverDays", 14);
+        ReflectionTestUtils.setField(forecastService, "defaultLeadTimeDays", 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void consumptionIsTheOutflowOfAdjustments() {
+        LocalDateTime yesterday = LocalDate.now().minusDays(1).atTime(10, 0);
+        for (long id = 1; id <= 4; id++) {
+            jdbcTemplate.update("INSERT INTO products (id) VALUES (?)", id);
+        }
+        // A flush that netted a +50 receipt against a -30 pick
+        movement(1, 20, 30, "ADJUSTMENT", yesterday);
+        // Receipts only
+        movement(2, 40, 0, "ADJUSTMENT", yesterday);
+        // Deleting a product is not demand, and today is not a whole day yet
+        movement(3, -10, 10, "REMOVED", yesterday);
+        movement(4, -8, 8, "ADJUSTMENT", LocalDateTime.now());
+
+        ForecastRun run = forecastService.runForecast();
+
+        assertEquals(4, run.products());
+        assertEquals(1, run.withDemand());
+        assertEquals(30f / DAYS, velocity(1), 1e-6);
+        assertEquals(0f, velocity(2));
+        assertEquals(0f, velocity(3));
+        assertEquals(0f, velocity(4));
+    }
+
+    // Elapsed milliseconds put these in the wrong day: the days before them were 25 and 23 hours long
+    @Test
+    void movementsAreBucketedByCalendarDayAcrossDstChanges() {
+        TimeZone original = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            assertEquals(7, ForecastService.dayIndex(LocalDate.of(2026, 10, 25),
+                    Timestamp.valueOf(LocalDateTime.of(2026, 11, 1, 23, 30))));
+            assertEquals(8, ForecastService.dayIndex(LocalDate.of(2026, 3, 1),
+                    Timestamp.valueOf(LocalDateTime.of(2026, 3, 9, 0, 30))));
+            assertEquals(0, ForecastService.dayIndex(LocalDate.of(2026, 3, 8),
+                    Timestamp.valueOf(LocalDateTime.of(2026, 3, 8, 23, 59))));
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    private void movement(long productId, int delta, int outflow, String reason, LocalDateTime at) {
+        jdbcTemplate.update("INSERT INTO stock_movements (product_id, delta, outflow, reason, created_at) "
+                + "VALUES (?, ?, ?, ?, ?)", productId, delta, outflow, reason, Timestamp.valueOf(at));
+    }
+
+    private float velocity(long productId) {
+        return jdbcTemplate.queryForObject("SELECT daily_velocity FROM product_forecasts WHERE product_id = ?",
+                Float.class, productId);
+    }
+}
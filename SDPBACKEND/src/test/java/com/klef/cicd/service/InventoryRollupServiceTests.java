@@ -0,0 +1,168 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.klef.cicd.dto.InventoryRollupView;
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.RollupRun;
+import com.klef.cicd.model.Product;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.UserRepository;
+
+// Each test starts with no rollups, so its first run is a full one; categories keep the tests' products apart
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory-rollup;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.show-sql=false",
+        "app.warmup.enabled=false",
+        "app.stock.write-behind.log-dir=${java.io.tmpdir}/inventory-rollup-tests",
+        "app.rollup.cron=-"
+})
+class InventoryRollupServiceTests {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private InventoryRollupService inventoryRollupService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM inventory_rollups");
+        jdbcTemplate.update("DELETE FROM inventory_rollup_state");
+        jdbcTemplate.update("DELETE FROM inventory_rollup_checkpoint");
+        username = "rollup-" + System.nanoTime();
+        userRepository.save(new User(username, username + "@example.com", "x", User.Role.MANAGER));
+    }
+
+    @Test
+    void firstRunAggregatesTheWholeCatalog() {
+        product("Full-A", 10, 5, "2.00");
+        product("Full-A", 3, 5, "10.00");
+        product("Full-B", 7, 1, "1.50");
+
+        RollupRun run = inventoryRollupService.rollup(TODAY.minusDays(1));
+
+        assertTrue(run.full());
+        assertEquals(0, run.productsChanged());
+        assertDay(TODAY.minusDays(1), "Full-A", "50.00", 13, 2, 1);
+        assertDay(TODAY.minusDays(1), "Full-B", "10.50", 7, 1, 0);
+    }
+
+    @Test
+    void laterRunsApplyOnlyTheChangedProducts() {
+        ProductView moved = product("Delta", 10, 5, "2.00");
+        ProductView untouched = product("Delta", 20, 5, "1.00");
+        ProductView raw = product("Delta", 30, 5, "1.00");
+        inventoryRollupService.rollup(TODAY.minusDays(2));
+        backdate();
+
+        productService.adjustStock(moved.id(), -7, username);
+        product("Delta", 4, 5, "5.00");
+        // A write that forgets updated_at is still stamped by the database
+        jdbcTemplate.update("UPDATE products SET stock = 31 WHERE id = ?", raw.id());
+        RollupRun run = inventoryRollupService.rollup(TODAY.minusDays(1));
+
+        assertFalse(run.full());
+        // Plus every deletion in the ledger: the first incremental run reads REMOVED movements from the start
+        assertEquals(3 + jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT product_id) FROM stock_movements "
+                + "WHERE reason = 'REMOVED'", Integer.class), run.productsChanged());
+        assertDay(TODAY.minusDays(2), "Delta", "70.00", 60, 3, 0);
+        // 3 x 2.00 + 20 x 1.00 + 31 x 1.00 + 4 x 5.00
+        assertDay(TODAY.minusDays(1), "Delta", "77.00", 58, 4, 2);
+        assertEquals(20, productService.getProductById(untouched.id()).orElseThrow().stock());
+    }
+
+    @Test
+    void reRunningADayCountsEachChangeOnce() {
+        ProductView product = product("Rerun", 10, 2, "3.00");
+        inventoryRollupService.rollup(TODAY.minusDays(1));
+        productService.adjustStock(product.id(), 5, username);
+
+        inventoryRollupService.rollup(TODAY.minusDays(1));
+        inventoryRollupService.rollup(TODAY.minusDays(1));
+
+        assertDay(TODAY.minusDays(1), "Rerun", "45.00", 15, 1, 0);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_rollups WHERE rollup_date = ? "
+                + "AND category = 'Rerun'", Integer.class, Date.valueOf(TODAY.minusDays(1))));
+    }
+
+    @Test
+    void deletedProductsLeaveTheTotals() {
+        ProductView kept = product("Removed", 10, 2, "1.00");
+        ProductView deleted = product("Removed", 6, 8, "4.00");
+        inventoryRollupService.rollup(TODAY.minusDays(2));
+        backdate();
+
+        productService.deleteProduct(deleted.id(), username);
+        inventoryRollupService.rollup(TODAY.minusDays(1));
+
+        assertDay(TODAY.minusDays(1), "Removed", "10.00", 10, 1, 0);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_rollup_state WHERE product_id = ?",
+                Integer.class, deleted.id()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_rollup_state WHERE product_id = ?",
+                Integer.class, kept.id()));
+    }
+
+    @Test
+    void daysAfterTodayAndBeforeTheLastRollupAreRejected() {
+        RuntimeException future = assertThrows(RuntimeException.class,
+                () -> inventoryRollupService.rollup(TODAY.plusDays(1)));
+        assertEquals("Cannot roll up a day after today", future.getMessage());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_rollup_checkpoint", Integer.class));
+
+        inventoryRollupService.rollup(TODAY);
+        assertThrows(RuntimeException.class, () -> inventoryRollupService.rollup(TODAY.minusDays(1)));
+    }
+
+    private ProductView product(String category, int stock, int threshold, String price) {
+        return productService.createProduct(new Product("Part", category, stock, new BigDecimal(price), threshold), username);
+    }
+
+    // Moves the last run and everything before it out of the next run's overlap window, as on an earlier day
+    private void backdate() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("UPDATE products SET updated_at = ?", Timestamp.valueOf(now.minusHours(1)));
+        jdbcTemplate.update("UPDATE inventory_rollup_checkpoint SET computed_at = ?", Timestamp.valueOf(now.minusMinutes(30)));
+    }
+
+    private void assertDay(LocalDate date, String category, String value, long units, long skus, long lowStock) {
+        List<InventoryRollupView> rows = inventoryRollupService.getRollups(date, date, category, false);
+        assertEquals(1, rows.size());
+        InventoryRollupView row = rows.get(0);
+        assertEquals(0, new BigDecimal(value).compareTo(row.totalValue()), "value on " + date);
+        assertEquals(units, row.units(), "units on " + date);
+        assertEquals(skus, row.skuCount(), "SKUs on " + date);
+        assertEquals(lowStock, row.lowStockCount(), "low stock on " + date);
+    }
+}
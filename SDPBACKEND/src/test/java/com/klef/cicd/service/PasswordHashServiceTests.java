@@ -0,0 +1,154 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class PasswordHashServiceTests {
+
+    private PasswordHashService passwordHashService;
+
+    @BeforeEach
+    void setUp() {
+        // Cost 4 keeps the functional tests fast; the benchmark below uses the production default
+        passwordHashService = new PasswordHashService(4, 2, 256, 30000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashService.shutdown();
+    }
+
+    @Test
+    void legacyPlaintextIsAcceptedAndFlaggedForRehash() {
+        assertTrue(passwordHashService.matches("password123", "password123"));
+        assertFalse(passwordHashService.matches("wrong", "password123"));
+        assertTrue(passwordHashService.needsRehash("password123"));
+
+        String hashed = passwordHashService.hash("password123");
+        assertTrue(passwordHashService.isHashed(hashed));
+        assertFalse(passwordHashService.needsRehash(hashed));
+        assertTrue(passwordHashService.matches("password123", hashed));
+        assertFalse(passwordHashService.matches("password124", hashed));
+    }
+
+    @Test
+    void hashesAreSaltedAndWeakerCostsNeedRehash() {
+        assertNotEquals(passwordHashService.hash("secret"), passwordHashService.hash("secret"));
+
+        PasswordHashService stronger = new PasswordHashService(5, 1, 4, 30000);
+        try {
+            String weak = passwordHashService.hash("secret");
+            assertTrue(stronger.needsRehash(weak));
+            assertTrue(stronger.matches("secret", weak));
+        } finally {
+            stronger.shutdown();
+        }
+    }
+
+    @Test
+    void missingPasswordsNeverMatch() {
+        String hashed = passwordHashService.hash("secret");
+        assertFalse(passwordHashService.matches(null, hashed));
+        assertFalse(passwordHashService.matches("secret", null));
+        assertFalse(passwordHashService.isHashed(null));
+        assertFalse(passwordHashService.isHashed("$2a$10$tooShort"));
+    }
+
+    @Test
+    void concurrentLoginsAllVerify() throws Exception {
+        String hashed = passwordHashService.hash("password123");
+        ExecutorService requestThreads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String attempt = i % 4 == 0 ? "wrong" : "password123";
+                results.add(requestThreads.submit(() -> passwordHashService.matches(attempt, hashed)));
+            }
+            int verified = 0;
+            for (Future<Boolean> result : results) {
+                verified += result.get() ? 1 : 0;
+            }
+            assertEquals(24, verified);
+        } finally {
+            requestThreads.shutdown();
+        }
+    }
+
+    // One hash thread busy and a one-slot queue already taken: the next caller is turned away at once
+    @Test
+    void fullQueueRejectsInsteadOfWaiting() throws Exception {
+        PasswordHashService saturated = new PasswordHashService(12, 1, 1, 30000);
+        String hashed = new BCryptPasswordEncoder(12).encode("secret");
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> saturated.matches("secret", hashed));
+            callers.submit(() -> saturated.matches("secret", hashed));
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while ((saturated.getActiveCount() < 1 || saturated.getQueuedCount() < 1) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            RuntimeException rejected = assertThrows(RuntimeException.class,
+                    () -> saturated.matches("secret", hashed));
+            assertEquals("Too many login attempts in progress, please try again", rejected.getMessage());
+        } finally {
+            callers.shutdownNow();
+            saturated.shutdown();
+        }
+    }
+
+    @Test
+    void slowHashTimesOut() {
+        PasswordHashService impatient = new PasswordHashService(4, 1, 4, 1);
+        try {
+            String hashed = new BCryptPasswordEncoder(12).encode("secret");
+            assertThrows(RuntimeException.class, () -> impatient.matches("secret", hashed));
+        } finally {
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void loginThroughput() throws Exception {
+        PasswordHashService production = new PasswordHashService(10, 2, 256, 30000);
+        String hashed = production.hash("password123");
+        int logins = 32;
+
+        ExecutorService requestThreads = Executors.newFixedThreadPool(32);
+        try {
+            long start = System.nanoTime();
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < logins; i++) {
+                results.add(requestThreads.submit(() -> production.matches("password123", hashed)));
+            }
+            int verified = 0;
+            for (Future<Boolean> result : results) {
+                verified += result.get() ? 1 : 0;
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(logins, verified);
+            System.out.printf("BCrypt(10) on 2 hash threads: %d logins in %d ms (%.1f logins/s)%n",
+                    logins, elapsedMillis, logins * 1000.0 / Math.max(1, elapsedMillis));
+        } finally {
+            requestThreads.shutdown();
+            production.shutdown();
+        }
+    }
+}
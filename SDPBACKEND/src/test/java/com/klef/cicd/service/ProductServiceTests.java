@@ -0,0 +1,146 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.model.Product;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.UserRepository;
+
+// With write-behind on, location deltas sit in the buffer until the next flush; the flush interval is
+// long here so only the service itself can apply them.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-service;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.show-sql=false",
+        "app.warmup.enabled=false",
+        "app.stock.write-behind.enabled=true",
+        "app.stock.write-behind.log-dir=${java.io.tmpdir}/product-service-tests",
+        "app.stock.write-behind.flush-interval-ms=3600000"
+})
+class ProductServiceTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private LocationStockService locationStockService;
+
+    @MockitoSpyBean
+    private StockWriteBehindBuffer stockWriteBehindBuffer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void absoluteStockAfterALocationAdjustmentIsKept() {
+        User user = user("put-after-adjust");
+        ProductView product = productService.createProduct(product("Widget", 100), user.getUsername());
+        locationStockService.adjustStock(locationStockService.getDefaultLocationId(), product.id(), -5, user.getUsername());
+
+        ProductView updated = productService.updateProduct(product.id(), product("Widget", 80), user.getUsername());
+
+        assertEquals(80, updated.stock());
+        assertEquals(80, productService.getProductById(product.id()).orElseThrow().stock());
+        assertEquals(80, stockInTable(product.id()));
+        // -5 from the location, then the rest of the way to 80
+        assertEquals(-15, lastMovementDelta(product.id(), "ADJUSTMENT"));
+    }
+
+    // The flush commits on a connection of its own; taken inside the write's transaction, concurrent
+    // writes would each hold one connection while waiting for a second
+    @Test
+    void flushRunsBeforeTheWriteTransactionOpens() {
+        User user = user("flush-outside");
+        ProductView product = productService.createProduct(product("Hinge", 10), user.getUsername());
+        List<Boolean> inTransaction = new ArrayList<>();
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(stockWriteBehindBuffer).flush();
+        try {
+            productService.updateProduct(product.id(), product("Hinge", 12), user.getUsername());
+            productService.deleteProduct(product.id(), user.getUsername());
+        } finally {
+            reset(stockWriteBehindBuffer);
+        }
+
+        assertEquals(List.of(false, false), inTransaction);
+    }
+
+    @Test
+    void deletionRecordsTheStockIncludingBufferedDeltas() {
+        User user = user("delete-after-adjust");
+        ProductView product = productService.createProduct(product("Gadget", 40), user.getUsername());
+        locationStockService.adjustStock(locationStockService.getDefaultLocationId(), product.id(), 7, user.getUsername());
+
+        productService.deleteProduct(product.id(), user.getUsername());
+
+        assertEquals(-47, lastMovementDelta(product.id(), "REMOVED"));
+    }
+
+    @Test
+    void withoutWriteBehindTheTotalMovesWithTheLocation() {
+        ReflectionTestUtils.setField(stockWriteBehindBuffer, "enabled", false);
+        try {
+            User user = user("direct-adjust");
+            ProductView product = productService.createProduct(product("Bracket", 30), user.getUsername());
+
+            locationStockService.adjustStock(locationStockService.getDefaultLocationId(), product.id(), -4,
+                    user.getUsername());
+
+            assertEquals(26, stockInTable(product.id()));
+            assertFalse(stockWriteBehindBuffer.pendingProductIds().contains(product.id()));
+            assertEquals(-4, lastMovementDelta(product.id(), "ADJUSTMENT"));
+            assertEquals(26, jdbcTemplate.queryForObject("SELECT stock_after FROM stock_movements "
+                    + "WHERE product_id = ? ORDER BY id DESC LIMIT 1", Integer.class, product.id()));
+
+            // A rejected change leaves both the location and the total alone
+            assertThrows(RuntimeException.class, () -> locationStockService.adjustStock(
+                    locationStockService.getDefaultLocationId(), product.id(), -27, user.getUsername()));
+            assertEquals(26, stockInTable(product.id()));
+        } finally {
+            ReflectionTestUtils.setField(stockWriteBehindBuffer, "enabled", true);
+        }
+    }
+
+    private User user(String username) {
+        return userRepository.save(new User(username, username + "@example.com", "x", User.Role.MANAGER));
+    }
+
+    private static Product product(String name, int stock) {
+        return new Product(name, "Tools", stock, new BigDecimal("2.50"), 10);
+    }
+
+    private int stockInTable(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int lastMovementDelta(Long productId, String reason) {
+        return jdbcTemplate.queryForObject("SELECT delta FROM stock_movements WHERE product_id = ? AND reason = ? "
+                + "ORDER BY id DESC LIMIT 1", Integer.class, productId, reason);
+    }
+}
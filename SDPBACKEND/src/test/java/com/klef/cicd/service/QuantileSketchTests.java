@@ -0,0 +1,145 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.klef.cicd.dto.HistogramBin;
+
+class QuantileSketchTests {
+
+    private static final double ACCURACY = 0.01;
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.5, 0.9, 0.99, 0.999, 1};
+
+    @Test
+    void staysWithinRelativeAccuracyAfterRemovals() {
+        Random random = new Random(42);
+        int n = 20_000;
+        double[] values = new double[n];
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 2048);
+        for (int i = 0; i < n; i++) {
+            // Skewed like stock levels: mostly small, a long tail, some zeros
+            values[i] = i % 50 == 0 ? 0 : Math.floor(Math.exp(random.nextGaussian() * 1.5 + 4));
+            sketch.add(values[i]);
+        }
+        // Every other value changes, as when half the catalog is restocked
+        for (int i = 0; i < n; i += 2) {
+            sketch.remove(values[i]);
+            values[i] = values[i] * 3 + 7;
+            sketch.add(values[i]);
+        }
+
+        assertEquals(n, sketch.count());
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) (q * (n - 1))];
+            assertTrue(Math.abs(sketch.quantile(q) - exact) <= exact * ACCURACY + 1e-9,
+                    "q" + q + ": " + sketch.quantile(q) + " vs " + exact);
+        }
+        long binned = sketch.histogram(20).stream().mapToLong(bin -> bin.count()).sum();
+        assertEquals(n, binned);
+    }
+
+    @Test
+    void mergesAndCollapsesWithinBucketBudget() {
+        QuantileSketch low = new QuantileSketch(ACCURACY, 64);
+        QuantileSketch high = new QuantileSketch(ACCURACY, 64);
+        for (int i = 1; i <= 1000; i++) {
+            low.add(i);
+            high.add(i * 1000.0);
+        }
+        low.merge(high);
+
+        assertEquals(2000, low.count());
+        // The top of the range keeps full accuracy; the bottom is collapsed into one bucket
+        double p99 = low.quantile(0.99);
+        assertTrue(Math.abs(p99 - 980_000) <= 980_000 * ACCURACY * 2, "p99 " + p99);
+        assertTrue(low.histogram(200).size() <= 64);
+        low.remove(1);
+        assertEquals(1999, low.count());
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 64);
+
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertTrue(sketch.histogram(10).isEmpty());
+
+        sketch.add(5);
+        sketch.remove(5);
+        assertEquals(0, sketch.count());
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+    }
+
+    @Test
+    void zeroAndNegativeValuesShareTheZeroBin() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 64);
+        sketch.add(0);
+        sketch.add(-3);
+        sketch.add(10);
+
+        assertEquals(0, sketch.quantile(0.5));
+        List<HistogramBin> bins = sketch.histogram(10);
+        assertEquals(new HistogramBin(0, 0, 2), bins.get(0));
+        assertEquals(1, bins.get(1).count());
+        assertTrue(bins.get(1).lower() < 10 && 10 <= bins.get(1).upper());
+    }
+
+    @Test
+    void removingValuesThatWereNeverAddedIsIgnored() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 64);
+        sketch.add(100);
+
+        sketch.remove(0);
+        sketch.remove(5);
+        sketch.remove(1_000_000);
+
+        assertEquals(1, sketch.count());
+        assertTrue(Math.abs(sketch.quantile(0.5) - 100) <= 100 * ACCURACY);
+    }
+
+    @Test
+    void histogramRespectsTheBinLimit() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 2048);
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i);
+        }
+
+        List<HistogramBin> bins = sketch.histogram(7);
+
+        assertTrue(bins.size() <= 7, "bins " + bins.size());
+        assertEquals(10_000, bins.stream().mapToLong(HistogramBin::count).sum());
+        for (int i = 1; i < bins.size(); i++) {
+            assertTrue(bins.get(i - 1).upper() <= bins.get(i).lower() + 1e-9);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void queryCostDoesNotGrowWithCount() {
+        Random random = new Random(7);
+        for (int n : new int[] {10_000, 1_000_000, 10_000_000}) {
+            QuantileSketch sketch = new QuantileSketch(ACCURACY, 2048);
+            for (int i = 0; i < n; i++) {
+                sketch.add(1 + random.nextInt(100_000));
+            }
+            double sink = 0;
+            long start = System.nanoTime();
+            int queries = 10_000;
+            for (int i = 0; i < queries; i++) {
+                sink += sketch.quantile(QUANTILES[i % QUANTILES.length]);
+            }
+            long nanos = (System.nanoTime() - start) / queries;
+            System.out.printf("sketch of %,d values: %,d ns per quantile (%.0f)%n", n, nanos, sink / queries);
+        }
+    }
+}
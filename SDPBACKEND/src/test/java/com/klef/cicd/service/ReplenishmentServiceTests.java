@@ -0,0 +1,299 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.ReplenishmentRun;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.ProductSupplierRepository;
+import com.klef.cicd.repository.PurchaseOrderLineRepository;
+import com.klef.cicd.repository.PurchaseOrderRepository;
+import com.klef.cicd.repository.SupplierRepository;
+import com.klef.cicd.repository.UserRepository;
+
+// Runs are triggered by hand; the scheduled window and the stock-change listener are off
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replenishment;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.show-sql=false",
+        "app.warmup.enabled=false",
+        "app.stock.write-behind.log-dir=${java.io.tmpdir}/replenishment-tests",
+        "app.replenishment.enabled=false",
+        "app.replenishment.order-up-to-factor=2"
+})
+class ReplenishmentServiceTests {
+
+    @Autowired
+    private ReplenishmentService replenishmentService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSupplierRepository productSupplierRepository;
+
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+
+    @Autowired
+    private PurchaseOrderLineRepository purchaseOrderLineRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        replenishmentService.evaluatePending();
+        userId = userRepository.findByUsername("replenisher")
+                .orElseGet(() -> userRepository.save(new User("replenisher", "replenisher@example.com", "x", User.Role.MANAGER)))
+                .getId();
+    }
+
+    @Test
+    void picksThePreferredSupplierOtherwiseTheCheapest() {
+        long cheap = supplier("Cheap");
+        long dear = supplier("Dear");
+        long plain = product(0, 10);
+        link(plain, dear, false, "5.00", null);
+        link(plain, cheap, false, "3.00", null);
+        long preferred = product(0, 10);
+        link(preferred, cheap, false, "1.00", null);
+        link(preferred, dear, true, "9.00", null);
+
+        replenishmentService.markDirty(List.of(plain, preferred));
+        replenishmentService.evaluatePending();
+
+        assertEquals(cheap, supplierOrdering(plain));
+        assertEquals(dear, supplierOrdering(preferred));
+    }
+
+    @Test
+    void productsOfOneSupplierShareItsOpenDraft() {
+        long supplier = supplier("Shared");
+        List<Long> products = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            products.add(product(1, 10));
+            link(products.get(i), supplier, true, "2.00", null);
+        }
+
+        replenishmentService.markDirty(products.subList(0, 3));
+        ReplenishmentRun first = replenishmentService.evaluatePending();
+        replenishmentService.markDirty(products.subList(3, 4));
+        ReplenishmentRun second = replenishmentService.evaluatePending();
+
+        assertEquals(3, first.linesAdded());
+        assertEquals(1, second.linesAdded());
+        assertEquals(first.purchaseOrderIds(), second.purchaseOrderIds());
+        assertEquals(1, drafts(supplier));
+        assertEquals(4, count("SELECT COUNT(*) FROM purchase_order_lines WHERE purchase_order_id = ?",
+                first.purchaseOrderIds().get(0)));
+    }
+
+    @Test
+    void productsAlreadyOnAnOpenOrderAreSkipped() {
+        long supplier = supplier("Busy");
+        long submitted = product(0, 10);
+        long cancelled = product(0, 10);
+        long healthy = product(50, 10);
+        for (long product : List.of(submitted, cancelled, healthy)) {
+            link(product, supplier, true, "2.00", null);
+        }
+        order(supplier, "SUBMITTED", submitted);
+        order(supplier, "CANCELLED", cancelled);
+
+        replenishmentService.markDirty(List.of(submitted, cancelled, healthy));
+        ReplenishmentRun run = replenishmentService.evaluatePending();
+
+        assertEquals(3, run.evaluated());
+        assertEquals(2, run.belowThreshold());
+        assertEquals(1, run.alreadyOnOrder());
+        assertEquals(1, run.linesAdded());
+        assertEquals(1, count("SELECT COUNT(*) FROM purchase_order_lines l JOIN purchase_orders o "
+                + "ON o.id = l.purchase_order_id WHERE l.product_id = ? AND o.status = 'DRAFT'", cancelled));
+        assertEquals(0, count("SELECT COUNT(*) FROM purchase_order_lines WHERE product_id = ?", healthy));
+    }
+
+    // Order back up to threshold x 2, but never less than the supplier's minimum or one unit
+    @Test
+    void orderQuantityCoversTheThresholdAndTheMinimum() {
+        long supplier = supplier("Quantities");
+        long upTo = product(4, 10);
+        link(upTo, supplier, true, "1.00", null);
+        long atThreshold = product(10, 10);
+        link(atThreshold, supplier, true, "1.00", 5);
+        long minimum = product(4, 10);
+        link(minimum, supplier, true, "1.00", 50);
+        long zeroThreshold = product(0, 0);
+        link(zeroThreshold, supplier, true, "1.00", null);
+        long noSupplier = product(0, 10);
+
+        replenishmentService.markDirty(List.of(upTo, atThreshold, minimum, zeroThreshold, noSupplier));
+        ReplenishmentRun run = replenishmentService.evaluatePending();
+
+        assertEquals(1, run.withoutSupplier());
+        assertEquals(16, quantityOrdered(upTo));
+        assertEquals(10, quantityOrdered(atThreshold));
+        assertEquals(50, quantityOrdered(minimum));
+        assertEquals(1, quantityOrdered(zeroThreshold));
+    }
+
+    // Two nodes evaluating the same products at the same time: one draft, each product ordered once
+    @Test
+    void overlappingNodesOpenOneDraftAndOrderEachProductOnce() throws Exception {
+        long supplier = supplier("Contended");
+        List<Long> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(product(0, 10));
+            link(products.get(i), supplier, true, "2.00", null);
+        }
+        List<ReplenishmentService> nodes = List.of(node(), node());
+        nodes.forEach(node -> node.markDirty(products));
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<ReplenishmentRun>> runs = new ArrayList<>();
+            for (ReplenishmentService node : nodes) {
+                runs.add(pool.submit(() -> {
+                    start.await();
+                    return node.evaluatePending();
+                }));
+            }
+            start.countDown();
+            int linesAdded = 0;
+            for (Future<ReplenishmentRun> run : runs) {
+                linesAdded += run.get(30, TimeUnit.SECONDS).linesAdded();
+            }
+            assertEquals(20, linesAdded);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, drafts(supplier));
+        for (long product : products) {
+            assertEquals(1, count("SELECT COUNT(*) FROM purchase_order_lines WHERE product_id = ?", product));
+        }
+    }
+
+    @Test
+    void productsStayPendingWhenEvaluationFails() {
+        ProductService failing = mock(ProductService.class);
+        when(failing.getProductsByIds(anyCollection()))
+                .thenThrow(new RuntimeException("database unavailable"))
+                .thenReturn(List.of());
+        ReplenishmentService replenishment = new ReplenishmentService();
+        ReflectionTestUtils.setField(replenishment, "productService", failing);
+        replenishment.markDirty(List.of(1L, 2L, 3L));
+
+        assertThrows(RuntimeException.class, replenishment::evaluatePending);
+        assertEquals(3, replenishment.getPendingCount());
+
+        ReplenishmentRun run = replenishment.evaluatePending();
+        assertEquals(3, run.evaluated());
+        assertEquals(0, replenishment.getPendingCount());
+    }
+
+    // A second instance stands in for another pod: same database, its own JVM lock and dirty set
+    private ReplenishmentService node() {
+        ReplenishmentService node = new ReplenishmentService();
+        ReflectionTestUtils.setField(node, "productService", productService);
+        ReflectionTestUtils.setField(node, "productSupplierRepository", productSupplierRepository);
+        ReflectionTestUtils.setField(node, "purchaseOrderRepository", purchaseOrderRepository);
+        ReflectionTestUtils.setField(node, "purchaseOrderLineRepository", purchaseOrderLineRepository);
+        ReflectionTestUtils.setField(node, "supplierRepository", supplierRepository);
+        ReflectionTestUtils.setField(node, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(node, "orderUpToFactor", 2);
+        return node;
+    }
+
+    private long supplier(String name) {
+        return insert("INSERT INTO suppliers (name, contact, email, phone) VALUES (?, 'Sam', 'sam@example.com', '555')",
+                name);
+    }
+
+    private long product(int stock, int threshold) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return insert("INSERT INTO products (name, category, stock, price, low_stock_threshold, created_at, updated_at, "
+                + "created_by) VALUES ('Part', 'Parts', ?, 1.00, ?, ?, ?, ?)", stock, threshold, now, now, userId);
+    }
+
+    private void link(long productId, long supplierId, boolean preferred, String unitCost, Integer minOrderQuantity) {
+        jdbcTemplate.update("INSERT INTO product_suppliers (product_id, supplier_id, preferred, unit_cost, "
+                + "min_order_quantity, lead_time_days) VALUES (?, ?, ?, ?, ?, 7)",
+                productId, supplierId, preferred, new BigDecimal(unitCost), minOrderQuantity);
+    }
+
+    private void order(long supplierId, String status, long productId) {
+        long orderId = insert("INSERT INTO purchase_orders (supplier_id, status) VALUES (?, ?)", supplierId, status);
+        jdbcTemplate.update("INSERT INTO purchase_order_lines (purchase_order_id, product_id, quantity) VALUES (?, ?, 1)",
+                orderId, productId);
+    }
+
+    private long insert(String sql, Object... args) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(sql, new String[] {"id"});
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    private long supplierOrdering(long productId) {
+        return count("SELECT o.supplier_id FROM purchase_order_lines l JOIN purchase_orders o "
+                + "ON o.id = l.purchase_order_id WHERE l.product_id = ?", productId);
+    }
+
+    private long quantityOrdered(long productId) {
+        return count("SELECT quantity FROM purchase_order_lines WHERE product_id = ?", productId);
+    }
+
+    private long drafts(long supplierId) {
+        return count("SELECT COUNT(*) FROM purchase_orders WHERE supplier_id = ? AND status = 'DRAFT'", supplierId);
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,208 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.klef.cicd.dto.ProductView;
+import com.klef.cicd.dto.ReservationView;
+import com.klef.cicd.dto.StockAvailability;
+import com.klef.cicd.model.Product;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.UserRepository;
+
+// The sweeper only runs when a test calls it
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.show-sql=false",
+        "app.warmup.enabled=false",
+        "app.stock.write-behind.log-dir=${java.io.tmpdir}/reservation-tests",
+        "app.reservations.sweep-interval-ms=3600000"
+})
+class ReservationServiceTests {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void holdsBeyondTheAvailableStockAreRejected() {
+        Long productId = product("Crate", 10);
+
+        reservationService.reserve(productId, 6, null, "order-1", "clerk");
+        RuntimeException rejected = assertThrows(RuntimeException.class,
+                () -> reservationService.reserve(productId, 5, null, "order-2", "clerk"));
+        reservationService.reserve(productId, 4, null, "order-3", "clerk");
+
+        assertEquals("Insufficient available stock", rejected.getMessage());
+        assertEquals(new StockAvailability(productId, 10, 10, 0), availability(productId));
+        assertEquals(2, reservationService.getActiveReservations(productId).size());
+    }
+
+    @Test
+    void concurrentHoldsNeverPromiseMoreThanTheStock() throws Exception {
+        Long productId = product("Pallet", 10);
+        List<Callable<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            attempts.add(() -> {
+                try {
+                    reservationService.reserve(productId, 1, null, null, "clerk");
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            });
+        }
+
+        long taken = 0;
+        for (Future<Boolean> attempt : race(attempts)) {
+            if (attempt.get(30, TimeUnit.SECONDS)) {
+                taken++;
+            }
+        }
+
+        assertEquals(10, taken);
+        assertEquals(new StockAvailability(productId, 10, 10, 0), availability(productId));
+    }
+
+    @Test
+    void expiredHoldsGiveTheirStockBack() {
+        Long productId = product("Drum", 8);
+        ReservationView expiring = reservationService.reserve(productId, 5, 60L, null, "clerk");
+        ReservationView live = reservationService.reserve(productId, 2, 600L, null, "clerk");
+        expire(expiring.id());
+
+        reservationService.expireReservations();
+
+        assertEquals(new StockAvailability(productId, 8, 2, 6), availability(productId));
+        assertEquals("EXPIRED", reservationService.getReservation(expiring.id()).status().name());
+        assertEquals("ACTIVE", reservationService.getReservation(live.id()).status().name());
+        // A late release finds the hold already gone and gives nothing back twice
+        RuntimeException late = assertThrows(RuntimeException.class, () -> reservationService.release(expiring.id()));
+        assertEquals("Reservation is already expired", late.getMessage());
+        assertEquals(new StockAvailability(productId, 8, 2, 6), availability(productId));
+    }
+
+    @Test
+    void aHoldIsReleasedOrConsumedOnlyOnce() {
+        Long productId = product("Barrel", 20);
+        ReservationView released = reservationService.reserve(productId, 3, null, null, "clerk");
+        ReservationView consumed = reservationService.reserve(productId, 4, null, null, "clerk");
+        ReservationView kept = reservationService.reserve(productId, 5, null, null, "clerk");
+
+        reservationService.release(released.id());
+        assertThrows(RuntimeException.class, () -> reservationService.release(released.id()));
+        reservationService.consume(consumed.id(), "clerk");
+        assertThrows(RuntimeException.class, () -> reservationService.consume(consumed.id(), "clerk"));
+        assertThrows(RuntimeException.class, () -> reservationService.release(consumed.id()));
+
+        assertEquals(16, stockInTable(productId));
+        assertEquals(new StockAvailability(productId, 16, kept.quantity(), 11), availability(productId));
+    }
+
+    // Whichever of consume and the sweeper closes the hold first wins; the other changes nothing
+    @Test
+    void consumeRacingTheSweeperClosesTheHoldOnce() throws Exception {
+        Long productId = product("Bin", 1000);
+        int stock = 1000;
+        for (int round = 0; round < 20; round++) {
+            ReservationView hold = reservationService.reserve(productId, 3, null, null, "clerk");
+            expire(hold.id());
+
+            List<Future<Boolean>> outcome = race(List.of(
+                    () -> {
+                        try {
+                            reservationService.consume(hold.id(), "clerk");
+                            return true;
+                        } catch (RuntimeException e) {
+                            return false;
+                        }
+                    },
+                    () -> {
+                        reservationService.expireReservations();
+                        return true;
+                    }));
+            boolean consumed = outcome.get(0).get(30, TimeUnit.SECONDS);
+            outcome.get(1).get(30, TimeUnit.SECONDS);
+
+            if (consumed) {
+                stock -= 3;
+            }
+            assertEquals(consumed ? "CONSUMED" : "EXPIRED", reservationService.getReservation(hold.id()).status().name());
+            assertEquals(stock, stockInTable(productId));
+            assertEquals(new StockAvailability(productId, stock, 0, stock), availability(productId));
+        }
+    }
+
+    private <T> List<Future<T>> race(List<Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<T> future : futures) {
+                future.get();
+            }
+            return futures;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Long product(String name, int stock) {
+        String username = name.toLowerCase() + "-owner";
+        userRepository.save(new User(username, username + "@example.com", "x", User.Role.MANAGER));
+        ProductView product = productService.createProduct(new Product(name, "Storage", stock, new BigDecimal("4.00"), 1),
+                username);
+        return product.id();
+    }
+
+    private void expire(String reservationId) {
+        jdbcTemplate.update("UPDATE stock_reservations SET expires_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), reservationId);
+    }
+
+    private StockAvailability availability(Long productId) {
+        return reservationService.getAvailability(productId).orElseThrow();
+    }
+
+    private int stockInTable(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+}
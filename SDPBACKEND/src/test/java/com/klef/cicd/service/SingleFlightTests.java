@@ -0,0 +1,203 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTests {
+
+    private static final int FOLLOWERS = 20;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(FOLLOWERS + 1);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    // The leader's query is held open until every follower has joined it
+    @Test
+    void callersDuringAQueryShareIt() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(registry, new MockEnvironment());
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Object> query = () -> {
+            queries.incrementAndGet();
+            started.countDown();
+            await(release);
+            return new Object();
+        };
+
+        Future<Object> leader = callers.submit(() -> singleFlight.execute("dashboard.stats", query));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        List<Future<Object>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(callers.submit(() -> singleFlight.execute("dashboard.stats", query)));
+        }
+        awaitCoalesced("dashboard.stats", FOLLOWERS);
+        release.countDown();
+
+        Object result = leader.get(10, TimeUnit.SECONDS);
+        for (Future<Object> follower : followers) {
+            assertSame(result, follower.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, queries.get());
+        assertEquals(1, count("dashboard.stats", "executed"));
+    }
+
+    @Test
+    void finishedResultsAreNotReused() {
+        SingleFlight singleFlight = new SingleFlight(registry, new MockEnvironment());
+
+        Object first = singleFlight.execute("products.low-stock", Object::new);
+        Object second = singleFlight.execute("products.low-stock", Object::new);
+
+        assertNotSame(first, second);
+        assertEquals(2, count("products.low-stock", "executed"));
+        assertEquals(0, count("products.low-stock", "coalesced"));
+    }
+
+    @Test
+    void differentMethodsDoNotShare() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(registry, new MockEnvironment());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Object> stats = callers.submit(() -> singleFlight.execute("dashboard.stats", () -> {
+            started.countDown();
+            await(release);
+            return "stats";
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // Would block on the latch if it joined the other method's query
+        assertEquals("staff", singleFlight.execute("tasks.staff", () -> "staff"));
+        release.countDown();
+        assertEquals("stats", stats.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void disabledMethodQueriesEveryTime() throws Exception {
+        MockEnvironment environment = new MockEnvironment().withProperty("app.single-flight.tasks.staff.enabled", "false");
+        SingleFlight singleFlight = new SingleFlight(registry, environment);
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch inside = new CountDownLatch(2);
+
+        // Both callers are inside the loader at the same time, so neither waited for the other
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(callers.submit(() -> singleFlight.execute("tasks.staff", () -> {
+                queries.incrementAndGet();
+                inside.countDown();
+                await(inside);
+                return "staff";
+            })));
+        }
+        for (Future<Object> result : results) {
+            assertEquals("staff", result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(2, queries.get());
+        assertEquals(0, count("tasks.staff", "coalesced"));
+    }
+
+    @Test
+    void failureReachesEveryCallerAndIsNotKept() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(registry, new MockEnvironment());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Object> leader = callers.submit(() -> singleFlight.execute("products.low-stock", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<Object> follower = callers.submit(() -> singleFlight.execute("products.low-stock", () -> "unused"));
+        awaitCoalesced("products.low-stock", 1);
+        release.countDown();
+
+        assertEquals(IllegalStateException.class, cause(leader).getClass());
+        assertEquals("database down", cause(follower).getMessage());
+        assertEquals("ok", singleFlight.execute("products.low-stock", () -> "ok"));
+    }
+
+    @Test
+    void submitSharesTheRunningFuture() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(registry, new MockEnvironment());
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        Supplier<String> query = () -> {
+            queries.incrementAndGet();
+            await(release);
+            return "stats";
+        };
+
+        CompletableFuture<String> first = singleFlight.submit("dashboard.stats", query, callers);
+        CompletableFuture<String> second = singleFlight.submit("dashboard.stats", query, callers);
+        release.countDown();
+
+        assertSame(first, second);
+        assertEquals("stats", first.get(10, TimeUnit.SECONDS));
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void rejectedSubmitFailsAndFreesTheKey() {
+        SingleFlight singleFlight = new SingleFlight(registry, new MockEnvironment());
+
+        CompletableFuture<String> rejected = singleFlight.submit("dashboard.stats", () -> "stats", task -> {
+            throw new RejectedExecutionException("pool full");
+        });
+
+        ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+        assertEquals(RejectedExecutionException.class, failure.getCause().getClass());
+        assertEquals("stats", singleFlight.execute("dashboard.stats", () -> "stats"));
+    }
+
+    private void awaitCoalesced(String method, int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (count(method, "coalesced") < callers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(callers, count(method, "coalesced"));
+    }
+
+    private int count(String method, String result) {
+        return (int) registry.get("app.single-flight.calls").tag("method", method).tag("result", result).counter().count();
+    }
+
+    private static Throwable cause(Future<Object> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS)).getCause();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
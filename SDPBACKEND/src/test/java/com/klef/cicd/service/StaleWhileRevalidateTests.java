@@ -0,0 +1,140 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StaleWhileRevalidateTests {
+
+    private static final int CALLERS = 20;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DbCircuitBreaker breaker = new DbCircuitBreaker(100, 3, 1000, registry);
+    private final StaleWhileRevalidate reads = new StaleWhileRevalidate(200, 4);
+
+    {
+        ReflectionTestUtils.setField(reads, "singleFlight", new SingleFlight(registry, new MockEnvironment()));
+        ReflectionTestUtils.setField(reads, "dbCircuitBreaker", breaker);
+        ReflectionTestUtils.setField(reads, "meterRegistry", registry);
+    }
+
+    @AfterEach
+    void shutdown() {
+        reads.shutdown();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void stalledDatabaseServesLastResultWithOneQuery() throws Exception {
+        assertEquals("v1", reads.read("dashboard.stats", () -> "v1"));
+
+        CountDownLatch unstall = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(callers.submit(() -> reads.read("dashboard.stats", () -> {
+                    queries.incrementAndGet();
+                    await(unstall);
+                    return "v2";
+                })));
+            }
+            for (Future<Object> result : results) {
+                assertEquals("v1", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdown();
+        }
+
+        assertEquals(1, queries.get());
+        assertTrue(breaker.isOpen());
+
+        // Open breaker, before its probe is due: answered from the last result without running the loader
+        assertEquals("v1", reads.read("dashboard.stats", () -> {
+            queries.incrementAndGet();
+            return "never";
+        }));
+        assertEquals(1, queries.get());
+
+        // The stalled query finishes slowly, which keeps the breaker open; a later fast probe closes it
+        unstall.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (breaker.isOpen() && System.nanoTime() < deadline) {
+            reads.read("dashboard.stats", () -> "v3");
+            Thread.sleep(50);
+        }
+        assertFalse(breaker.isOpen());
+        assertEquals("v3", reads.read("dashboard.stats", () -> "v3"));
+    }
+
+    @Test
+    void failedLoadFallsBackToLastResult() {
+        assertEquals("v1", reads.read("products.low-stock", () -> "v1"));
+        assertEquals("v1", reads.read("products.low-stock", () -> {
+            throw new IllegalStateException("connection refused");
+        }));
+        assertEquals(1.0, registry.get("app.stale-reads.served").counter().count());
+    }
+
+    @Test
+    void firstReadHasNothingToFallBackOn() {
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> reads.read("products.low-stock", () -> {
+                    throw new IllegalStateException("connection refused");
+                }));
+        assertEquals("connection refused", failure.getMessage());
+        assertEquals("v1", reads.read("products.low-stock", () -> "v1"));
+    }
+
+    @Test
+    void staleResponsesAreMarked() {
+        MockHttpServletResponse fresh = bindResponse();
+        reads.read("products.all", () -> "v1");
+        assertNull(fresh.getHeader(StaleWhileRevalidate.STALE_HEADER));
+
+        MockHttpServletResponse stale = bindResponse();
+        assertEquals("v1", reads.read("products.all", () -> {
+            throw new IllegalStateException("connection refused");
+        }));
+        assertEquals("true", stale.getHeader(StaleWhileRevalidate.STALE_HEADER));
+        assertNotNull(stale.getHeader("Age"));
+    }
+
+    private static MockHttpServletResponse bindResponse() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import com.klef.cicd.dto.StockLevelAt;
+
+// Rows are written directly so each test controls timestamps and the order movements become visible in
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-ledger;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.show-sql=false",
+        "app.warmup.enabled=false",
+        "app.stock.write-behind.log-dir=${java.io.tmpdir}/stock-ledger-tests",
+        "app.stock.snapshot-cron=-"
+})
+class StockLedgerServiceTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.now().minusDays(3).withNano(0);
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM stock_snapshots");
+    }
+
+    @Test
+    void stockAtReplaysTheLedgerFromTheInitialMovement() {
+        long product = product(12, T0);
+        movement(product, "INITIAL", 10, 10, T0);
+        movement(product, "ADJUSTMENT", -3, 7, T0.plusHours(1));
+        movement(product, "ADJUSTMENT", 5, 12, T0.plusHours(2));
+
+        assertTrue(stockLedgerService.getStockAt(product, T0.minusSeconds(1)).isEmpty());
+        assertEquals(10, stockAt(product, T0));
+        assertEquals(7, stockAt(product, T0.plusMinutes(90)));
+        assertEquals(12, stockAt(product, T0.plusHours(2)));
+    }
+
+    // Without a snapshot or an INITIAL movement the ledger does not reach back to the product's start
+    @Test
+    void stockAtIsUnknownForAnIncompleteLedger() {
+        long product = product(30, T0);
+        movement(product, "ADJUSTMENT", 4, 30, T0.plusHours(1));
+
+        assertTrue(stockLedgerService.getStockAt(product, T0.plusHours(2)).isEmpty());
+    }
+
+    @Test
+    void snapshotsCoverOnlyProductsWhoseLedgerMoved() {
+        long moved = product(10, T0);
+        movement(moved, "INITIAL", 10, 10, T0);
+        long still = product(4, T0);
+        movement(still, "INITIAL", 4, 4, T0);
+
+        stockLedgerService.takeSnapshots();
+        assertEquals(1, snapshots(moved));
+        assertEquals(1, snapshots(still));
+        assertEquals(0, stockLedgerService.takeSnapshots());
+
+        movement(moved, "ADJUSTMENT", -6, 4, LocalDateTime.now());
+        stockLedgerService.takeSnapshots();
+
+        assertEquals(2, snapshots(moved));
+        assertEquals(1, snapshots(still));
+        assertEquals(4, stockAt(moved, LocalDateTime.now()));
+        assertEquals(4, stockAt(still, LocalDateTime.now()));
+    }
+
+    // The products row already holds a change whose movement is not visible yet: the snapshot must not count
+    // it, or the movement would be added a second time through the tail once it commits
+    @Test
+    void aMovementCommittingAfterTheSnapshotIsCountedOnce() {
+        long product = product(10, T0);
+        movement(product, "INITIAL", 10, 10, T0);
+        jdbcTemplate.update("UPDATE products SET stock = 25 WHERE id = ?", product);
+
+        stockLedgerService.takeSnapshots();
+        assertEquals(10, latestSnapshotStock(product));
+
+        movement(product, "ADJUSTMENT", 15, 25, LocalDateTime.now());
+        assertEquals(25, stockAt(product, LocalDateTime.now()));
+        // A snapshot taken after the movement starts from it, with nothing left in the tail
+        stockLedgerService.takeSnapshots();
+        assertEquals(25, latestSnapshotStock(product));
+        assertEquals(25, stockAt(product, LocalDateTime.now()));
+    }
+
+    @Test
+    void productsWithoutMovementsAreSnapshottedOnceSettled() {
+        long settled = product(40, T0);
+        long recent = product(8, LocalDateTime.now());
+
+        stockLedgerService.takeSnapshots();
+
+        assertEquals(1, snapshots(settled));
+        assertEquals(0, snapshots(recent));
+        assertEquals(40, stockAt(settled, LocalDateTime.now()));
+        // The first movement after the snapshot lands in the tail
+        movement(settled, "ADJUSTMENT", -5, 35, LocalDateTime.now());
+        assertEquals(35, stockAt(settled, LocalDateTime.now()));
+        stockLedgerService.takeSnapshots();
+        assertEquals(2, snapshots(settled));
+        assertEquals(35, latestSnapshotStock(settled));
+    }
+
+    private long product(int stock, LocalDateTime updatedAt) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement("INSERT INTO products (name, category, stock, price, "
+                    + "low_stock_threshold, created_at, updated_at) VALUES ('Coil', 'Parts', ?, 1.00, 1, ?, ?)",
+                    new String[] {"id"});
+            statement.setInt(1, stock);
+            statement.setTimestamp(2, Timestamp.valueOf(updatedAt));
+            statement.setTimestamp(3, Timestamp.valueOf(updatedAt));
+            return statement;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    private void movement(long productId, String reason, int delta, int stockAfter, LocalDateTime at) {
+        jdbcTemplate.update("INSERT INTO stock_movements (product_id, delta, stock_after, reason, created_at, outflow) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", productId, delta, stockAfter, reason, Timestamp.valueOf(at),
+                Math.max(0, -delta));
+    }
+
+    private long stockAt(long productId, LocalDateTime at) {
+        return stockLedgerService.getStockAt(productId, at).map(StockLevelAt::stock).orElseThrow();
+    }
+
+    private int snapshots(long productId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_snapshots WHERE product_id = ?", Integer.class,
+                productId);
+    }
+
+    private int latestSnapshotStock(long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM stock_snapshots WHERE product_id = ? "
+                + "ORDER BY last_movement_id DESC LIMIT 1", Integer.class, productId);
+    }
+}
@@ -0,0 +1,265 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class StockWriteBehindBufferTests {
+
+    private static final long PRODUCT_ID = 1L;
+
+    @TempDir
+    Path logDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private StockWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:write-behind-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, stock INT, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE stock_write_checkpoints (log_id VARCHAR(64) PRIMARY KEY, node VARCHAR(255), "
+                + "last_seq BIGINT, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE stock_movements (id BIGINT AUTO_INCREMENT PRIMARY KEY, product_id BIGINT, "
+                + "delta INT, stock_after INT, reason VARCHAR(20), username VARCHAR(255), created_at TIMESTAMP, outflow INT)");
+        jdbcTemplate.update("INSERT INTO products (id, stock) VALUES (?, 0)", PRODUCT_ID);
+        buffer = buffer(logDir, "node-a");
+    }
+
+    private StockWriteBehindBuffer buffer(Path dir, String node) {
+        StockLedgerService ledger = new StockLedgerService();
+        ReflectionTestUtils.setField(ledger, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(ledger, "batchSize", 500);
+
+        StockWriteBehindBuffer buffer = new StockWriteBehindBuffer();
+        ReflectionTestUtils.setField(buffer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(buffer, "transactionManager",
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        ReflectionTestUtils.setField(buffer, "stockLedgerService", ledger);
+        ReflectionTestUtils.setField(buffer, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        ReflectionTestUtils.setField(buffer, "logDir", dir.toString());
+        ReflectionTestUtils.setField(buffer, "node", node);
+        return buffer;
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.shutdown();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void flushMovesPendingDeltasIntoTheProductRow() {
+        buffer.submit(PRODUCT_ID, 5);
+        buffer.submit(PRODUCT_ID, -2);
+        assertEquals(3, buffer.pendingDelta(PRODUCT_ID));
+        assertTrue(buffer.pendingProductIds().contains(PRODUCT_ID));
+
+        buffer.flush();
+
+        assertEquals(3, stock());
+        assertEquals(0, buffer.pendingDelta(PRODUCT_ID));
+        assertTrue(buffer.pendingProductIds().isEmpty());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_movements", Integer.class));
+    }
+
+    // A receipt and a pick in the same window net to one movement, which still carries the pick
+    @Test
+    void coalescedMovementKeepsTheGrossOutflow() {
+        buffer.submit(PRODUCT_ID, 50);
+        buffer.submit(PRODUCT_ID, -30);
+        buffer.flush();
+        buffer.submit(PRODUCT_ID, 5);
+        buffer.submit(PRODUCT_ID, -5);
+        buffer.flush();
+
+        assertEquals(20, stock());
+        assertEquals(List.of(Map.of("delta", 20, "outflow", 30, "stock_after", 20),
+                        Map.of("delta", 0, "outflow", 5, "stock_after", 20)),
+                jdbcTemplate.queryForList("SELECT delta, outflow, stock_after FROM stock_movements ORDER BY id"));
+    }
+
+    @Test
+    void replayedIntentsKeepTheGrossOutflow(@TempDir Path otherDir) throws IOException {
+        StockWriteBehindBuffer crashed = buffer(otherDir, "node-b");
+        crashed.submit(PRODUCT_ID, 10);
+        crashed.submit(PRODUCT_ID, -4);
+        closeLog(crashed);
+
+        StockWriteBehindBuffer restarted = buffer(otherDir, "node-b");
+        restarted.recover();
+
+        assertEquals(6, stock());
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT outflow FROM stock_movements", Integer.class));
+        restarted.shutdown();
+    }
+
+    // Each reader sees the database value and the pending deltas of the same moment, so with only
+    // increments its total can never go down, whatever a concurrent flush is doing
+    @Test
+    void readsStayConsistentWhileFlushing() throws Exception {
+        int writers = 2;
+        int increments = 300;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 3);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                writes.add(pool.submit(() -> {
+                    for (int n = 0; n < increments; n++) {
+                        buffer.submit(PRODUCT_ID, 1);
+                    }
+                }));
+            }
+            Future<?> flusher = pool.submit(() -> {
+                while (writing.get()) {
+                    buffer.flush();
+                    Thread.yield();
+                }
+            });
+            List<Future<Long>> reads = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                reads.add(pool.submit(() -> {
+                    long last = 0;
+                    while (writing.get()) {
+                        long total = buffer.read(() -> stock() + buffer.pendingDelta(PRODUCT_ID));
+                        if (total < last) {
+                            return total - last;
+                        }
+                        last = total;
+                        Thread.yield();
+                    }
+                    return 0L;
+                }));
+            }
+
+            for (Future<?> write : writes) {
+                write.get();
+            }
+            writing.set(false);
+            flusher.get();
+            for (Future<Long> read : reads) {
+                assertEquals(0L, read.get(), "a read went backwards");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        buffer.flush();
+        assertEquals(writers * increments, stock());
+        assertEquals(0, buffer.pendingDelta(PRODUCT_ID));
+    }
+
+    @Test
+    void failedFlushKeepsDeltasPendingExactlyOnce() throws IOException {
+        buffer.submit(PRODUCT_ID, 7);
+        jdbcTemplate.execute("ALTER TABLE stock_write_checkpoints RENAME TO stock_write_checkpoints_moved");
+
+        buffer.flush();
+
+        assertEquals(0, stock());
+        assertEquals(7, buffer.pendingDelta(PRODUCT_ID));
+        assertTrue(segments() >= 1, "the intents of the failed flush stay on disk");
+
+        buffer.submit(PRODUCT_ID, 1);
+        jdbcTemplate.execute("ALTER TABLE stock_write_checkpoints_moved RENAME TO stock_write_checkpoints");
+        buffer.flush();
+
+        assertEquals(8, stock());
+        assertEquals(0, buffer.pendingDelta(PRODUCT_ID));
+        assertFalse(buffer.pendingProductIds().contains(PRODUCT_ID));
+        // Only the segment that now receives new intents is left
+        assertEquals(1, segments());
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT last_seq FROM stock_write_checkpoints WHERE node = ?",
+                Long.class, "node-a"));
+    }
+
+    // Both logs number their intents from 1; a shared checkpoint would make node b skip its intent as applied
+    @Test
+    void eachLogRecoversAgainstItsOwnCheckpoint(@TempDir Path otherDir) throws IOException {
+        StockWriteBehindBuffer crashed = buffer(otherDir, "node-b");
+        crashed.submit(PRODUCT_ID, 3);
+        buffer.submit(PRODUCT_ID, 5);
+        buffer.flush();
+        closeLog(crashed);
+
+        StockWriteBehindBuffer restarted = buffer(otherDir, "node-b");
+        restarted.recover();
+
+        assertEquals(8, stock());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_write_checkpoints", Integer.class));
+        // Recovering again finds nothing left to apply
+        buffer(otherDir, "node-b").recover();
+        assertEquals(8, stock());
+        restarted.shutdown();
+    }
+
+    @Test
+    void logWithoutAnIdResumesTheLegacyCheckpoint() throws IOException {
+        StockWriteBehindBuffer crashed = buffer(logDir, "node-a");
+        crashed.submit(PRODUCT_ID, 4);
+        crashed.submit(PRODUCT_ID, 6);
+        closeLog(crashed);
+        // As left by a version without log ids, which had already applied the first intent
+        Files.delete(logDir.resolve("log-id"));
+        jdbcTemplate.update("INSERT INTO stock_write_checkpoints (log_id, last_seq) VALUES ('legacy', 1)");
+
+        buffer.recover();
+
+        assertEquals(6, stock());
+        assertEquals("legacy", Files.readString(logDir.resolve("log-id")));
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT last_seq FROM stock_write_checkpoints "
+                + "WHERE log_id = 'legacy'", Long.class));
+    }
+
+    @Test
+    void flushInsideAReadIsRejected() {
+        buffer.submit(PRODUCT_ID, 1);
+        assertThrows(IllegalStateException.class, () -> buffer.read(() -> {
+            buffer.flush();
+            return null;
+        }));
+        assertEquals(1, buffer.read(() -> buffer.pendingDelta(PRODUCT_ID)));
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, PRODUCT_ID);
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(logDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    // A crash: the log stays on disk unflushed
+    private static void closeLog(StockWriteBehindBuffer buffer) throws IOException {
+        ((FileChannel) ReflectionTestUtils.getField(buffer, "segment")).close();
+    }
+}
@@ -0,0 +1,248 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.klef.cicd.dto.SupplierSearchHit;
+import com.klef.cicd.dto.SupplierSearchResult;
+import com.klef.cicd.dto.SupplierView;
+import com.klef.cicd.repository.SupplierRepository;
+
+class SupplierSearchIndexTests {
+
+    private static final String[] WORDS = {"Tech", "Office", "Global", "Metro", "Prime", "Blue", "Summit",
+            "Supply", "Logistics", "Parts", "Trading", "Industrial", "Pacific", "Northern", "Allied"};
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Priya", "Ravi", "Maria", "Chen", "Omar", "Lena"};
+    private static final String[] LAST_NAMES = {"Doe", "Smith", "Kumar", "Reddy", "Garcia", "Wei", "Haddad", "Berg"};
+
+    private SupplierSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SupplierSearchIndex();
+        index.load(suppliers(2_000));
+    }
+
+    @Test
+    void ranksNameMatchesAboveOtherFields() {
+        index.put(new SupplierView(200_001L, "Acme Widgets", "Zed Acme", "z@acme.io", "555-0100", null, null));
+        index.put(new SupplierView(200_002L, "Zulu Parts", "Acme Contact", "a@zulu.io", "555-0101", null, null));
+
+        SupplierSearchResult result = index.search("acme", 0, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(200_001L, result.hits().get(0).supplier().id());
+        SupplierSearchHit.Highlight first = result.hits().get(0).highlights().get(0);
+        assertEquals("name", first.field());
+        assertEquals(0, first.start());
+        assertEquals(4, first.end());
+    }
+
+    @Test
+    void wholeWordsRankAbovePrefixesAndTiesGoByName() {
+        index.put(new SupplierView(200_001L, "Zenith Quartzline", null, null, null, null, null));
+        index.put(new SupplierView(200_002L, "Quartz Beta", null, null, null, null, null));
+        index.put(new SupplierView(200_003L, "Quartz Alpha", null, null, null, null, null));
+
+        List<SupplierSearchHit> hits = index.search("quartz", 0, 10).hits();
+
+        assertEquals(List.of(200_003L, 200_002L, 200_001L), hits.stream().map(hit -> hit.supplier().id()).toList());
+        assertTrue(hits.get(0).score() > hits.get(2).score());
+    }
+
+    @Test
+    void everyTermHasToMatch() {
+        index.put(new SupplierView(200_001L, "Quartz Tools", "Ann Fjord", null, null, null, null));
+        index.put(new SupplierView(200_002L, "Quartz Paint", "Bo Lake", null, null, null, null));
+
+        SupplierSearchResult result = index.search("quartz fjord", 0, 10);
+
+        assertEquals(1, result.total());
+        assertEquals(200_001L, result.hits().get(0).supplier().id());
+        assertEquals(0, index.search("quartz nowhere", 0, 10).total());
+    }
+
+    @Test
+    void phoneDigitsMatchAcrossSeparators() {
+        index.put(new SupplierView(200_001L, "Zenith", null, null, "(555) 010-0999", null, null));
+
+        SupplierSearchResult result = index.search("5550100", 0, 10);
+
+        assertEquals(1, result.total());
+        SupplierSearchHit.Highlight phone = result.hits().get(0).highlights().get(0);
+        assertEquals("phone", phone.field());
+        assertEquals(1, phone.start());
+        assertEquals(11, phone.end());
+    }
+
+    @Test
+    void blankQueriesFindNothing() {
+        assertEquals(0, index.search("  -- ", 0, 10).total());
+        assertTrue(index.search(null, 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void updatesAndRemovalsAreSearchable() {
+        index.put(new SupplierView(200_001L, "Quartz Works", null, null, null, null, null));
+        index.put(new SupplierView(200_001L, "Basalt Works", null, null, null, null, null));
+
+        assertEquals(0, index.search("quartz", 0, 10).total());
+        assertEquals(1, index.search("basalt", 0, 10).total());
+
+        index.remove(200_001L);
+        assertEquals(0, index.search("basalt", 0, 10).total());
+        // The freed ordinal is reused by the next supplier
+        index.put(new SupplierView(200_002L, "Granite Works", null, null, null, null, null));
+        assertEquals(1, index.search("granite", 0, 10).total());
+        assertEquals(2_001, index.size());
+    }
+
+    @Test
+    void pagesCoverEveryMatchOnce() {
+        int total = index.search("tech", 0, 20).total();
+        Set<Long> seen = new HashSet<>();
+        for (int page = 0; page * 20 < total; page++) {
+            index.search("tech", page, 20).hits().forEach(hit -> assertTrue(seen.add(hit.supplier().id())));
+        }
+        assertEquals(total, seen.size());
+    }
+
+    @Test
+    void pagesPastTheMatchesAreEmpty() {
+        int total = index.search("tech", 0, 20).total();
+
+        SupplierSearchResult last = index.search("tech", (total - 1) / 20, 20);
+        assertEquals(total - (total - 1) / 20 * 20, last.hits().size());
+        SupplierSearchResult past = index.search("tech", total / 20 + 1, 20);
+        assertEquals(total, past.total());
+        assertTrue(past.hits().isEmpty());
+        // page * size overflows an int
+        assertTrue(index.search("tech", Integer.MAX_VALUE, 100).hits().isEmpty());
+    }
+
+    @Test
+    void serviceCapsTheSearchPage() {
+        SupplierService service = new SupplierService();
+        ReflectionTestUtils.setField(service, "supplierSearchIndex", index);
+
+        SupplierSearchResult result = service.searchAllFields("tech", Integer.MAX_VALUE, 50);
+
+        assertEquals(SupplierService.MAX_SEARCH_OFFSET / 50, result.page());
+        assertTrue(result.hits().isEmpty());
+        SupplierSearchResult clamped = service.searchAllFields("tech", -3, 0);
+        assertEquals(0, clamped.page());
+        assertEquals(1, clamped.size());
+        assertEquals(1, clamped.hits().size());
+    }
+
+    // The writes commit after the load's read, so only the queue carries them into the index
+    @Test
+    void writesDuringTheFirstLoadAreKept() {
+        SupplierRepository repository = mock(SupplierRepository.class);
+        SupplierSearchIndex fresh = new SupplierSearchIndex();
+        ReflectionTestUtils.setField(fresh, "supplierRepository", repository);
+        when(repository.findAllViews()).thenAnswer(invocation -> {
+            fresh.put(new SupplierView(3L, "Quartz Three", null, null, null, null, null));
+            fresh.put(new SupplierView(1L, "Basalt One", null, null, null, null, null));
+            fresh.remove(2L);
+            return List.of(new SupplierView(1L, "Quartz One", null, null, null, null, null),
+                    new SupplierView(2L, "Quartz Two", null, null, null, null, null));
+        });
+
+        SupplierSearchResult result = fresh.search("quartz", 0, 10);
+
+        assertEquals(List.of(3L), result.hits().stream().map(hit -> hit.supplier().id()).toList());
+        assertEquals(1, fresh.search("basalt", 0, 10).total());
+        assertEquals(2, fresh.size());
+    }
+
+    @Test
+    void aFailedLoadIsRetriedByTheNextSearch() {
+        SupplierRepository repository = mock(SupplierRepository.class);
+        SupplierSearchIndex fresh = new SupplierSearchIndex();
+        ReflectionTestUtils.setField(fresh, "supplierRepository", repository);
+        when(repository.findAllViews()).thenThrow(new RuntimeException("database down"))
+                .thenReturn(List.of(new SupplierView(1L, "Quartz One", null, null, null, null, null)));
+
+        assertThrows(RuntimeException.class, () -> fresh.search("quartz", 0, 10));
+        // Not loaded, so nothing to update; the next load reads this supplier from the table
+        fresh.put(new SupplierView(9L, "Quartz Nine", null, null, null, null, null));
+
+        assertEquals(1, fresh.search("quartz", 0, 10).total());
+    }
+
+    @Test
+    void scheduledReloadPicksUpChangesFromElsewhere() {
+        SupplierRepository repository = mock(SupplierRepository.class);
+        SupplierSearchIndex fresh = new SupplierSearchIndex();
+        ReflectionTestUtils.setField(fresh, "supplierRepository", repository);
+
+        fresh.scheduledReload();
+        verify(repository, never()).findAllViews();
+
+        when(repository.findAllViews())
+                .thenReturn(List.of(new SupplierView(1L, "Quartz One", null, null, null, null, null)))
+                .thenReturn(List.of(new SupplierView(2L, "Basalt Two", null, null, null, null, null)));
+        assertEquals(1, fresh.search("quartz", 0, 10).total());
+        fresh.scheduledReload();
+
+        assertEquals(0, fresh.search("quartz", 0, 10).total());
+        assertEquals(1, fresh.search("basalt", 0, 10).total());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void searchLatencyAt100kSuppliers() {
+        index.load(suppliers(100_000));
+        String[] queries = {"tech", "john smith", "sales123", "pacific trading", "123-45", "glob", "o", "allied 9999"};
+
+        // Let the JIT see the search path before timing it
+        for (int i = 0; i < 200; i++) {
+            for (String query : queries) {
+                index.search(query, 0, 20);
+            }
+        }
+
+        for (String query : queries) {
+            int runs = 50;
+            long start = System.nanoTime();
+            SupplierSearchResult result = null;
+            for (int i = 0; i < runs; i++) {
+                result = index.search(query, 0, 20);
+            }
+            double micros = (System.nanoTime() - start) / 1000.0 / runs;
+            System.out.printf("query %-16s %,7d hits  %,9.1f us/search%n", "'" + query + "'", result.total(), micros);
+            assertFalse(result.hits().isEmpty());
+        }
+    }
+
+    private static List<SupplierView> suppliers(int count) {
+        List<SupplierView> suppliers = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (long i = 1; i <= count; i++) {
+            String name = WORDS[(int) (i % WORDS.length)] + " " + WORDS[(int) ((i / 15) % WORDS.length)] + " " + i;
+            String contact = FIRST_NAMES[(int) (i % 8)] + " " + LAST_NAMES[(int) ((i / 8) % 8)];
+            String email = "sales" + i + "@" + WORDS[(int) ((i / 3) % WORDS.length)].toLowerCase() + ".com";
+            String phone = String.format("%03d-%03d-%04d", i % 1000, (i / 7) % 1000, i % 10_000);
+            suppliers.add(new SupplierView(i, name, contact, email, phone, now, now));
+        }
+        return suppliers;
+    }
+}
@@ -0,0 +1,199 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.klef.cicd.dto.UserDeletionView;
+import com.klef.cicd.dto.UserDeletionView.Status;
+import com.klef.cicd.model.Product;
+import com.klef.cicd.model.Task;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-deletion;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.show-sql=false",
+        "app.warmup.enabled=false",
+        "app.stock.write-behind.log-dir=${java.io.tmpdir}/user-deletion-tests",
+        "app.users.delete.chunk-size=25",
+        "app.users.delete.sync-limit=100"
+})
+class UserDeletionServiceTests {
+
+    @Autowired
+    private UserDeletionService userDeletionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void smallUserIsDeletedWithItsProductsAndTasksBeforeReturning() {
+        User owner = owner("small-owner");
+        User other = owner("small-other");
+        seed(owner, other, 20, 10);
+
+        UserDeletionView deletion = userDeletionService.delete(owner.getId(), null, "small-admin");
+
+        assertEquals(Status.COMPLETED, deletion.status());
+        assertEquals(20, deletion.productsDone());
+        // Tasks the owner both created and was assigned count once, as assigned
+        assertEquals(20, deletion.assignedTasksDone());
+        assertEquals(10, deletion.createdTasksDone());
+        assertFalse(userRepository.existsById(owner.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM products WHERE created_by = ?", owner.getId()));
+        assertEquals(0, count("SELECT COUNT(*) FROM tasks WHERE assigned_to_id = ? OR created_by_id = ?",
+                owner.getId(), owner.getId()));
+        assertTrue(userRepository.existsById(other.getId()));
+        assertEquals(20, count("SELECT COUNT(*) FROM stock_movements WHERE reason = 'REMOVED' AND username = ?",
+                "small-admin"));
+    }
+
+    @Test
+    void largeUserIsReassignedByABackgroundJob() throws Exception {
+        User owner = owner("large-owner");
+        User other = owner("large-other");
+        seed(owner, other, 60, 30);
+
+        UserDeletionView deletion = userDeletionService.delete(owner.getId(), other.getUsername(), "admin");
+        assertEquals(Status.RUNNING, deletion.status());
+        UserDeletionView done = await(deletion.id());
+
+        assertEquals(Status.COMPLETED, done.status(), done.error());
+        assertEquals(60, done.productsDone());
+        assertEquals(done.assignedTasksTotal(), done.assignedTasksDone());
+        assertEquals(done.createdTasksTotal(), done.createdTasksDone());
+        assertFalse(userRepository.existsById(owner.getId()));
+        assertEquals(60, count("SELECT COUNT(*) FROM products WHERE created_by = ?", other.getId()));
+        assertEquals(90, count("SELECT COUNT(*) FROM tasks WHERE assigned_to_id = ? AND created_by_id = ?",
+                other.getId(), other.getId()));
+    }
+
+    @Test
+    void missingUsersAreRejected() {
+        RuntimeException missing = assertThrows(RuntimeException.class,
+                () -> userDeletionService.delete(Long.MAX_VALUE, null, "admin"));
+        assertEquals("User not found", missing.getMessage());
+        assertThrows(RuntimeException.class, () -> userDeletionService.getJob("no-such-job"));
+    }
+
+    @Test
+    void badReassignTargetLeavesEverythingInPlace() {
+        User owner = owner("reassign-owner");
+        User other = owner("reassign-other");
+        seed(owner, other, 5, 5);
+
+        RuntimeException unknown = assertThrows(RuntimeException.class,
+                () -> userDeletionService.delete(owner.getId(), "nobody", "admin"));
+        assertEquals("User to reassign to not found: nobody", unknown.getMessage());
+        RuntimeException self = assertThrows(RuntimeException.class,
+                () -> userDeletionService.delete(owner.getId(), owner.getUsername(), "admin"));
+        assertEquals("Cannot reassign to the user being deleted", self.getMessage());
+
+        assertTrue(userRepository.existsById(owner.getId()));
+        assertEquals(5, count("SELECT COUNT(*) FROM products WHERE created_by = ?", owner.getId()));
+        assertEquals(15, count("SELECT COUNT(*) FROM tasks WHERE assigned_to_id = ? OR created_by_id = ?",
+                owner.getId(), owner.getId()));
+    }
+
+    // The same user removed entity by entity, as the cascade did, and with the chunked statements
+    @Test
+    @Tag("benchmark")
+    void bulkDeletionAgainstEntityCascade() throws Exception {
+        int products = 2_000;
+        int tasks = 1_000;
+        User cascaded = owner("cascade-owner");
+        User cascadedOther = owner("cascade-other");
+        seed(cascaded, cascadedOther, products, tasks);
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = entityManager.find(User.class, cascaded.getId());
+            entityManager.createQuery("SELECT p FROM Product p WHERE p.user = :user", Product.class)
+                    .setParameter("user", user).getResultList().forEach(entityManager::remove);
+            entityManager.createQuery("SELECT t FROM Task t WHERE t.assignedTo = :user OR t.createdBy = :user",
+                    Task.class).setParameter("user", user).getResultList().forEach(entityManager::remove);
+            entityManager.remove(user);
+        });
+        long cascadeMillis = (System.nanoTime() - start) / 1_000_000;
+
+        User bulk = owner("bulk-owner");
+        User bulkOther = owner("bulk-other");
+        seed(bulk, bulkOther, products, tasks);
+        start = System.nanoTime();
+        UserDeletionView done = await(userDeletionService.delete(bulk.getId(), null, "admin").id());
+        long bulkMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Status.COMPLETED, done.status(), done.error());
+        assertFalse(userRepository.existsById(bulk.getId()));
+        System.out.printf("User with %d products and %d tasks: entity cascade %d ms, chunked bulk deletion %d ms%n",
+                products, tasks * 3, cascadeMillis, bulkMillis);
+    }
+
+    private UserDeletionView await(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        UserDeletionView view = userDeletionService.getJob(jobId);
+        while (view.status() == Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            view = userDeletionService.getJob(jobId);
+        }
+        return view;
+    }
+
+    private User owner(String username) {
+        return userRepository.save(new User(username, username + "@example.com", "x", User.Role.MANAGER));
+    }
+
+    // Products owned by the user, plus per task set: assigned to the user, created by the user for the
+    // other user, and created by the user for themselves
+    private void seed(User owner, User other, int products, int tasks) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> productRows = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            productRows.add(new Object[] {owner.getUsername() + "-" + i, "Bulk", 5, 10, now, now, owner.getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, category, stock, price, low_stock_threshold, "
+                + "created_at, updated_at, created_by) VALUES (?, ?, ?, 1.00, ?, ?, ?, ?)", productRows);
+        List<Object[]> taskRows = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            taskRows.add(new Object[] {"assigned-" + i, now, now, owner.getId(), other.getId()});
+            taskRows.add(new Object[] {"created-" + i, now, now, other.getId(), owner.getId()});
+            taskRows.add(new Object[] {"own-" + i, now, now, owner.getId(), owner.getId()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tasks (title, status, priority, created_at, updated_at, "
+                + "assigned_to_id, created_by_id) VALUES (?, 'PENDING', 'MEDIUM', ?, ?, ?, ?)", taskRows);
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,59 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.klef.cicd.dto.LoginRequest;
+import com.klef.cicd.model.User;
+import com.klef.cicd.repository.UserRepository;
+
+class UserServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHashService passwordHashService = new PasswordHashService(4, 2, 16, 30000);
+    private final UserService userService = new UserService();
+    private final User legacy = new User("ana", "ana@example.com", "password123", User.Role.STAFF);
+
+    {
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "passwordHashService", passwordHashService);
+        when(userRepository.findByUsername("ana")).thenReturn(Optional.of(legacy));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashService.shutdown();
+    }
+
+    // The password matched, but the login still fails: it must not write to the users table
+    @Test
+    void aLoginWithTheWrongRoleDoesNotRehash() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> userService.login(new LoginRequest("ana", "password123", "ADMIN")));
+
+        assertTrue(e.getMessage().startsWith("Invalid role"));
+        assertEquals("password123", legacy.getPassword());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void aSuccessfulLoginUpgradesAPlaintextPassword() {
+        userService.login(new LoginRequest("ana", "password123", "STAFF"));
+
+        verify(userRepository).save(legacy);
+        assertTrue(passwordHashService.isHashed(legacy.getPassword()));
+        assertTrue(passwordHashService.matches("password123", legacy.getPassword()));
+    }
+}
@@ -0,0 +1,172 @@
+package com.klef.cicd.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// The application context here runs warm-up for real; the other tests drive standalone instances
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmup;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/h2",
+        "spring.jpa.show-sql=false",
+        "app.stock.write-behind.log-dir=${java.io.tmpdir}/warmup-tests",
+        "app.warmup.enabled=true",
+        "app.warmup.iterations=3"
+})
+class WarmupServiceTests {
+
+    @Autowired
+    private ReadinessProbe readinessProbe;
+
+    @Test
+    void readinessWaitsForWarmUp() {
+        assertEquals(List.of(Boolean.TRUE), readinessProbe.warmedWhenReady);
+    }
+
+    @Test
+    void everyIterationRunsWithinTheBudget() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Set<String> formats = ConcurrentHashMap.newKeySet();
+        WarmupService warmup = warmup(registry, formats, 4, 60_000);
+
+        warmup.run(null);
+
+        assertEquals(1, timer(registry, "completed").count());
+        assertNull(registry.find("app.warmup.duration").tag("outcome", "budget_expired").timer());
+        assertEquals(4, registry.get("app.warmup.iterations").gauge().value());
+        assertEquals(Set.of("application/json", "application/cbor", "application/x-jackson-smile"), formats);
+    }
+
+    @Test
+    void anExhaustedBudgetEndsWarmUpEarly() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WarmupService warmup = warmup(registry, ConcurrentHashMap.newKeySet(), Integer.MAX_VALUE, 300);
+
+        long start = System.nanoTime();
+        warmup.run(null);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(1, timer(registry, "budget_expired").count());
+        assertTrue(elapsedMillis < 10_000, "took " + elapsedMillis + " ms");
+        double iterations = registry.get("app.warmup.iterations").gauge().value();
+        assertTrue(iterations > 0 && iterations < Integer.MAX_VALUE, "ran " + iterations + " iterations");
+    }
+
+    @Test
+    void noBudgetMeansNoIterations() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WarmupService warmup = warmup(registry, ConcurrentHashMap.newKeySet(), 10, 0);
+
+        warmup.run(null);
+
+        assertEquals(1, timer(registry, "budget_expired").count());
+        assertEquals(0, registry.get("app.warmup.iterations").gauge().value());
+    }
+
+    private static WarmupService warmup(MeterRegistry registry, Set<String> formats, int iterations, long budgetMillis) {
+        HttpMessageConverters converters = new HttpMessageConverters(false, List.of(
+                new MappingJackson2HttpMessageConverter() {
+                    @Override
+                    protected void writeInternal(Object body, Type type, HttpOutputMessage output) throws IOException {
+                        record(formats, output);
+                        super.writeInternal(body, type, output);
+                    }
+                },
+                new MappingJackson2CborHttpMessageConverter() {
+                    @Override
+                    protected void writeInternal(Object body, Type type, HttpOutputMessage output) throws IOException {
+                        record(formats, output);
+                        super.writeInternal(body, type, output);
+                    }
+                },
+                new MappingJackson2SmileHttpMessageConverter() {
+                    @Override
+                    protected void writeInternal(Object body, Type type, HttpOutputMessage output) throws IOException {
+                        record(formats, output);
+                        super.writeInternal(body, type, output);
+                    }
+                }));
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("httpMessageConverters", converters);
+
+        WarmupService warmup = new WarmupService();
+        ReflectionTestUtils.setField(warmup, "httpMessageConverters", beans.getBeanProvider(HttpMessageConverters.class));
+        ReflectionTestUtils.setField(warmup, "environment", new MockEnvironment());
+        ReflectionTestUtils.setField(warmup, "meterRegistry", registry);
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "iterations", iterations);
+        ReflectionTestUtils.setField(warmup, "budgetMillis", budgetMillis);
+        return warmup;
+    }
+
+    private static void record(Set<String> formats, HttpOutputMessage output) {
+        MediaType format = output.getHeaders().getContentType();
+        formats.add(format.getType() + "/" + format.getSubtype());
+    }
+
+    private static Timer timer(MeterRegistry registry, String outcome) {
+        Timer timer = registry.find("app.warmup.duration").tag("outcome", outcome).timer();
+        assertNotNull(timer, "no " + outcome + " timer");
+        return timer;
+    }
+
+    @TestConfiguration
+    static class ReadinessConfig {
+
+        @Bean
+        ReadinessProbe readinessProbe(MeterRegistry meterRegistry) {
+            return new ReadinessProbe(meterRegistry);
+        }
+    }
+
+    // Records, at the moment the application reports ready, whether warm-up had already finished
+    static class ReadinessProbe {
+        final List<Boolean> warmedWhenReady = new ArrayList<>();
+        private final MeterRegistry meterRegistry;
+
+        ReadinessProbe(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @EventListener
+        void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                warmedWhenReady.add(meterRegistry.find("app.warmup.duration").tag("outcome", "completed").timer() != null);
+            }
+        }
+    }
+}
@@ -15,7 +15,7 @@ const Card = ({ title, value, icon: Icon, color = 'primary', trend }) => {
           <p className="text-2xl font-bold text-gray-900 mt-1">{value}</p>
           {trend && (
             <p className={`text-xs mt-1 ${trend.positive ? 'text-green-600' : 'text-red-600'}`}>
-              {trend.positive ? '+' : ''}{trend.value}% from last month
+              {trend.value > 0 ? '+' : ''}{trend.value}% from last month
             </p>
           )}
         </div>
@@ -23,30 +23,26 @@ const Dashboard = () => {
     totalUsers: 0
   });
   const [lowStockProducts, setLowStockProducts] = useState([]);
+  const [taskStats, setTaskStats] = useState(null);
   const { user } = useAuth();
   const navigate = useNavigate();
 
   useEffect(() => {
-    fetchStats();
-    fetchLowStockProducts();
+    fetchDashboard();
   }, []);
 
-  const fetchStats = async () => {
+  // One request for the whole page; parts the server could not load in time come back null
+  const fetchDashboard = async () => {
     try {
-      const response = await apiService.getDashboardStats();
-      setStats(response.data);
+      const response = await apiService.getDashboardBootstrap(user?.username);
+      const { stats: pageStats, lowStockProducts: lowStock, taskStats: myTasks } = response.data;
+      if (pageStats) {
+        setStats(pageStats);
+      }
+      setLowStockProducts(lowStock || []);
+      setTaskStats(myTasks);
     } catch (error) {
-      console.error('Failed to fetch stats:', error);
-    }
-  };
-
-  const fetchLowStockProducts = async () => {
-    try {
-      const response = await apiService.getProducts();
-      const lowStock = response.data.filter(product => product.stock <= product.lowStockThreshold);
-      setLowStockProducts(lowStock);
-    } catch (error) {
-      console.error('Failed to fetch low stock products:', error);
+      console.error('Failed to fetch dashboard:', error);
       setLowStockProducts([]);
     }
   };
@@ -126,7 +122,7 @@ const Dashboard = () => {
       icon: BellAlertIcon
     },
     {
-      label: 'Review tasks',
+      label: taskStats ? `Review tasks (${taskStats.pending} pending)` : 'Review tasks',
       action: () => navigate('/task-management'),
       icon: CheckBadgeIcon
     },
@@ -150,10 +150,11 @@ const Users = () => {
   const handleDelete = async (user) => {
     if (window.confirm(`Are you sure you want to delete user "${user.username}"? This action cannot be undone.`)) {
       try {
-        await apiService.deleteUser(user.id);
+        const response = await apiService.deleteUser(user.id);
         const updatedUsers = users.filter(u => u.id !== user.id);
         setUsers(updatedUsers);
-        toast.success('User deleted successfully');
+        // 202: a user with many products and tasks is removed by a background job
+        toast.success(response.status === 202 ? 'User deletion started' : 'User deleted successfully');
       } catch (error) {
         toast.error(error.response?.data?.message || 'Failed to delete user');
       }
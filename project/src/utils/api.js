@@ -57,6 +57,8 @@ export const apiService = {
   getProducts: () => api.get('/products'),
   getSuppliers: () => api.get('/suppliers'),
   getDashboardStats: () => api.get('/dashboard/stats'),
+  getDashboardBootstrap: (username) => api.get('/dashboard/bootstrap', { params: { username } }),
+  getInventoryRollups: (params) => api.get('/reports/inventory-rollups', { params }),
 
   // Product CRUD
   createProduct: (product) => {
@@ -68,16 +70,38 @@ export const apiService = {
     return api.put(`/products/${id}?username=${user.username}`, product);
   },
   deleteProduct: (id) => api.delete(`/products/${id}`),
+  getProductsByIds: (ids) => api.get('/products', { params: { ids: ids.join(',') } }),
+  getNearlyLowStockProducts: (within) => api.get('/products/nearly-low-stock', { params: { within } }),
 
   // Supplier CRUD
-  createSupplier: (supplier) => api.post('/suppliers', supplier),
-  updateSupplier: (id, supplier) => api.put(`/suppliers/${id}`, supplier),
-  deleteSupplier: (id) => api.delete(`/suppliers/${id}`),
+  createSupplier: (supplier) => {
+    const user = JSON.parse(sessionStorage.getItem('user') || '{}');
+    return api.post('/suppliers', supplier, { params: { username: user.username } });
+  },
+  updateSupplier: (id, supplier) => {
+    const user = JSON.parse(sessionStorage.getItem('user') || '{}');
+    return api.put(`/suppliers/${id}`, supplier, { params: { username: user.username } });
+  },
+  deleteSupplier: (id) => {
+    const user = JSON.parse(sessionStorage.getItem('user') || '{}');
+    return api.delete(`/suppliers/${id}`, { params: { username: user.username } });
+  },
+  getSuppliersByIds: (ids) => api.get('/suppliers', { params: { ids: ids.join(',') } }),
 
   // User CRUD (Admin only)
-  createUser: (user) => api.post('/users', user),
-  updateUser: (id, user) => api.put(`/users/${id}`, user),
-  deleteUser: (id) => api.delete(`/users/${id}`),
+  createUser: (newUser) => {
+    const user = JSON.parse(sessionStorage.getItem('user') || '{}');
+    return api.post('/users', newUser, { params: { username: user.username } });
+  },
+  updateUser: (id, changes) => {
+    const user = JSON.parse(sessionStorage.getItem('user') || '{}');
+    return api.put(`/users/${id}`, changes, { params: { username: user.username } });
+  },
+  deleteUser: (id, reassignTo) => {
+    const user = JSON.parse(sessionStorage.getItem('user') || '{}');
+    return api.delete(`/users/${id}`, { params: { username: user.username, reassignTo } });
+  },
+  getUserDeletion: (jobId) => api.get(`/users/deletions/${jobId}`),
 
   // Task CRUD
   createTask: (task, createdBy, assignedTo) => api.post(`/tasks?createdBy=${createdBy}&assignedTo=${assignedTo}`, task),
@@ -85,6 +109,7 @@ export const apiService = {
   getTasksByAssignedUser: (username) => api.get(`/tasks/assigned/${username}`),
   getTasksByCreatedUser: (username) => api.get(`/tasks/created/${username}`),
   getTaskById: (id) => api.get(`/tasks/${id}`),
+  getTasksByIds: (ids) => api.get('/tasks', { params: { ids: ids.join(',') } }),
   updateTask: (id, task, username) => api.put(`/tasks/${id}?username=${username}`, task),
   deleteTask: (id, username) => api.delete(`/tasks/${id}?username=${username}`),
   getOverdueTasks: (username) => api.get(`/tasks/overdue/${username}`),